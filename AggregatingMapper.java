@@ -0,0 +1,49 @@
+package TDE2;
+
+import org.apache.hadoop.mapreduce.Mapper;
+
+import java.io.IOException;
+
+/**
+ * Base dos Mappers que acumulam as chaves no InMapperAggregator e só emitem quando a tabela é esvaziada.
+ *
+ * Concentra a disciplina de reuso de objetos do pacote: a subclasse chama aggregator.add()/count() com
+ * os bytes da chave (sem criar objetos por linha), e na emissão devolve em outputKey()/outputValue()
+ * as mesmas instâncias de saída, apenas preenchidas com o novo conteúdo. A subclasse também marca em
+ * metrics as fases de cada linha (RowMetrics).
+ */
+public abstract class AggregatingMapper<KEYIN, VALUEIN, KEYOUT, VALUEOUT> extends Mapper<KEYIN, VALUEIN, KEYOUT, VALUEOUT> {
+
+    protected InMapperAggregator aggregator;  // Resumos acumulados por chave dentro do Mapper
+    protected RowMetrics metrics;             // Destino de cada linha e tempo das fases
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        metrics = new RowMetrics(context);
+        aggregator = new InMapperAggregator(context, (key, start, length, stats) -> {
+            context.write(outputKey(key, start, length), outputValue(stats));
+        });
+    }
+
+    /**
+     * Preenche a chave de saída reutilizada a partir dos bytes agregados.
+     * @param key Os bytes da chave, como passados ao aggregator
+     * @param start O início da chave
+     * @param length O tamanho da chave
+     * @return A chave de saída (sempre a mesma instância)
+     */
+    protected abstract KEYOUT outputKey(byte[] key, int start, int length);
+
+    /**
+     * Preenche o valor de saída reutilizado a partir do resumo agregado.
+     * @param stats O resumo da chave (válido apenas durante a emissão)
+     * @return O valor de saída (sempre a mesma instância)
+     */
+    protected abstract VALUEOUT outputValue(StatsWritable stats);
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        aggregator.flush();  // Emite os resumos que ainda estão na tabela
+        metrics.close();
+    }
+}
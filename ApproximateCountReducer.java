@@ -0,0 +1,51 @@
+package TDE2;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import java.io.IOException;
+
+/**
+ * Reducer do modo aproximado para as contagens: soma as contagens da amostra lida pelo
+ * SampledTradeInputFormat, divide pela fração amostrada e informa o erro da estimativa, calculado
+ * a partir das contagens de cada split (SampleEstimates). O combiner continua sendo o CountingReducer,
+ * que soma as contagens da amostra de um mesmo split.
+ */
+public class ApproximateCountReducer<K extends Writable> extends Reducer<SplitTaggedKey, IntWritable, K, Text> {
+
+    private final Text result = new Text();  // Estimativa formatada, reutilizada entre chaves
+    private final SampleEstimates.Splits splits = new SampleEstimates.Splits();  // Contagens por split da chave
+    private SampleEstimates estimates;
+    private K outputKey;                     // Chave original, sem o split
+    private KeyHistogram histogram;          // Registros recebidos por chave
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setup(Context context) {
+        estimates = new SampleEstimates(context.getConfiguration());
+        outputKey = (K) SplitTaggedKey.newKey(context.getConfiguration());
+        histogram = new KeyHistogram(context);
+    }
+
+    @Override
+    public void reduce(SplitTaggedKey key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
+        splits.clear();
+        long records = 0;
+        for (IntWritable value : values) {  // A cada valor, key passa a ter o split desse valor
+            splits.add(key.getSplit(), key.getSplitLength(), value.get(), 0);
+            records++;
+        }
+        histogram.add(records);
+
+        key.getKey(outputKey);
+        result.set(estimates.count(splits));
+        context.write(outputKey, result);
+    }
+
+    @Override
+    protected void cleanup(Context context) {
+        histogram.close();
+    }
+}
@@ -0,0 +1,52 @@
+package TDE2;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import java.io.IOException;
+
+/**
+ * Reducer do modo aproximado para os resumos de valores: funde os StatsWritable da amostra e grava a
+ * contagem estimada e a média com o intervalo de confiança, calculado a partir dos resumos de cada split
+ * (SampleEstimates). O combiner continua sendo o StatsReducer, que funde os resumos de um mesmo split.
+ */
+public class ApproximateStatsReducer<K extends Writable> extends Reducer<SplitTaggedKey, StatsWritable, K, Text> {
+
+    private final StatsWritable total = new StatsWritable();  // Resumo da amostra para a chave
+    private final Text result = new Text();                   // Estimativa formatada, reutilizada entre chaves
+    private final SampleEstimates.Splits splits = new SampleEstimates.Splits();  // Contagens e somas por split
+    private SampleEstimates estimates;
+    private K outputKey;                                      // Chave original, sem o split
+    private KeyHistogram histogram;                           // Registros recebidos por chave
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setup(Context context) {
+        estimates = new SampleEstimates(context.getConfiguration());
+        outputKey = (K) SplitTaggedKey.newKey(context.getConfiguration());
+        histogram = new KeyHistogram(context);
+    }
+
+    @Override
+    public void reduce(SplitTaggedKey key, Iterable<StatsWritable> values, Context context) throws IOException, InterruptedException {
+        total.clear();
+        splits.clear();
+        long records = 0;
+        for (StatsWritable value : values) {  // A cada valor, key passa a ter o split desse valor
+            total.merge(value);
+            splits.add(key.getSplit(), key.getSplitLength(), value.getCount(), value.getSum());
+            records++;
+        }
+        histogram.add(records);
+
+        key.getKey(outputKey);
+        result.set(estimates.stats(splits, total));
+        context.write(outputKey, result);
+    }
+
+    @Override
+    protected void cleanup(Context context) {
+        histogram.close();
+    }
+}
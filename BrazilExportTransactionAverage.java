@@ -4,8 +4,6 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.*;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
@@ -32,81 +30,95 @@ public class BrazilExportTransactionAverage {
 
         j.setJarByClass(BrazilExportTransactionAverage.class);
         j.setMapperClass(MapForBrazilExportAverage.class);
-        j.setReducerClass(ReduceForBrazilExportAverage.class);
-
-        j.setMapOutputKeyClass(Text.class);
-        j.setMapOutputValueClass(AverageWritable.class);
-
-        j.setOutputKeyClass(Text.class);
-        j.setOutputValueClass(FloatWritable.class);
+        j.setCombinerClass(StatsReducer.class);  // Funde os resumos parciais antes do shuffle
+        j.setReducerClass(StatsReducer.class);  // Funde os resumos de cada ano: contagem, média, mínimo, máximo e variância
+
+        j.setMapOutputKeyClass(YearKey.class);  // Ano como int de 4 bytes, comparado sem desserializar
+        j.setMapOutputValueClass(StatsWritable.class);
+
+        j.setOutputKeyClass(YearKey.class);
+        j.setOutputValueClass(StatsWritable.class);
+
+        String columnarInput = c.get(ColumnarTradeInputFormat.INPUT);
+        if (columnarInput != null) {  // Lê a saída do ColumnarTradeConverter, pulando os blocos sem exportações do Brasil
+            input = new Path(columnarInput);
+            j.setInputFormatClass(ColumnarTradeInputFormat.class);
+            j.setMapperClass(BrazilTransactionAverage.MapForBrazilAverageColumnar.class);  // O fluxo é filtrado na leitura
+            ColumnarTradeInputFormat.setColumns(j, TradeColumn.YEAR, TradeColumn.TRADE_USD);
+            ColumnarTradeInputFormat.setFilter(j, TradeColumn.COUNTRY, "Brazil");
+            ColumnarTradeInputFormat.setFilter(j, TradeColumn.FLOW, "Export");
+        }
 
-        FileInputFormat.addInputPath(j, input);
+        String partitionedInput = c.get(PartitionedTradeInputFormat.INPUT);
+        if (partitionedInput != null) {  // Lê apenas as partições do Brasil; o fluxo continua filtrado no Mapper
+            j.setInputFormatClass(PartitionedTradeInputFormat.class);
+            TradePredicate.setValues(j.getConfiguration(), TradeColumn.COUNTRY, "Brazil");
+            PartitionedTradeInputFormat.addInputPartitions(j, new Path(partitionedInput));
+        } else {
+            FileInputFormat.addInputPath(j, input);
+        }
         FileOutputFormat.setOutputPath(j, output);
 
         // Adiciona o suporte para compactação dos resultados se necessário
         j.setOutputFormatClass(org.apache.hadoop.mapreduce.lib.output.TextOutputFormat.class);
 
-        // Define o número de reducers (opcional, ajuste conforme necessário)
-        j.setNumReduceTasks(1);
+        // Com vários Reducers, os anos continuam em ordem de um arquivo para o outro
+        j.getConfiguration().setBoolean(ReducerPlanner.TOTAL_ORDER, true);
 
-        System.exit(j.waitForCompletion(true) ? 0 : 1);
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
     }
 
     /**
-     * Classe Mapper que processa cada linha do arquivo CSV e emite a soma e a contagem das transações do tipo "Export".
+     * Classe Mapper que processa cada linha do arquivo CSV e emite o resumo (StatsWritable) das transações do tipo "Export".
      */
-    public static class MapForBrazilExportAverage extends Mapper<LongWritable, Text, Text, AverageWritable> {
+    public static class MapForBrazilExportAverage extends StatsMapper<LongWritable, Writable, YearKey> {
+
+        private final static byte[] brazil = CsvFieldTokenizer.ascii("Brazil");  // País procurado
+        private final static byte[] export = CsvFieldTokenizer.ascii("Export");  // Tipo de transação procurado
+        private YearKey yearKey = new YearKey();  // Ano da transação, reutilizado como chave
+        private byte[] packedYear = new byte[YearKey.SERIALIZED_SIZE];  // Ano serializado, chave do agregador
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
 
-        private final static Text brazilKey = new Text("Brazil");  // Chave que representa o Brasil
-        private AverageWritable transactionData = new AverageWritable();  // Objeto para armazenar soma e contagem
+        @Override
+        protected YearKey outputKey(byte[] year, int start, int length) {
+            yearKey.set(YearKey.unpack(year, start));
+            return yearKey;  // Emitido com o resumo parcial das transações
+        }
 
         @Override
-        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
-            String linha = value.toString();  // Converte a linha de entrada para uma string
-            String[] col = linha.split(";");  // Divide a linha em colunas usando ";" como delimitador
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);  // Localiza as colunas da linha usando ";" como delimitador
 
-            if (col.length >= 10) {  // Verifica se a linha contém o número esperado de colunas
-                String country = col[0];  // A primeira coluna contém o país
-                String year = col[1];     // A segunda coluna contém o ano
-                String type = col[4];     // A quinta coluna contém o tipo da transação
-                float price;
+            if (col.fieldCount() >= 10) {  // Verifica se a linha contém o número esperado de colunas
+                double price;
 
                 try {
-                    price = Float.parseFloat(col[5]);  // Converte o preço para float
+                    price = col.parseDouble(5);  // Converte o preço (sexta coluna) para double
                 } catch (NumberFormatException e) {
+                    metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
                     return;  // Ignora linhas com preços inválidos
                 }
-
-                if (country.equalsIgnoreCase("Brazil") && type.equalsIgnoreCase("Export")) {
-                    transactionData.setSum(price);
-                    transactionData.setCount(1);  // Emite a soma e contagem de 1 transação
-                    context.write(new Text(year), transactionData);  // Emite o ano como chave
+                metrics.parsed();
+
+                // A primeira coluna contém o país e a quinta o tipo da transação
+                if (col.equalsIgnoreCase(0, brazil) && col.equalsIgnoreCase(4, export)) {
+                    try {
+                        YearKey.pack(col.parseInt(1), packedYear);  // A segunda coluna contém o ano
+                    } catch (NumberFormatException e) {
+                        metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
+                        return;  // Ignora linhas com anos inválidos
+                    }
+                    metrics.accepted();  // O ano só é lido nas linhas que passam pelo filtro
+                    // Acumula o preço no ano da transação
+                    aggregator.add(packedYear, 0, packedYear.length, price);
+                    metrics.emitted();
+                } else {
+                    metrics.filtered();
                 }
+            } else {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
             }
         }
     }
-
-    /**
-     * Classe Reducer que calcula a média das transações do tipo "Export" por ano para o Brasil.
-     */
-    public static class ReduceForBrazilExportAverage extends Reducer<Text, AverageWritable, Text, FloatWritable> {
-
-        private FloatWritable averageResult = new FloatWritable();  // Objeto para armazenar a média
-
-        @Override
-        public void reduce(Text key, Iterable<AverageWritable> values, Context context) throws IOException, InterruptedException {
-            float totalSum = 0;  // Inicializa a soma total
-            int totalCount = 0;  // Inicializa a contagem total
-
-            for (AverageWritable value : values) {  // Itera sobre todos os valores recebidos
-                totalSum += value.getSum();  // Soma os valores
-                totalCount += value.getCount();  // Soma as contagens
-            }
-
-            // Calcula a média das transações
-            float average = totalCount == 0 ? 0 : totalSum / totalCount;
-            averageResult.set(average);  // Define o resultado da média
-            context.write(key, averageResult);  // Emite o ano e a média das transações
-        }
-    }
 }
@@ -4,8 +4,6 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.*;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
@@ -32,74 +30,124 @@ public class BrazilTransactionAverage {
 
         j.setJarByClass(BrazilTransactionAverage.class);
         j.setMapperClass(MapForBrazilAverage.class);
-        j.setReducerClass(ReduceForBrazilAverage.class);
+        j.setCombinerClass(StatsReducer.class);  // Funde os resumos parciais antes do shuffle
+        j.setReducerClass(StatsReducer.class);  // Funde os resumos de cada ano: contagem, média, mínimo, máximo e variância
 
-        j.setMapOutputKeyClass(Text.class);
-        j.setMapOutputValueClass(AverageWritable.class);
+        j.setMapOutputKeyClass(YearKey.class);  // Ano como int de 4 bytes, comparado sem desserializar
+        j.setMapOutputValueClass(StatsWritable.class);
 
-        j.setOutputKeyClass(Text.class);
-        j.setOutputValueClass(FloatWritable.class);
+        j.setOutputKeyClass(YearKey.class);
+        j.setOutputValueClass(StatsWritable.class);
 
-        FileInputFormat.addInputPath(j, input);
+        j.getConfiguration().setBoolean(ReducerPlanner.TOTAL_ORDER, true);  // Anos em ordem entre os arquivos de saída
+
+        String columnarInput = c.get(ColumnarTradeInputFormat.INPUT);
+        if (columnarInput != null) {  // Lê a saída do ColumnarTradeConverter, pulando os blocos sem o Brasil
+            input = new Path(columnarInput);
+            j.setInputFormatClass(ColumnarTradeInputFormat.class);
+            j.setMapperClass(MapForBrazilAverageColumnar.class);
+            ColumnarTradeInputFormat.setColumns(j, TradeColumn.YEAR, TradeColumn.TRADE_USD);
+            ColumnarTradeInputFormat.setFilter(j, TradeColumn.COUNTRY, "Brazil");
+        }
+
+        String partitionedInput = c.get(PartitionedTradeInputFormat.INPUT);
+        if (partitionedInput != null) {  // Lê apenas as partições do Brasil geradas pelo TradeRepartitioner
+            j.setInputFormatClass(PartitionedTradeInputFormat.class);
+            TradePredicate.setValues(j.getConfiguration(), TradeColumn.COUNTRY, "Brazil");
+            PartitionedTradeInputFormat.addInputPartitions(j, new Path(partitionedInput));
+        } else {
+            FileInputFormat.addInputPath(j, input);
+        }
         FileOutputFormat.setOutputPath(j, output);
 
-        System.exit(j.waitForCompletion(true) ? 0 : 1);
+        // Com -D tde2.sample.splits=... ou -D tde2.sample.rows=..., lê uma amostra do CSV e grava as estimativas
+        if (SampledTradeInputFormat.configure(j)) {
+            j.setReducerClass(ApproximateStatsReducer.class);  // Contagem estimada e média com intervalo de confiança
+            j.setOutputValueClass(Text.class);
+        }
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
     }
 
     /**
-     * Classe Mapper que processa cada linha do arquivo CSV e emite a soma e a contagem das transações.
+     * Classe Mapper que processa cada linha do arquivo CSV e emite o resumo (StatsWritable) das transações.
      */
-    public static class MapForBrazilAverage extends Mapper<LongWritable, Text, Text, AverageWritable> {
+    public static class MapForBrazilAverage extends StatsMapper<LongWritable, Writable, YearKey> {
 
-        private final static Text brazilKey = new Text("Brazil");  // Chave que representa o Brasil
-        private AverageWritable transactionData = new AverageWritable();  // Objeto para armazenar soma e contagem
+        private final static byte[] brazil = CsvFieldTokenizer.ascii("Brazil");  // País procurado
+        private YearKey yearKey = new YearKey();  // Ano da transação, reutilizado como chave
+        private byte[] packedYear = new byte[YearKey.SERIALIZED_SIZE];  // Ano serializado, chave do agregador
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
 
         @Override
-        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
-            String linha = value.toString();  // Converte a linha de entrada para uma string
-            String[] col = linha.split(";");  // Divide a linha em colunas usando ";" como delimitador
+        protected YearKey outputKey(byte[] year, int start, int length) {
+            yearKey.set(YearKey.unpack(year, start));
+            return yearKey;  // Emitido com o resumo parcial das transações
+        }
 
-            if (col.length == 10) {  // Verifica se a linha contém 10 colunas
-                String country = col[0];  // A primeira coluna contém o país
-                String year = col[1];     // A segunda coluna contém o ano
-                float price;
+        @Override
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);  // Localiza as colunas da linha usando ";" como delimitador
+
+            if (col.fieldCount() == 10) {  // Verifica se a linha contém 10 colunas
+                double price;
 
                 try {
-                    price = Float.parseFloat(col[5]);  // Converte o preço para float
+                    price = col.parseDouble(5);  // Converte o preço (sexta coluna) para double
                 } catch (NumberFormatException e) {
+                    metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
                     return;  // Ignora linhas com preços inválidos
                 }
-
-                if (country.equalsIgnoreCase("Brazil")) {
-                    transactionData.setSum(price);
-                    transactionData.setCount(1);  // Emite a soma e contagem de 1 transação
-                    context.write(new Text(year), transactionData);  // Emite o ano como chave
+                metrics.parsed();
+
+                if (col.equalsIgnoreCase(0, brazil)) {  // A primeira coluna contém o país
+                    try {
+                        YearKey.pack(col.parseInt(1), packedYear);  // A segunda coluna contém o ano
+                    } catch (NumberFormatException e) {
+                        metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
+                        return;  // Ignora linhas com anos inválidos
+                    }
+                    metrics.accepted();  // O ano só é lido nas linhas que passam pelo filtro
+                    // Acumula o preço no ano da transação
+                    aggregator.add(packedYear, 0, packedYear.length, price);
+                    metrics.emitted();
+                } else {
+                    metrics.filtered();
                 }
+            } else {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
             }
         }
     }
 
     /**
-     * Classe Reducer que calcula a média das transações por ano para o Brasil.
+     * Variante do Mapper para a entrada colunar: as linhas já chegam filtradas pelo InputFormat
+     * (somente o Brasil, e o que mais o driver declarar), então resta apenas acumular o valor por ano.
      */
-    public static class ReduceForBrazilAverage extends Reducer<Text, AverageWritable, Text, FloatWritable> {
+    public static class MapForBrazilAverageColumnar extends StatsMapper<NullWritable, TradeRecord, YearKey> {
 
-        private FloatWritable averageResult = new FloatWritable();  // Objeto para armazenar a média
+        private YearKey yearKey = new YearKey();  // Ano da transação, reutilizado como chave
+        private byte[] packedYear = new byte[YearKey.SERIALIZED_SIZE];  // Ano serializado, chave do agregador
 
         @Override
-        public void reduce(Text key, Iterable<AverageWritable> values, Context context) throws IOException, InterruptedException {
-            float totalSum = 0;  // Inicializa a soma total
-            int totalCount = 0;  // Inicializa a contagem total
+        protected YearKey outputKey(byte[] year, int start, int length) {
+            yearKey.set(YearKey.unpack(year, start));
+            return yearKey;
+        }
 
-            for (AverageWritable value : values) {  // Itera sobre todos os valores recebidos
-                totalSum += value.getSum();  // Soma os valores
-                totalCount += value.getCount();  // Soma as contagens
+        @Override
+        public void map(NullWritable key, TradeRecord value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            if (Double.isNaN(value.getTradeUsd())) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
+                return;  // Preço inválido no CSV
             }
-
-            // Calcula a média das transações
-            float average = totalCount == 0 ? 0 : totalSum / totalCount;
-            averageResult.set(average);  // Define o resultado da média
-            context.write(key, averageResult);  // Emite o ano e a média das transações
+            metrics.parsed();
+            metrics.accepted();
+            YearKey.pack(value.getYear(), packedYear);
+            aggregator.add(packedYear, 0, packedYear.length, value.getTradeUsd());
+            metrics.emitted();
         }
     }
 }
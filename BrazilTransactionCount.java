@@ -4,10 +4,10 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
@@ -45,6 +45,7 @@ public class BrazilTransactionCount {
         // Define a classe principal do job, mapper e reducer
         j.setJarByClass(BrazilTransactionCount.class);  // Classe que contém o job
         j.setMapperClass(MapForBrazilTransactions.class);  // Classe do Mapper
+        j.setCombinerClass(ReduceForBrazilTransactions.class);  // Soma parcial das contagens antes do shuffle
         j.setReducerClass(ReduceForBrazilTransactions.class);  // Classe do Reducer
 
         // Define o tipo de saída do Mapper (chave e valor)
@@ -55,21 +56,52 @@ public class BrazilTransactionCount {
         j.setOutputKeyClass(Text.class);  // Chave de saída do Reducer é Text (ex.: "Brazil")
         j.setOutputValueClass(IntWritable.class);  // Valor de saída do Reducer é IntWritable (soma total)
 
+        // Com -D tde2.columnar.input, lê a saída do ColumnarTradeConverter e pula os blocos sem o Brasil
+        String columnarInput = c.get(ColumnarTradeInputFormat.INPUT);
+        if (columnarInput != null) {
+            input = new Path(columnarInput);
+            j.setInputFormatClass(ColumnarTradeInputFormat.class);
+            j.setMapperClass(MapForBrazilTransactionsColumnar.class);
+            ColumnarTradeInputFormat.setColumns(j, TradeColumn.COUNTRY);
+            ColumnarTradeInputFormat.setFilter(j, TradeColumn.COUNTRY, "Brazil");
+        }
+
         // Define o caminho do arquivo de entrada e saída
-        FileInputFormat.addInputPath(j, input);  // Adiciona o caminho do arquivo CSV de entrada
+        String partitionedInput = c.get(PartitionedTradeInputFormat.INPUT);
+        if (partitionedInput != null) {  // Lê apenas as partições do Brasil geradas pelo TradeRepartitioner
+            j.setInputFormatClass(PartitionedTradeInputFormat.class);
+            TradePredicate.setValues(j.getConfiguration(), TradeColumn.COUNTRY, "Brazil");
+            PartitionedTradeInputFormat.addInputPartitions(j, new Path(partitionedInput));
+        } else {
+            FileInputFormat.addInputPath(j, input);  // Adiciona o caminho do arquivo CSV de entrada
+        }
         FileOutputFormat.setOutputPath(j, output);  // Adiciona o diretório de saída para os resultados
 
         // Executa o job e encerra o programa com o status de sucesso (0) ou falha (1)
-        System.exit(j.waitForCompletion(true) ? 0 : 1);
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
     }
 
     /**
      * Classe Mapper que processa as transações e emite "Brazil" como chave para cada transação envolvendo o Brasil.
      */
-    public static class MapForBrazilTransactions extends Mapper<LongWritable, Text, Text, IntWritable> {
+    public static class MapForBrazilTransactions extends CountingMapper<LongWritable, Writable, Text> {
 
-        private final static IntWritable one = new IntWritable(1);  // Valor constante 1 para contar cada transação
+        private final static byte[] brazil = CsvFieldTokenizer.ascii("Brazil");  // País procurado
         private Text word = new Text();  // Objeto Text que armazenará a chave ("Brazil")
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+
+        /**
+         * Monta a chave de cada contagem parcial; a agregação local emite uma por grafia de "Brazil".
+         * @param pais Os bytes do país agregado
+         * @param start O início do país
+         * @param length O tamanho do país
+         * @return A chave reutilizada
+         */
+        @Override
+        protected Text outputKey(byte[] pais, int start, int length) {
+            word.set(pais, start, length);  // Define "Brazil" como a chave
+            return word;  // Emitida com a contagem parcial
+        }
 
         /**
          * Método map que processa cada linha do arquivo de entrada.
@@ -80,44 +112,49 @@ public class BrazilTransactionCount {
          * @throws InterruptedException
          */
         @Override
-        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
-            String linha = value.toString();  // Converte a linha de entrada (transação) para uma string
-            String[] col = linha.split(";");  // Divide a linha em colunas, usando ";" como delimitador
-
-            String pais = col[0];  // A primeira coluna contém o país
-
-            // Verifica se o país da transação é o Brasil (ignora maiúsculas/minúsculas)
-            if (pais.equalsIgnoreCase("Brazil")) {
-                word.set(pais);  // Define "Brazil" como a chave
-                context.write(word, one);  // Emite a chave "Brazil" com o valor 1
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);  // Localiza as colunas da linha, usando ";" como delimitador
+            metrics.parsed();
+
+            // Verifica se o país da transação (primeira coluna) é o Brasil (ignora maiúsculas/minúsculas)
+            if (col.equalsIgnoreCase(0, brazil)) {
+                metrics.accepted();
+                aggregator.count(col.getBytes(), col.start(0), col.length(0));  // Conta a transação localmente
+                metrics.emitted();
+            } else {
+                metrics.filtered();
             }
         }
     }
 
     /**
-     * Classe Reducer que recebe todas as ocorrências de "Brazil" e calcula a soma total.
+     * Variante do Mapper para a entrada colunar: somente as transações do Brasil chegam do InputFormat.
      */
-    public static class ReduceForBrazilTransactions extends Reducer<Text, IntWritable, Text, IntWritable> {
+    public static class MapForBrazilTransactionsColumnar extends CountingMapper<NullWritable, TradeRecord, Text> {
 
-        /**
-         * Método reduce que processa todas as ocorrências de "Brazil" e soma o total de transações.
-         * @param key A chave "Brazil" emitida pelo Mapper
-         * @param values Uma lista de valores (sempre 1) emitidos pelo Mapper
-         * @param context O objeto que permite emitir a chave-valor final
-         * @throws IOException
-         * @throws InterruptedException
-         */
-        @Override
-        public void reduce(Text key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
-            int soma = 0;  // Inicializa a soma das transações
+        private Text word = new Text();  // Grafia do país usada como chave
 
-            // Itera sobre todos os valores (sempre 1) e acumula a soma
-            for (IntWritable val : values) {
-                soma += val.get();  // Adiciona o valor à soma
-            }
+        @Override
+        protected Text outputKey(byte[] pais, int start, int length) {
+            word.set(pais, start, length);
+            return word;
+        }
 
-            // Emite a chave "Brazil" e o total de transações
-            context.write(key, new IntWritable(soma));
+        @Override
+        public void map(NullWritable key, TradeRecord value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            metrics.parsed();
+            metrics.accepted();  // O filtro já foi aplicado pelo InputFormat
+            Text country = value.getCountry();
+            aggregator.count(country.getBytes(), 0, country.getLength());
+            metrics.emitted();
         }
     }
+
+    /**
+     * Classe Reducer que recebe todas as ocorrências de "Brazil" e calcula a soma total.
+     */
+    public static class ReduceForBrazilTransactions extends CountingReducer<Text> {
+    }
 }
\ No newline at end of file
@@ -2,22 +2,21 @@ package TDE2;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.FloatWritable;
 import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
 import org.apache.log4j.BasicConfigurator;
-import TDE2.TransactionWritable;
 
 import java.io.IOException;
 
 /**
  * Classe principal para encontrar a transação mais cara e mais barata no Brasil em 2016 usando MapReduce.
+ * O resultado (StatsWritable) traz também a contagem, a média e a variância das transações.
  */
 public class BrazilTransactionMinMax {
 
@@ -35,77 +34,108 @@ public class BrazilTransactionMinMax {
 
         j.setJarByClass(BrazilTransactionMinMax.class);
         j.setMapperClass(MapForBrazilMinMax.class);
-        j.setReducerClass(ReduceForBrazilMinMax.class);
+        j.setCombinerClass(StatsReducer.class);  // Funde os resumos parciais antes do shuffle
+        j.setReducerClass(StatsReducer.class);
 
         j.setMapOutputKeyClass(Text.class);
-        j.setMapOutputValueClass(FloatWritable.class);
+        j.setMapOutputValueClass(StatsWritable.class);
 
         j.setOutputKeyClass(Text.class);
-        j.setOutputValueClass(TransactionWritable.class);
+        j.setOutputValueClass(StatsWritable.class);
+
+        String columnarInput = c.get(ColumnarTradeInputFormat.INPUT);
+        if (columnarInput != null) {  // Lê a saída do ColumnarTradeConverter, pulando os blocos sem o Brasil em 2016
+            input = new Path(columnarInput);
+            j.setInputFormatClass(ColumnarTradeInputFormat.class);
+            j.setMapperClass(MapForBrazilMinMaxColumnar.class);
+            ColumnarTradeInputFormat.setColumns(j, TradeColumn.TRADE_USD);
+            ColumnarTradeInputFormat.setFilter(j, TradeColumn.COUNTRY, "Brazil");
+            ColumnarTradeInputFormat.setYearRange(j, 2016, 2016);
+        }
 
-        FileInputFormat.addInputPath(j, input);
+        String partitionedInput = c.get(PartitionedTradeInputFormat.INPUT);
+        if (partitionedInput != null) {  // Lê apenas a partição country=Brazil/year=2016 gerada pelo TradeRepartitioner
+            j.setInputFormatClass(PartitionedTradeInputFormat.class);
+            TradePredicate.setValues(j.getConfiguration(), TradeColumn.COUNTRY, "Brazil");
+            TradePredicate.setYearRange(j.getConfiguration(), 2016, 2016);
+            PartitionedTradeInputFormat.addInputPartitions(j, new Path(partitionedInput));
+        } else {
+            FileInputFormat.addInputPath(j, input);
+        }
         FileOutputFormat.setOutputPath(j, output);
 
-        System.exit(j.waitForCompletion(true) ? 0 : 1);
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
     }
 
     /**
-     * Classe Mapper que processa cada linha do arquivo CSV e emite o valor da transação no Brasil em 2016.
+     * Classe Mapper que processa cada linha do arquivo CSV e emite o resumo das transações no Brasil em 2016.
      */
-    public static class MapForBrazilMinMax extends Mapper<LongWritable, Text, Text, FloatWritable> {
+    public static class MapForBrazilMinMax extends StatsMapper<LongWritable, Writable, Text> {
 
         private final static Text brazil2016 = new Text("Brazil_2016");  // Chave que representa o Brasil em 2016
-        private FloatWritable transactionValue = new FloatWritable();  // Valor da transação
+        private final static byte[] brazil = CsvFieldTokenizer.ascii("Brazil");  // País procurado
+        private final static byte[] year2016 = CsvFieldTokenizer.ascii("2016");  // Ano procurado
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
 
         @Override
-        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
-            String linha = value.toString();  // Converte a linha de entrada para uma string
-            String[] col = linha.split(";");  // Divide a linha em colunas usando ";" como delimitador
+        protected Text outputKey(byte[] key, int start, int length) {
+            return brazil2016;  // Única chave: o resumo das transações vistas pela tarefa
+        }
 
-            if (col.length == 10) {  // Verifica se a linha contém 10 colunas
-                String country = col[0];  // A primeira coluna contém o país
-                String year = col[1];     // A segunda coluna contém o ano
-                float price;
+        @Override
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);  // Localiza as colunas da linha usando ";" como delimitador
+
+            if (col.fieldCount() == 10) {  // Verifica se a linha contém 10 colunas
+                double price;
 
                 try {
-                    price = Float.parseFloat(col[5]);  // Converte o preço para float
+                    price = col.parseDouble(5);  // Converte o preço (sexta coluna) para double
                 } catch (NumberFormatException e) {
+                    metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
                     return;  // Ignora linhas com preços inválidos
                 }
-
-                if (country.equalsIgnoreCase("Brazil") && year.equals("2016")) {
-                    transactionValue.set(price);  // Define o valor da transação
-                    context.write(brazil2016, transactionValue);  // Emite a chave "Brazil_2016" com o valor da transação
+                metrics.parsed();
+
+                // A primeira coluna contém o país e a segunda o ano
+                if (col.equalsIgnoreCase(0, brazil) && col.equals(1, year2016)) {
+                    metrics.accepted();
+                    // Acumula o valor da transação sob a chave "Brazil_2016"
+                    aggregator.add(brazil2016.getBytes(), 0, brazil2016.getLength(), price);
+                    metrics.emitted();
+                } else {
+                    metrics.filtered();
                 }
+            } else {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
             }
         }
     }
 
     /**
-     * Classe Reducer que calcula a transação mais cara e mais barata para o Brasil em 2016.
+     * Variante do Mapper para a entrada colunar: o país e o ano já são filtrados pelo InputFormat.
      */
-    public static class ReduceForBrazilMinMax extends Reducer<Text, FloatWritable, Text, TransactionWritable> {
+    public static class MapForBrazilMinMaxColumnar extends StatsMapper<NullWritable, TradeRecord, Text> {
 
-        private TransactionWritable result = new TransactionWritable();  // Objeto para armazenar o resultado final
+        private final static Text brazil2016 = new Text("Brazil_2016");  // Chave que representa o Brasil em 2016
 
         @Override
-        public void reduce(Text key, Iterable<FloatWritable> values, Context context) throws IOException, InterruptedException {
-            float minValue = Float.MAX_VALUE;  // Inicializa o valor mínimo com o maior valor possível
-            float maxValue = Float.MIN_VALUE;  // Inicializa o valor máximo com o menor valor possível
-
-            for (FloatWritable value : values) {  // Itera sobre todos os valores recebidos
-                float price = value.get();  // Obtém o preço da transação
-                if (price < minValue) {  // Se o preço for menor que o valor mínimo atual, atualiza
-                    minValue = price;
-                }
-                if (price > maxValue) {  // Se o preço for maior que o valor máximo atual, atualiza
-                    maxValue = price;
-                }
-            }
+        protected Text outputKey(byte[] key, int start, int length) {
+            return brazil2016;
+        }
 
-            result.setMinValue(minValue);  // Define o valor mínimo
-            result.setMaxValue(maxValue);  // Define o valor máximo
-            context.write(key, result);  // Emite a chave "Brazil_2016" e o resultado formatado
+        @Override
+        public void map(NullWritable key, TradeRecord value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            if (!Double.isNaN(value.getTradeUsd())) {  // Ignora preços inválidos no CSV
+                metrics.parsed();
+                metrics.accepted();
+                aggregator.add(brazil2016.getBytes(), 0, brazil2016.getLength(), value.getTradeUsd());
+                metrics.emitted();
+            } else {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
+            }
         }
     }
 }
@@ -0,0 +1,115 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+import java.io.IOException;
+
+/**
+ * Job de conversão (executado uma única vez) que reescreve o CSV de transações no formato colunar
+ * binário lido pelo ColumnarTradeInputFormat. Somente o Mapper é usado; cada tarefa gera um arquivo ".tcol".
+ */
+public class ColumnarTradeConverter {
+
+    /**
+     * Contadores das linhas convertidas e descartadas.
+     */
+    public enum Counters {
+        CONVERTED_ROWS,      // Linhas gravadas no formato colunar
+        SHORT_ROWS,          // Linhas com menos de 10 colunas (descartadas)
+        INVALID_YEAR_ROWS,   // Linhas cujo ano não é um inteiro, como o cabeçalho (descartadas)
+        INVALID_TRADE_ROWS   // Linhas com valor inválido (gravadas com NaN)
+    }
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();  // Cria a configuração do Hadoop
+
+        // Analisa os argumentos de entrada
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+        Path input = new Path("in/operacoes_comerciais_inteira.csv");  // Caminho do arquivo de entrada
+        Path output = new Path("in/operacoes_comerciais_colunar");      // Diretório dos arquivos colunares
+
+        Job j = Job.getInstance(c, "columnar-trade-converter");
+        j.setJarByClass(ColumnarTradeConverter.class);
+        j.setMapperClass(MapForColumnarConversion.class);
+        j.setNumReduceTasks(0);  // Conversão direta: sem shuffle
+
+        j.setOutputKeyClass(NullWritable.class);
+        j.setOutputValueClass(TradeRecord.class);
+        j.setOutputFormatClass(ColumnarTradeOutputFormat.class);
+
+        FileInputFormat.addInputPath(j, input);
+        FileOutputFormat.setOutputPath(j, output);
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
+    }
+
+    /**
+     * Mapper que converte cada linha completa do CSV em um TradeRecord.
+     */
+    public static class MapForColumnarConversion extends Mapper<LongWritable, Writable, NullWritable, TradeRecord> {
+
+        private TradeRecord record = new TradeRecord();  // Registro reutilizado a cada linha
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+
+        private Counter converted;
+        private Counter shortRows;
+        private Counter invalidYear;
+        private Counter invalidTrade;
+        private RowMetrics metrics;  // Destino de cada linha e tempo das fases
+
+        @Override
+        protected void setup(Context context) {
+            metrics = new RowMetrics(context);
+            converted = context.getCounter(Counters.CONVERTED_ROWS);
+            shortRows = context.getCounter(Counters.SHORT_ROWS);
+            invalidYear = context.getCounter(Counters.INVALID_YEAR_ROWS);
+            invalidTrade = context.getCounter(Counters.INVALID_TRADE_ROWS);
+        }
+
+        @Override
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);
+            if (col.fieldCount() < 10) {
+                shortRows.increment(1);
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
+                return;
+            }
+
+            try {
+                record.set(col);
+            } catch (NumberFormatException e) {
+                invalidYear.increment(1);
+                metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
+                return;
+            }
+            if (Double.isNaN(record.getTradeUsd())) {
+                invalidTrade.increment(1);
+            }
+            metrics.parsed();
+            metrics.accepted();
+
+            context.write(NullWritable.get(), record);
+            converted.increment(1);
+            metrics.emitted();
+        }
+
+        @Override
+        protected void cleanup(Context context) {
+            metrics.close();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package TDE2;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato binário colunar das transações (arquivos ".tcol").
+ *
+ * Layout: MAGIC, blocos e rodapé. Cada bloco começa com o número de linhas e o tamanho em bytes de
+ * cada coluna (na ordem de TradeColumn), seguidos das colunas: as de dicionário gravam o dicionário
+ * do bloco e um id (vint) por linha, o ano um int por linha e o valor um double por linha. O rodapé
+ * lista o deslocamento e as estatísticas (mínimo/máximo de ano e valor) de cada bloco, e termina com
+ * a posição do rodapé e o MAGIC. Os tamanhos por coluna permitem ao leitor pular as colunas não pedidas.
+ * Opcionalmente, o Writer grava também o índice lateral (ColumnarTradeIndex) usado para pular blocos.
+ */
+public final class ColumnarTradeFile {
+
+    public static final String EXTENSION = ".tcol";  // Extensão dos arquivos gerados
+    public static final String BLOCK_ROWS = "tde2.columnar.block.rows";  // Linhas por bloco
+    public static final int DEFAULT_BLOCK_ROWS = 65536;
+
+    static final byte[] MAGIC = "TDE2COL1".getBytes(StandardCharsets.US_ASCII);
+
+    private ColumnarTradeFile() {
+    }
+
+    /**
+     * Posição e estatísticas de um bloco, gravadas no rodapé do arquivo.
+     */
+    public static class BlockInfo implements Writable {
+
+        private long offset;         // Posição do bloco no arquivo
+        private int rows;            // Linhas no bloco
+        private int minYear = Integer.MAX_VALUE;
+        private int maxYear = Integer.MIN_VALUE;
+        private double minTradeUsd = Double.POSITIVE_INFINITY;
+        private double maxTradeUsd = Double.NEGATIVE_INFINITY;
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getMinYear() {
+            return minYear;
+        }
+
+        public int getMaxYear() {
+            return maxYear;
+        }
+
+        public double getMinTradeUsd() {
+            return minTradeUsd;
+        }
+
+        public double getMaxTradeUsd() {
+            return maxTradeUsd;
+        }
+
+        private void add(TradeRecord record) {
+            rows++;
+            minYear = Math.min(minYear, record.getYear());
+            maxYear = Math.max(maxYear, record.getYear());
+            if (!Double.isNaN(record.getTradeUsd())) {
+                minTradeUsd = Math.min(minTradeUsd, record.getTradeUsd());
+                maxTradeUsd = Math.max(maxTradeUsd, record.getTradeUsd());
+            }
+        }
+
+        @Override
+        public void write(DataOutput dataOutput) throws IOException {
+            dataOutput.writeLong(offset);
+            dataOutput.writeInt(rows);
+            dataOutput.writeInt(minYear);
+            dataOutput.writeInt(maxYear);
+            dataOutput.writeDouble(minTradeUsd);
+            dataOutput.writeDouble(maxTradeUsd);
+        }
+
+        @Override
+        public void readFields(DataInput dataInput) throws IOException {
+            offset = dataInput.readLong();
+            rows = dataInput.readInt();
+            minYear = dataInput.readInt();
+            maxYear = dataInput.readInt();
+            minTradeUsd = dataInput.readDouble();
+            maxTradeUsd = dataInput.readDouble();
+        }
+    }
+
+    /**
+     * Lê o rodapé de um arquivo colunar.
+     * @param in O arquivo aberto
+     * @param fileLength O tamanho do arquivo
+     * @return Os blocos do arquivo, na ordem em que foram gravados
+     */
+    public static List<BlockInfo> readFooter(FSDataInputStream in, long fileLength) throws IOException {
+        if (fileLength < MAGIC.length * 2 + 8) {
+            throw new IOException("Arquivo colunar truncado (" + fileLength + " bytes)");
+        }
+        in.seek(fileLength - MAGIC.length - 8);
+        long footerStart = in.readLong();
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Arquivo não está no formato colunar do TDE2");
+        }
+
+        in.seek(footerStart);
+        int blockCount = in.readInt();
+        List<BlockInfo> blocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            BlockInfo info = new BlockInfo();
+            info.readFields(in);
+            blocks.add(info);
+        }
+        return blocks;
+    }
+
+    /**
+     * Grava transações no formato colunar, um bloco a cada blockRows linhas.
+     */
+    public static class Writer implements Closeable {
+
+        private final FSDataOutputStream out;
+        private final FSDataOutputStream indexOut;  // Índice lateral (null se não for gravado)
+        private final int blockRows;
+        private final List<BlockInfo> blocks = new ArrayList<>();
+        private final List<ColumnarTradeIndex.Entry> entries = new ArrayList<>();
+
+        private final DataOutputBuffer[] columns = new DataOutputBuffer[TradeColumn.values().length];
+        private final List<Map<Text, Integer>> dictionaryIds = new ArrayList<>();  // Id de cada valor no bloco
+        private final List<List<Text>> dictionaries = new ArrayList<>();         // Valores na ordem dos ids
+        private BlockInfo current = new BlockInfo();
+
+        /**
+         * @param out O arquivo de destino (vazio)
+         * @param blockRows Linhas por bloco
+         */
+        public Writer(FSDataOutputStream out, int blockRows) throws IOException {
+            this(out, null, blockRows);
+        }
+
+        /**
+         * @param out O arquivo de destino (vazio)
+         * @param indexOut O arquivo do índice lateral (vazio), ou null
+         * @param blockRows Linhas por bloco
+         */
+        public Writer(FSDataOutputStream out, FSDataOutputStream indexOut, int blockRows) throws IOException {
+            this.out = out;
+            this.indexOut = indexOut;
+            this.blockRows = blockRows;
+            for (TradeColumn column : TradeColumn.values()) {
+                columns[column.ordinal()] = new DataOutputBuffer();
+                dictionaryIds.add(new HashMap<>());
+                dictionaries.add(new ArrayList<>());
+            }
+            out.write(MAGIC);
+        }
+
+        /**
+         * Acrescenta uma transação ao bloco atual.
+         * @param record A transação
+         */
+        public void append(TradeRecord record) throws IOException {
+            for (TradeColumn column : TradeColumn.values()) {
+                DataOutputBuffer buffer = columns[column.ordinal()];
+                switch (column) {
+                    case YEAR:
+                        buffer.writeInt(record.getYear());
+                        break;
+                    case TRADE_USD:
+                        buffer.writeDouble(record.getTradeUsd());
+                        break;
+                    default:
+                        WritableUtils.writeVInt(buffer, idOf(column, record.get(column)));
+                }
+            }
+            current.add(record);
+            if (current.rows == blockRows) {
+                writeBlock();
+            }
+        }
+
+        private int idOf(TradeColumn column, Text value) {
+            Map<Text, Integer> ids = dictionaryIds.get(column.ordinal());
+            Integer id = ids.get(value);
+            if (id == null) {
+                List<Text> dictionary = dictionaries.get(column.ordinal());
+                id = dictionary.size();
+                Text copy = new Text(value);  // Só valores novos no bloco são copiados
+                dictionary.add(copy);
+                ids.put(copy, id);
+            }
+            return id;
+        }
+
+        private void writeBlock() throws IOException {
+            if (current.rows == 0) {
+                return;
+            }
+            current.offset = out.getPos();
+
+            DataOutputBuffer[] dictionaryBytes = new DataOutputBuffer[columns.length];
+            out.writeInt(current.rows);
+            for (TradeColumn column : TradeColumn.values()) {
+                int length = columns[column.ordinal()].getLength();
+                if (column.isDictionary()) {
+                    DataOutputBuffer dictionary = new DataOutputBuffer();
+                    List<Text> values = dictionaries.get(column.ordinal());
+                    WritableUtils.writeVInt(dictionary, values.size());
+                    for (Text value : values) {
+                        value.write(dictionary);
+                    }
+                    dictionaryBytes[column.ordinal()] = dictionary;
+                    length += dictionary.getLength();
+                }
+                out.writeInt(length);
+            }
+            for (TradeColumn column : TradeColumn.values()) {
+                if (column.isDictionary()) {
+                    out.write(dictionaryBytes[column.ordinal()].getData(), 0, dictionaryBytes[column.ordinal()].getLength());
+                }
+                out.write(columns[column.ordinal()].getData(), 0, columns[column.ordinal()].getLength());
+            }
+
+            blocks.add(current);
+            if (indexOut != null) {
+                ColumnarTradeIndex.Entry entry = new ColumnarTradeIndex.Entry(current);
+                entry.setValues(dictionaries);
+                entries.add(entry);
+            }
+            current = new BlockInfo();
+            for (TradeColumn column : TradeColumn.values()) {
+                columns[column.ordinal()].reset();
+                dictionaryIds.get(column.ordinal()).clear();
+                dictionaries.get(column.ordinal()).clear();
+            }
+        }
+
+        /**
+         * Grava o último bloco e o rodapé, e fecha o arquivo.
+         */
+        @Override
+        public void close() throws IOException {
+            writeBlock();
+            long footerStart = out.getPos();
+            out.writeInt(blocks.size());
+            for (BlockInfo block : blocks) {
+                block.write(out);
+            }
+            out.writeLong(footerStart);
+            out.write(MAGIC);
+            out.close();
+            if (indexOut != null) {
+                ColumnarTradeIndex.write(indexOut, entries);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package TDE2;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Índice lateral de um arquivo colunar: para cada bloco, as estatísticas do rodapé (posição, faixa de anos
+ * e de valores) e os valores distintos das colunas indexadas. É gravado ao lado do arquivo de dados com o
+ * nome "_<arquivo>.idx", que o FileInputFormat ignora ao listar a entrada.
+ */
+public final class ColumnarTradeIndex {
+
+    public static final String EXTENSION = ".idx";  // Extensão do índice lateral
+    public static final EnumSet<TradeColumn> INDEXED_COLUMNS = EnumSet.of(TradeColumn.COUNTRY, TradeColumn.FLOW);
+
+    static final byte[] MAGIC = "TDE2IDX1".getBytes(StandardCharsets.US_ASCII);
+
+    private ColumnarTradeIndex() {
+    }
+
+    /**
+     * @param dataFile O arquivo colunar
+     * @return O caminho do índice lateral correspondente
+     */
+    public static Path indexFor(Path dataFile) {
+        return new Path(dataFile.getParent(), "_" + dataFile.getName() + EXTENSION);
+    }
+
+    /**
+     * Estatísticas de um bloco usadas para decidir se ele precisa ser lido.
+     */
+    public static class Entry implements Writable {
+
+        private ColumnarTradeFile.BlockInfo block;
+        private final List<List<Text>> values = new ArrayList<>();  // Valores distintos por coluna indexada
+
+        public Entry() {
+            this(new ColumnarTradeFile.BlockInfo());
+        }
+
+        Entry(ColumnarTradeFile.BlockInfo block) {
+            this.block = block;
+        }
+
+        public ColumnarTradeFile.BlockInfo getBlock() {
+            return block;
+        }
+
+        /**
+         * @param column A coluna
+         * @return Os valores distintos da coluna no bloco, ou null se a coluna não é indexada (ou o índice não existe)
+         */
+        public List<Text> getValues(TradeColumn column) {
+            if (values.isEmpty() || !INDEXED_COLUMNS.contains(column)) {
+                return null;
+            }
+            return values.get(column.ordinal());
+        }
+
+        /**
+         * Registra os valores distintos das colunas indexadas, copiando-os.
+         * @param dictionaries Os dicionários do bloco, na ordem de TradeColumn
+         */
+        void setValues(List<List<Text>> dictionaries) {
+            values.clear();
+            for (TradeColumn column : TradeColumn.values()) {
+                List<Text> copy = new ArrayList<>();
+                if (INDEXED_COLUMNS.contains(column)) {
+                    for (Text value : dictionaries.get(column.ordinal())) {
+                        copy.add(new Text(value));
+                    }
+                }
+                values.add(copy);
+            }
+        }
+
+        @Override
+        public void write(DataOutput dataOutput) throws IOException {
+            block.write(dataOutput);
+            for (TradeColumn column : INDEXED_COLUMNS) {
+                List<Text> distinct = values.get(column.ordinal());
+                WritableUtils.writeVInt(dataOutput, distinct.size());
+                for (Text value : distinct) {
+                    value.write(dataOutput);
+                }
+            }
+        }
+
+        @Override
+        public void readFields(DataInput dataInput) throws IOException {
+            block.readFields(dataInput);
+            values.clear();
+            for (int i = 0; i < TradeColumn.values().length; i++) {
+                values.add(new ArrayList<>());
+            }
+            for (TradeColumn column : INDEXED_COLUMNS) {
+                int size = WritableUtils.readVInt(dataInput);
+                List<Text> distinct = values.get(column.ordinal());
+                for (int i = 0; i < size; i++) {
+                    Text value = new Text();
+                    value.readFields(dataInput);
+                    distinct.add(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Grava o índice lateral e fecha o arquivo.
+     * @param out O arquivo do índice
+     * @param entries As estatísticas dos blocos, na ordem em que foram gravados
+     */
+    public static void write(FSDataOutputStream out, List<Entry> entries) throws IOException {
+        out.write(MAGIC);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            entry.write(out);
+        }
+        out.close();
+    }
+
+    /**
+     * Lê as estatísticas dos blocos de um arquivo colunar. Sem índice lateral, usa apenas o rodapé do
+     * arquivo (faixa de anos), sem os valores distintos.
+     * @param fs O sistema de arquivos
+     * @param dataFile O arquivo colunar
+     * @return As estatísticas dos blocos, na ordem em que foram gravados
+     */
+    public static List<Entry> read(FileSystem fs, Path dataFile) throws IOException {
+        Path index = indexFor(dataFile);
+        if (fs.exists(index)) {
+            try (FSDataInputStream in = fs.open(index)) {
+                byte[] magic = new byte[MAGIC.length];
+                in.readFully(magic);
+                if (!Arrays.equals(magic, MAGIC)) {
+                    throw new IOException(index + " não é um índice colunar do TDE2");
+                }
+                int blockCount = in.readInt();
+                List<Entry> entries = new ArrayList<>(blockCount);
+                for (int i = 0; i < blockCount; i++) {
+                    Entry entry = new Entry();
+                    entry.readFields(in);
+                    entries.add(entry);
+                }
+                return entries;
+            }
+        }
+
+        try (FSDataInputStream in = fs.open(dataFile)) {
+            List<Entry> entries = new ArrayList<>();
+            for (ColumnarTradeFile.BlockInfo block : ColumnarTradeFile.readFooter(in, fs.getFileStatus(dataFile).getLen())) {
+                entries.add(new Entry(block));
+            }
+            return entries;
+        }
+    }
+}
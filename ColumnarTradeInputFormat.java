@@ -0,0 +1,354 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * InputFormat que lê arquivos no formato colunar (ColumnarTradeFile) e entrega um TradeRecord por
+ * transação. Apenas as colunas declaradas pelo driver em setColumns() são lidas do disco; as demais
+ * são puladas bloco a bloco e ficam com valores indefinidos no registro.
+ *
+ * Os filtros declarados em setFilter()/setYearRange() são aplicados aqui: arquivos e blocos que, pelo
+ * índice lateral, não têm nenhuma linha aceita não são lidos, e as linhas recusadas não chegam ao Mapper.
+ */
+public class ColumnarTradeInputFormat extends FileInputFormat<NullWritable, TradeRecord> {
+
+    public static final String INPUT = "tde2.columnar.input";  // Diretório colunar usado no lugar do CSV pelos drivers
+    public static final String COLUMNS = "tde2.columnar.columns";  // Colunas lidas (nomes de TradeColumn)
+
+    /**
+     * Contadores da leitura colunar.
+     */
+    public enum Counters {
+        BLOCKS_READ,      // Blocos lidos do disco
+        BLOCKS_SKIPPED,   // Blocos pulados pelas estatísticas
+        ROWS_FILTERED     // Linhas lidas e recusadas pelo filtro
+    }
+
+    /**
+     * Declara as colunas que o Mapper usa.
+     * @param job O job a configurar
+     * @param columns As colunas necessárias
+     */
+    public static void setColumns(Job job, TradeColumn... columns) {
+        StringBuilder names = new StringBuilder();
+        for (TradeColumn column : columns) {
+            if (names.length() > 0) {
+                names.append(',');
+            }
+            names.append(column.name());
+        }
+        job.getConfiguration().set(COLUMNS, names.toString());
+    }
+
+    /**
+     * Aceita apenas as linhas cuja coluna de dicionário tenha um dos valores informados (sem diferenciar maiúsculas).
+     * @param job O job a configurar
+     * @param column A coluna filtrada
+     * @param values Os valores aceitos
+     */
+    public static void setFilter(Job job, TradeColumn column, String... values) {
+        TradePredicate.setValues(job.getConfiguration(), column, values);
+    }
+
+    /**
+     * Aceita apenas as linhas com ano entre min e max (inclusive).
+     * @param job O job a configurar
+     * @param min O menor ano aceito
+     * @param max O maior ano aceito
+     */
+    public static void setYearRange(Job job, int min, int max) {
+        TradePredicate.setYearRange(job.getConfiguration(), min, max);
+    }
+
+    /**
+     * @param conf A configuração do job
+     * @return As colunas declaradas (todas, se nenhuma foi declarada)
+     */
+    public static EnumSet<TradeColumn> getColumns(Configuration conf) {
+        String[] names = conf.getTrimmedStrings(COLUMNS);
+        if (names.length == 0) {
+            return EnumSet.allOf(TradeColumn.class);
+        }
+        EnumSet<TradeColumn> columns = EnumSet.noneOf(TradeColumn.class);
+        for (String name : names) {
+            columns.add(TradeColumn.valueOf(name));
+        }
+        return columns;
+    }
+
+    @Override
+    protected boolean isSplitable(JobContext context, Path filename) {
+        return false;  // Cada arquivo convertido é lido por inteiro (o rodapé fica no final)
+    }
+
+    /**
+     * Descarta os arquivos em que nenhum bloco pode satisfazer o filtro declarado.
+     */
+    @Override
+    public List<InputSplit> getSplits(JobContext job) throws IOException {
+        List<InputSplit> splits = super.getSplits(job);
+        TradePredicate predicate = TradePredicate.get(job.getConfiguration());
+        if (predicate.isEmpty()) {
+            return splits;
+        }
+
+        List<InputSplit> selected = new ArrayList<>();
+        for (InputSplit split : splits) {
+            Path file = ((FileSplit) split).getPath();
+            for (ColumnarTradeIndex.Entry entry : ColumnarTradeIndex.read(file.getFileSystem(job.getConfiguration()), file)) {
+                if (predicate.mayMatch(entry)) {
+                    selected.add(split);
+                    break;
+                }
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public RecordReader<NullWritable, TradeRecord> createRecordReader(InputSplit split, TaskAttemptContext context) {
+        return new ColumnarTradeRecordReader();
+    }
+
+    /**
+     * Leitor que decodifica, bloco a bloco, somente as colunas pedidas e as usadas pelo filtro.
+     */
+    public static class ColumnarTradeRecordReader extends RecordReader<NullWritable, TradeRecord> {
+
+        private FSDataInputStream in;
+        private List<ColumnarTradeIndex.Entry> blocks;
+        private EnumSet<TradeColumn> columns;   // Colunas entregues ao Mapper
+        private EnumSet<TradeColumn> decoded;   // Colunas lidas do disco (pedidas + filtradas)
+        private TradePredicate predicate;
+        private int blockIndex = -1;
+        private int[] filteredColumns;  // Ordinais das colunas de dicionário filtradas
+        private final boolean[][] acceptedIds = new boolean[TradeColumn.values().length][];  // Ids aceitos no bloco
+
+        // Nome qualificado: FileInputFormat declara um enum Counter obsoleto
+        private org.apache.hadoop.mapreduce.Counter blocksRead;
+        private org.apache.hadoop.mapreduce.Counter blocksSkipped;
+        private org.apache.hadoop.mapreduce.Counter rowsFiltered;
+
+        private int rows;   // Linhas do bloco atual
+        private int row;    // Próxima linha a entregar
+        private final int[][] ids = new int[TradeColumn.values().length][];  // Ids por coluna de dicionário
+        private final List<List<Text>> dictionaries = new ArrayList<>();    // Dicionários do bloco atual
+        private int[] years = new int[0];
+        private double[] tradeUsd = new double[0];
+        private byte[] chunk = new byte[0];
+        private final DataInputBuffer chunkIn = new DataInputBuffer();
+
+        private final TradeRecord record = new TradeRecord();
+
+        @Override
+        public void initialize(InputSplit genericSplit, TaskAttemptContext context) throws IOException {
+            FileSplit split = (FileSplit) genericSplit;
+            Configuration conf = context.getConfiguration();
+            Path file = split.getPath();
+            FileSystem fs = file.getFileSystem(conf);
+
+            columns = getColumns(conf);
+            predicate = TradePredicate.get(conf);
+            decoded = EnumSet.copyOf(columns);
+            decoded.addAll(predicate.getColumns());
+            filteredColumns = predicate.getColumns().stream()
+                    .filter(TradeColumn::isDictionary).mapToInt(TradeColumn::ordinal).toArray();
+
+            blocks = ColumnarTradeIndex.read(fs, file);
+            in = fs.open(file);
+            for (int i = 0; i < TradeColumn.values().length; i++) {
+                dictionaries.add(new ArrayList<>());
+                ids[i] = new int[0];
+            }
+
+            blocksRead = context.getCounter(Counters.BLOCKS_READ);
+            blocksSkipped = context.getCounter(Counters.BLOCKS_SKIPPED);
+            rowsFiltered = context.getCounter(Counters.ROWS_FILTERED);
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException {
+            do {
+                while (row == rows) {
+                    if (!loadNextBlock()) {
+                        return false;
+                    }
+                }
+            } while (!acceptRow());
+
+            for (TradeColumn column : columns) {
+                switch (column) {
+                    case YEAR:
+                        record.setYear(years[row]);
+                        break;
+                    case TRADE_USD:
+                        record.setTradeUsd(tradeUsd[row]);
+                        break;
+                    default:
+                        record.setReference(column, dictionaries.get(column.ordinal()).get(ids[column.ordinal()][row]));
+                }
+            }
+            row++;
+            return true;
+        }
+
+        /**
+         * Avalia o filtro na linha atual, avançando para a próxima se ela for recusada.
+         * @return true se a linha atual deve ser entregue ao Mapper
+         */
+        private boolean acceptRow() {
+            if (predicate.hasFilter(TradeColumn.YEAR) && !predicate.acceptsYear(years[row])) {
+                rejectRow();
+                return false;
+            }
+            for (int column : filteredColumns) {
+                if (!acceptedIds[column][ids[column][row]]) {
+                    rejectRow();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rejectRow() {
+            row++;
+            rowsFiltered.increment(1);
+        }
+
+        /**
+         * Posiciona o leitor no próximo bloco que pode satisfazer o filtro e decodifica as colunas necessárias.
+         * @return false se não há mais blocos
+         */
+        protected boolean loadNextBlock() throws IOException {
+            do {
+                if (++blockIndex >= blocks.size()) {
+                    return false;
+                }
+                if (predicate.mayMatch(blocks.get(blockIndex))) {
+                    break;
+                }
+                blocksSkipped.increment(1);  // Nenhuma linha do bloco é aceita: não é lido
+            } while (true);
+            blocksRead.increment(1);
+
+            in.seek(blocks.get(blockIndex).getBlock().getOffset());
+            rows = in.readInt();
+            row = 0;
+
+            int[] lengths = new int[TradeColumn.values().length];
+            for (int i = 0; i < lengths.length; i++) {
+                lengths[i] = in.readInt();
+            }
+            for (TradeColumn column : TradeColumn.values()) {
+                int length = lengths[column.ordinal()];
+                if (!decoded.contains(column)) {
+                    in.seek(in.getPos() + length);  // Coluna não pedida: não é lida
+                    continue;
+                }
+                if (chunk.length < length) {
+                    chunk = new byte[length];
+                }
+                in.readFully(chunk, 0, length);
+                chunkIn.reset(chunk, length);
+                decode(column);
+            }
+            return true;
+        }
+
+        private void decode(TradeColumn column) throws IOException {
+            switch (column) {
+                case YEAR:
+                    if (years.length < rows) {
+                        years = new int[rows];
+                    }
+                    for (int i = 0; i < rows; i++) {
+                        years[i] = chunkIn.readInt();
+                    }
+                    break;
+                case TRADE_USD:
+                    if (tradeUsd.length < rows) {
+                        tradeUsd = new double[rows];
+                    }
+                    for (int i = 0; i < rows; i++) {
+                        tradeUsd[i] = chunkIn.readDouble();
+                    }
+                    break;
+                default:
+                    List<Text> dictionary = dictionaries.get(column.ordinal());
+                    int size = WritableUtils.readVInt(chunkIn);
+                    for (int i = 0; i < size; i++) {
+                        if (i == dictionary.size()) {
+                            dictionary.add(new Text());  // Entradas são reaproveitadas entre blocos
+                        }
+                        dictionary.get(i).readFields(chunkIn);
+                    }
+                    int[] columnIds = ids[column.ordinal()];
+                    if (columnIds.length < rows) {
+                        columnIds = ids[column.ordinal()] = new int[rows];
+                    }
+                    for (int i = 0; i < rows; i++) {
+                        columnIds[i] = WritableUtils.readVInt(chunkIn);
+                    }
+                    if (predicate.hasFilter(column)) {
+                        // O filtro é avaliado uma vez por valor do dicionário, não por linha
+                        boolean[] accepted = new boolean[size];
+                        for (int i = 0; i < size; i++) {
+                            accepted[i] = predicate.accepts(column, dictionary.get(i));
+                        }
+                        acceptedIds[column.ordinal()] = accepted;
+                    }
+            }
+        }
+
+        /**
+         * @return As estatísticas dos blocos do arquivo aberto
+         */
+        protected List<ColumnarTradeIndex.Entry> getBlocks() {
+            return blocks;
+        }
+
+        @Override
+        public NullWritable getCurrentKey() {
+            return NullWritable.get();
+        }
+
+        @Override
+        public TradeRecord getCurrentValue() {
+            return record;
+        }
+
+        @Override
+        public float getProgress() {
+            if (blocks == null || blocks.isEmpty()) {
+                return 1.0f;
+            }
+            return Math.min(1.0f, Math.max(0, blockIndex) / (float) blocks.size());
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+import java.io.IOException;
+
+/**
+ * OutputFormat que grava as transações recebidas em um arquivo colunar (ColumnarTradeFile) por tarefa,
+ * acompanhado do seu índice lateral (ColumnarTradeIndex).
+ */
+public class ColumnarTradeOutputFormat extends FileOutputFormat<NullWritable, TradeRecord> {
+
+    @Override
+    public RecordWriter<NullWritable, TradeRecord> getRecordWriter(TaskAttemptContext job) throws IOException {
+        Configuration conf = job.getConfiguration();
+        Path file = getDefaultWorkFile(job, ColumnarTradeFile.EXTENSION);
+        FileSystem fs = file.getFileSystem(conf);
+        ColumnarTradeFile.Writer writer = new ColumnarTradeFile.Writer(fs.create(file, false),
+                fs.create(ColumnarTradeIndex.indexFor(file), false),
+                conf.getInt(ColumnarTradeFile.BLOCK_ROWS, ColumnarTradeFile.DEFAULT_BLOCK_ROWS));
+
+        return new RecordWriter<NullWritable, TradeRecord>() {
+            @Override
+            public void write(NullWritable key, TradeRecord value) throws IOException {
+                writer.append(value);
+            }
+
+            @Override
+            public void close(TaskAttemptContext context) throws IOException {
+                writer.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package TDE2;
+
+import org.apache.hadoop.io.IntWritable;
+
+/**
+ * Base dos Mappers de contagem: emite a contagem parcial de cada chave em um único IntWritable reutilizado.
+ */
+public abstract class CountingMapper<KEYIN, VALUEIN, KEYOUT> extends AggregatingMapper<KEYIN, VALUEIN, KEYOUT, IntWritable> {
+
+    private final IntWritable partialCount = new IntWritable();  // Contagem parcial emitida no esvaziamento
+
+    @Override
+    protected IntWritable outputValue(StatsWritable stats) {
+        partialCount.set((int) stats.getCount());
+        return partialCount;
+    }
+}
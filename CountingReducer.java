@@ -0,0 +1,41 @@
+package TDE2;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import java.io.IOException;
+
+/**
+ * Reducer que soma as contagens de cada chave e emite o total em um único IntWritable reutilizado.
+ * Como a soma é associativa, a classe serve também como combiner.
+ */
+public class CountingReducer<K> extends Reducer<K, IntWritable, K, IntWritable> {
+
+    private final IntWritable total = new IntWritable();  // Total emitido, reutilizado entre chaves
+    private KeyHistogram histogram;  // Registros recebidos por chave
+
+    @Override
+    protected void setup(Context context) {
+        histogram = new KeyHistogram(context);
+    }
+
+    @Override
+    public void reduce(K key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
+        int soma = 0;  // Inicializa a soma das transações
+        long records = 0;
+
+        for (IntWritable val : values) {
+            soma += val.get();  // Adiciona o valor à soma
+            records++;
+        }
+        histogram.add(records);
+
+        total.set(soma);
+        context.write(key, total);  // Emite a chave e o total de transações
+    }
+
+    @Override
+    protected void cleanup(Context context) {
+        histogram.close();
+    }
+}
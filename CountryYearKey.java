@@ -0,0 +1,161 @@
+package TDE2;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.Partitioner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Chave composta (país, ano): o país como Text e o ano como int de 4 bytes. Ordena pelo país
+ * (na ordem do Text) e depois pelo ano.
+ *
+ * Para a ordenação secundária, CountryPartitioner e CountryComparator olham só o país: cada Reducer
+ * recebe todos os anos de um país em uma única chamada a reduce(), já em ordem de ano.
+ */
+public class CountryYearKey implements WritableComparable<CountryYearKey> {
+
+    private final Text country = new Text();  // País
+    private int year;                         // Ano
+
+    /**
+     * Construtor vazio padrão (necessário para serialização)
+     */
+    public CountryYearKey() {
+    }
+
+    public CountryYearKey(String country, int year) {
+        set(country, year);
+    }
+
+    public void set(String country, int year) {
+        this.country.set(country);
+        this.year = year;
+    }
+
+    /**
+     * Define a chave a partir de um trecho de bytes com o país, sem alocar.
+     */
+    public void set(byte[] countryBytes, int start, int length, int year) {
+        this.country.set(countryBytes, start, length);
+        this.year = year;
+    }
+
+    public Text getCountry() {
+        return country;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    @Override
+    public void write(DataOutput dataOutput) throws IOException {
+        country.write(dataOutput);
+        dataOutput.writeInt(year);
+    }
+
+    @Override
+    public void readFields(DataInput dataInput) throws IOException {
+        country.readFields(dataInput);
+        year = dataInput.readInt();
+    }
+
+    @Override
+    public int compareTo(CountryYearKey other) {
+        int byCountry = country.compareTo(other.country);
+        return byCountry != 0 ? byCountry : Integer.compare(year, other.year);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CountryYearKey)) {
+            return false;
+        }
+        CountryYearKey other = (CountryYearKey) o;
+        return year == other.year && country.equals(other.country);
+    }
+
+    @Override
+    public int hashCode() {
+        return country.hashCode() * 31 + year;
+    }
+
+    @Override
+    public String toString() {
+        return country + ";" + year;
+    }
+
+    /**
+     * Comparador que ordena chaves serializadas sem desserializá-las.
+     */
+    public static class Comparator extends WritableComparator {
+
+        public Comparator() {
+            super(CountryYearKey.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            try {
+                int prefix1 = WritableUtils.decodeVIntSize(b1[s1]);
+                int prefix2 = WritableUtils.decodeVIntSize(b2[s2]);
+                int length1 = readVInt(b1, s1);
+                int length2 = readVInt(b2, s2);
+                int byCountry = compareBytes(b1, s1 + prefix1, length1, b2, s2 + prefix2, length2);
+                if (byCountry != 0) {
+                    return byCountry;
+                }
+                return Integer.compare(readInt(b1, s1 + prefix1 + length1), readInt(b2, s2 + prefix2 + length2));
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+
+    /**
+     * Comparador de agrupamento da ordenação secundária: chaves do mesmo país, de qualquer ano, são iguais.
+     */
+    public static class CountryComparator extends WritableComparator {
+
+        public CountryComparator() {
+            super(CountryYearKey.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            try {
+                int prefix1 = WritableUtils.decodeVIntSize(b1[s1]);
+                int prefix2 = WritableUtils.decodeVIntSize(b2[s2]);
+                return compareBytes(b1, s1 + prefix1, readVInt(b1, s1), b2, s2 + prefix2, readVInt(b2, s2));
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public int compare(WritableComparable a, WritableComparable b) {
+            return ((CountryYearKey) a).country.compareTo(((CountryYearKey) b).country);
+        }
+    }
+
+    /**
+     * Partitioner da ordenação secundária: todos os anos de um país vão para o mesmo Reducer.
+     */
+    public static class CountryPartitioner<V> extends Partitioner<CountryYearKey, V> {
+
+        @Override
+        public int getPartition(CountryYearKey key, V value, int numPartitions) {
+            return (key.country.hashCode() & Integer.MAX_VALUE) % numPartitions;
+        }
+    }
+
+    static {
+        WritableComparator.define(CountryYearKey.class, new Comparator());  // Registra o comparador binário
+    }
+}
@@ -0,0 +1,340 @@
+package TDE2;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tokenizador de campos separados por ";" que trabalha diretamente sobre os bytes UTF-8 de um Text.
+ * Substitui o padrão value.toString().split(";") dos Mappers: nenhuma String ou array é alocado
+ * por linha, apenas os deslocamentos de cada campo são registrados em um array reutilizado.
+ */
+public class CsvFieldTokenizer {
+
+    public static final byte DELIMITER = ';';  // Delimitador de colunas do CSV
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;  // Maior inteiro representado exatamente em double
+    private static final double[] POWERS_OF_TEN = {  // Potências de 10 representadas exatamente em double
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private byte[] bytes = new byte[0];  // Bytes da linha atual (não copiados)
+    private int length;                  // Quantidade de bytes válidos da linha atual
+    private int[] starts = new int[16];  // Início de cada campo; starts[i + 1] - 1 é o fim do campo i
+    private int fields;                  // Quantidade de campos (separadores + 1)
+
+    /**
+     * Converte uma constante ASCII para bytes, para uso nas comparações sem alocação.
+     * @param value A constante (ex.: "Brazil")
+     * @return Os bytes UTF-8 da constante
+     */
+    public static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Posiciona o tokenizador sobre uma nova linha, registrando o início de cada campo.
+     * @param value A linha de entrada
+     */
+    public void reset(Text value) {
+        reset(value.getBytes(), 0, value.getLength());
+    }
+
+    /**
+     * Posiciona o tokenizador sobre uma linha do TextInputFormat (Text) ou do MappedTradeInputFormat (LineSlice).
+     * @param row A linha de entrada
+     */
+    public void reset(Writable row) {
+        if (row instanceof LineSlice) {
+            LineSlice slice = (LineSlice) row;
+            reset(slice.getBytes(), slice.getOffset(), slice.getLength());
+        } else {
+            reset((Text) row);
+        }
+    }
+
+    /**
+     * Posiciona o tokenizador sobre um trecho de um array de bytes.
+     * @param buffer O array com a linha
+     * @param offset O início da linha no array
+     * @param len O tamanho da linha em bytes
+     */
+    public void reset(byte[] buffer, int offset, int len) {
+        bytes = buffer;
+        length = offset + len;
+        fields = 0;
+        addStart(offset);
+        for (int i = offset; i < length; i++) {
+            if (buffer[i] == DELIMITER) {
+                addStart(i + 1);
+            }
+        }
+        if (fields == starts.length) {
+            growStarts();
+        }
+        starts[fields] = length + 1;  // Sentinela para o cálculo do fim do último campo
+    }
+
+    private void addStart(int start) {
+        if (fields == starts.length) {
+            growStarts();
+        }
+        starts[fields++] = start;
+    }
+
+    private void growStarts() {
+        int[] bigger = new int[starts.length * 2];
+        System.arraycopy(starts, 0, bigger, 0, starts.length);
+        starts = bigger;
+    }
+
+    /**
+     * Quantidade de colunas com a mesma semântica de linha.split(";").length:
+     * campos vazios no final da linha são descartados.
+     * @return O número de colunas
+     */
+    public int fieldCount() {
+        if (length == starts[0]) {
+            return 1;  // "".split(";") devolve um único campo vazio
+        }
+        int count = fields;
+        while (count > 0 && length(count - 1) == 0) {
+            count--;
+        }
+        return count;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return O deslocamento logo após o último byte da linha
+     */
+    public int end() {
+        return length;
+    }
+
+    /**
+     * @param field O índice da coluna
+     * @return O deslocamento do primeiro byte da coluna
+     */
+    public int start(int field) {
+        checkField(field);
+        return starts[field];
+    }
+
+    /**
+     * @param field O índice da coluna
+     * @return O tamanho da coluna em bytes
+     */
+    public int length(int field) {
+        checkField(field);
+        return starts[field + 1] - 1 - starts[field];
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fields) {
+            throw new ArrayIndexOutOfBoundsException(field);
+        }
+    }
+
+    /**
+     * Compara a coluna com uma constante, byte a byte.
+     * @param field O índice da coluna
+     * @param expected Os bytes esperados
+     * @return true se forem idênticos
+     */
+    public boolean equals(int field, byte[] expected) {
+        int len = length(field);
+        if (len != expected.length) {
+            return false;
+        }
+        int start = starts[field];
+        for (int i = 0; i < len; i++) {
+            if (bytes[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compara a coluna com uma constante ignorando maiúsculas/minúsculas nas letras ASCII.
+     * @param field O índice da coluna
+     * @param expected Os bytes esperados (ex.: ascii("Brazil"))
+     * @return true se forem iguais desconsiderando a caixa
+     */
+    public boolean equalsIgnoreCase(int field, byte[] expected) {
+        return equalsIgnoreCase(bytes, start(field), length(field), expected);
+    }
+
+    /**
+     * Compara um trecho de bytes com uma constante ignorando maiúsculas/minúsculas nas letras ASCII.
+     * @param bytes Os bytes a comparar (ex.: Text.getBytes())
+     * @param start O início do trecho
+     * @param len O tamanho do trecho
+     * @param expected Os bytes esperados
+     * @return true se forem iguais desconsiderando a caixa
+     */
+    public static boolean equalsIgnoreCase(byte[] bytes, int start, int len, byte[] expected) {
+        if (len != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            byte a = bytes[start + i];
+            byte b = expected[i];
+            if (a != b && toLowerAscii(a) != toLowerAscii(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * Copia a coluna para um Text reutilizado (sem alocar quando a capacidade já é suficiente).
+     * @param field O índice da coluna
+     * @param target O Text de destino
+     */
+    public void copyField(int field, Text target) {
+        target.set(bytes, start(field), length(field));
+    }
+
+    /**
+     * Materializa a coluna como String. Usar apenas fora do caminho quente.
+     * @param field O índice da coluna
+     * @return O conteúdo da coluna
+     */
+    public String getString(int field) {
+        return new String(bytes, start(field), length(field), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converte a coluna para float com a mesma tolerância de Float.parseFloat.
+     * @param field O índice da coluna
+     * @return O valor convertido
+     * @throws NumberFormatException se a coluna não contiver um número válido
+     */
+    public float parseFloat(int field) {
+        return (float) parseDouble(field);
+    }
+
+    /**
+     * Converte a coluna para double sem materializar uma String. Números decimais simples
+     * (sinal, dígitos, ponto e expoente) são convertidos diretamente; formatos incomuns
+     * (NaN, hexadecimal, sufixos, mais de 15 dígitos significativos) usam Double.parseDouble.
+     * @param field O índice da coluna
+     * @return O valor convertido
+     * @throws NumberFormatException se a coluna não contiver um número válido
+     */
+    public double parseDouble(int field) {
+        int pos = start(field);
+        int end = pos + length(field);
+
+        while (pos < end && (bytes[pos] & 0xff) <= ' ') {  // Ignora espaços como Double.parseDouble
+            pos++;
+        }
+        while (end > pos && (bytes[end - 1] & 0xff) <= ' ') {
+            end--;
+        }
+
+        int i = pos;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        boolean digits = false;
+        for (; i < end && isDigit(bytes[i]); i++) {
+            mantissa = mantissa * 10 + (bytes[i] - '0');
+            digits = true;
+            if (mantissa >= MAX_EXACT_MANTISSA) {
+                return parseDoubleSlow(pos, end);
+            }
+        }
+        if (i < end && bytes[i] == '.') {
+            for (i++; i < end && isDigit(bytes[i]); i++) {
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+                exponent--;
+                digits = true;
+                if (mantissa >= MAX_EXACT_MANTISSA) {
+                    return parseDoubleSlow(pos, end);
+                }
+            }
+        }
+        if (!digits) {
+            return parseDoubleSlow(pos, end);
+        }
+
+        if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            int explicit = 0;
+            int expStart = i;
+            for (; i < end && isDigit(bytes[i]) && explicit < 1000; i++) {
+                explicit = explicit * 10 + (bytes[i] - '0');
+            }
+            if (i == expStart) {
+                return parseDoubleSlow(pos, end);
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (i != end || exponent < -22 || exponent > 22) {
+            return parseDoubleSlow(pos, end);  // Sufixos (f, d), NaN, Infinity ou expoentes grandes
+        }
+
+        // Mantissa e potência exatas: uma única operação dá o double corretamente arredondado
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleSlow(int from, int to) {
+        return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Converte a coluna para int, com a mesma sintaxe de Integer.parseInt.
+     * @param field O índice da coluna
+     * @return O valor convertido
+     * @throws NumberFormatException se a coluna não contiver um inteiro válido
+     */
+    public int parseInt(int field) {
+        int pos = start(field);
+        int end = pos + length(field);
+        int i = pos;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        if (i == end || end - i > 9) {  // Vazio ou possível estouro: delega a validação
+            return Integer.parseInt(new String(bytes, pos, end - pos, StandardCharsets.UTF_8));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            if (!isDigit(bytes[i])) {
+                throw new NumberFormatException("For input string: \""
+                        + new String(bytes, pos, end - pos, StandardCharsets.UTF_8) + "\"");
+            }
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
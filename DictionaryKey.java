@@ -0,0 +1,191 @@
+package TDE2;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base das chaves de texto com domínio pequeno e conhecido (fluxo, categoria). Os valores do dicionário
+ * são serializados como um único byte (1..n); qualquer outro valor usa o código de escape 0 seguido do
+ * texto, como um Text. O dicionário é ordenado, então a ordem das chaves é exatamente a ordem do Text
+ * e a saída dos jobs não muda.
+ */
+public abstract class DictionaryKey implements WritableComparable<DictionaryKey> {
+
+    public static final int ESCAPE = 0;  // Código dos valores fora do dicionário
+
+    private final byte[][] dictionary;   // Valores conhecidos, em ordem crescente de bytes
+    private int code = ESCAPE;           // Código atual (1..n) ou ESCAPE
+    private final Text escaped = new Text();  // Valor atual quando fora do dicionário
+
+    protected DictionaryKey(byte[][] dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Monta um dicionário a partir dos valores, verificando que estão em ordem crescente de bytes.
+     * @param values Os valores conhecidos (no máximo 255)
+     * @return O dicionário
+     */
+    protected static byte[][] dictionary(String... values) {
+        if (values.length > 255) {
+            throw new IllegalArgumentException("Dicionário com mais de 255 valores");
+        }
+        byte[][] bytes = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = values[i].getBytes(StandardCharsets.UTF_8);
+            if (i > 0 && WritableComparator.compareBytes(bytes[i - 1], 0, bytes[i - 1].length, bytes[i], 0, bytes[i].length) >= 0) {
+                throw new IllegalArgumentException("Dicionário fora de ordem em " + values[i]);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Define o valor da chave a partir de um trecho de bytes (ex.: a coluna do CSV), sem alocar.
+     * @param bytes Os bytes do valor
+     * @param start O início do valor
+     * @param length O tamanho do valor
+     */
+    public void set(byte[] bytes, int start, int length) {
+        code = lookup(dictionary, bytes, start, length);
+        if (code == ESCAPE) {
+            escaped.set(bytes, start, length);
+        }
+    }
+
+    public void set(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        set(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @return O código do valor no dicionário, ou ESCAPE
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @return Os bytes do valor (válidos até getLength())
+     */
+    public byte[] getBytes() {
+        return code == ESCAPE ? escaped.getBytes() : dictionary[code - 1];
+    }
+
+    public int getLength() {
+        return code == ESCAPE ? escaped.getLength() : dictionary[code - 1].length;
+    }
+
+    private static int lookup(byte[][] dictionary, byte[] bytes, int start, int length) {
+        int low = 0;
+        int high = dictionary.length - 1;
+        while (low <= high) {  // Busca binária: o dicionário está ordenado
+            int middle = (low + high) >>> 1;
+            int cmp = WritableComparator.compareBytes(dictionary[middle], 0, dictionary[middle].length, bytes, start, length);
+            if (cmp == 0) {
+                return middle + 1;
+            }
+            if (cmp < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return ESCAPE;
+    }
+
+    @Override
+    public void write(DataOutput dataOutput) throws IOException {
+        dataOutput.writeByte(code);
+        if (code == ESCAPE) {
+            escaped.write(dataOutput);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput dataInput) throws IOException {
+        code = dataInput.readUnsignedByte();
+        if (code == ESCAPE) {
+            escaped.readFields(dataInput);
+        }
+    }
+
+    @Override
+    public int compareTo(DictionaryKey other) {
+        if (code != ESCAPE && other.code != ESCAPE) {
+            return Integer.compare(code, other.code);  // Códigos seguem a ordem dos bytes
+        }
+        return WritableComparator.compareBytes(getBytes(), 0, getLength(), other.getBytes(), 0, other.getLength());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o != null && o.getClass() == getClass() && compareTo((DictionaryKey) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return WritableComparator.hashBytes(getBytes(), getLength());
+    }
+
+    @Override
+    public String toString() {
+        return new String(getBytes(), 0, getLength(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Comparador que ordena chaves serializadas sem desserializá-las: dois códigos do dicionário são
+     * comparados diretamente; com um escape, compara os bytes dos valores.
+     */
+    public static class Comparator extends WritableComparator {
+
+        private final byte[][] dictionary;
+
+        public Comparator(Class<? extends DictionaryKey> keyClass, byte[][] dictionary) {
+            super(keyClass);
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            int code1 = b1[s1] & 0xff;
+            int code2 = b2[s2] & 0xff;
+            if (code1 != ESCAPE && code2 != ESCAPE) {
+                return Integer.compare(code1, code2);
+            }
+
+            byte[] v1 = b1;
+            byte[] v2 = b2;
+            int start1 = 0;
+            int start2 = 0;
+            int length1;
+            int length2;
+            try {
+                if (code1 == ESCAPE) {
+                    length1 = readVInt(b1, s1 + 1);
+                    start1 = s1 + 1 + WritableUtils.decodeVIntSize(b1[s1 + 1]);
+                } else {
+                    v1 = dictionary[code1 - 1];
+                    length1 = v1.length;
+                }
+                if (code2 == ESCAPE) {
+                    length2 = readVInt(b2, s2 + 1);
+                    start2 = s2 + 1 + WritableUtils.decodeVIntSize(b2[s2 + 1]);
+                } else {
+                    v2 = dictionary[code2 - 1];
+                    length2 = v2.length;
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+            return compareBytes(v1, start1, length1, v2, start2, length2);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classe principal que estima a quantidade de mercadorias distintas (código da mercadoria) por ano e por fluxo.
+ * Cada chave ("year;<ano>" ou "flow;<fluxo>") recebe um HyperLogLogWritable de 4 KB no Mapper, em vez de
+ * um par por mercadoria distinta no shuffle; o combiner e o Reducer apenas fundem os contadores.
+ */
+public class DistinctCommodities {
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();
+
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+
+        Path input = new Path("in/operacoes_comerciais_inteira.csv");  // Caminho para o arquivo CSV de entrada
+        Path output = new Path("output/distinct_commodities");  // Caminho para o diretório de saída
+
+        Job j = Job.getInstance(c, "distinct-commodities");
+
+        j.setJarByClass(DistinctCommodities.class);
+        j.setMapperClass(MapForDistinctCommodities.class);
+        j.setCombinerClass(HyperLogLogReducer.class);  // Funde os contadores parciais antes do shuffle
+        j.setReducerClass(HyperLogLogReducer.class);
+
+        j.setMapOutputKeyClass(Text.class);
+        j.setMapOutputValueClass(HyperLogLogWritable.class);
+
+        j.setOutputKeyClass(Text.class);
+        j.setOutputValueClass(HyperLogLogWritable.class);
+
+        FileInputFormat.addInputPath(j, input);
+        FileOutputFormat.setOutputPath(j, output);
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
+    }
+
+    /**
+     * Mapper que registra o código da mercadoria de cada linha nos contadores do seu ano e do seu fluxo,
+     * emitindo os contadores apenas no cleanup().
+     */
+    public static class MapForDistinctCommodities extends Mapper<LongWritable, Writable, Text, HyperLogLogWritable> {
+
+        private final static byte[] yearPrefix = CsvFieldTokenizer.ascii("year;");
+        private final static byte[] flowPrefix = CsvFieldTokenizer.ascii("flow;");
+
+        private Map<Text, HyperLogLogWritable> counters = new HashMap<>();
+        private Text probe = new Text();  // Chave de busca reutilizada
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+        private RowMetrics metrics;  // Destino de cada linha e tempo das fases
+
+        @Override
+        protected void setup(Context context) {
+            metrics = new RowMetrics(context);
+        }
+
+        @Override
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);
+            if (col.fieldCount() <= 4) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
+                return;  // Sem fluxo (quinta coluna)
+            }
+            metrics.parsed();
+            metrics.accepted();
+
+            counter(yearPrefix, 1).add(col.getBytes(), col.start(2), col.length(2));  // Terceira coluna: código da mercadoria
+            counter(flowPrefix, 4).add(col.getBytes(), col.start(2), col.length(2));
+            context.getCounter(InMapperAggregator.Counters.AGGREGATED_RECORDS).increment(1);
+            metrics.emitted();
+        }
+
+        /**
+         * @return O contador da chave "<prefixo><coluna>", criado no primeiro uso
+         */
+        private HyperLogLogWritable counter(byte[] prefix, int field) {
+            probe.set(prefix);
+            probe.append(col.getBytes(), col.start(field), col.length(field));
+            HyperLogLogWritable counter = counters.get(probe);
+            if (counter == null) {
+                counter = new HyperLogLogWritable();
+                counters.put(new Text(probe), counter);
+            }
+            return counter;
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            for (Map.Entry<Text, HyperLogLogWritable> entry : counters.entrySet()) {
+                context.write(entry.getKey(), entry.getValue());
+            }
+            metrics.close();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package TDE2;
+
+import org.apache.hadoop.io.WritableComparator;
+
+/**
+ * Chave com o tipo de fluxo da transação, codificada em um byte para os fluxos conhecidos.
+ */
+public class FlowKey extends DictionaryKey {
+
+    // Fluxos do UN Comtrade, em ordem crescente de bytes
+    private final static byte[][] FLOWS = dictionary("Export", "Import", "Re-Export", "Re-Import");
+
+    public FlowKey() {
+        super(FLOWS);
+    }
+
+    static {
+        WritableComparator.define(FlowKey.class, new Comparator(FlowKey.class, FLOWS));  // Registra o comparador binário
+    }
+}
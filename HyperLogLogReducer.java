@@ -0,0 +1,37 @@
+package TDE2;
+
+import org.apache.hadoop.mapreduce.Reducer;
+
+import java.io.IOException;
+
+/**
+ * Reducer que funde todos os contadores HyperLogLog de uma chave em um único contador.
+ * Como a fusão preserva o tipo, a classe serve também como combiner.
+ */
+public class HyperLogLogReducer<K> extends Reducer<K, HyperLogLogWritable, K, HyperLogLogWritable> {
+
+    private HyperLogLogWritable total = new HyperLogLogWritable();  // Contador acumulado da chave
+    private KeyHistogram histogram;  // Registros recebidos por chave
+
+    @Override
+    protected void setup(Context context) {
+        histogram = new KeyHistogram(context);
+    }
+
+    @Override
+    public void reduce(K key, Iterable<HyperLogLogWritable> values, Context context) throws IOException, InterruptedException {
+        total.clear();
+        long records = 0;
+        for (HyperLogLogWritable value : values) {  // Itera sobre os contadores parciais
+            total.merge(value);
+            records++;
+        }
+        histogram.add(records);
+        context.write(key, total);  // Emite a chave com o contador fundido
+    }
+
+    @Override
+    protected void cleanup(Context context) {
+        histogram.close();
+    }
+}
@@ -0,0 +1,136 @@
+package TDE2;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Contador aproximado de valores distintos (HyperLogLog) com 2^12 registradores de um byte.
+ *
+ * Cada valor é reduzido a um hash de 64 bits: os 12 bits altos escolhem o registrador e o restante
+ * guarda a maior sequência de zeros à esquerda já vista. O estado tem tamanho fixo (4 KB), a fusão
+ * é o máximo registrador a registrador, e o erro padrão é 1,04/√4096 ≈ 1,6%, qualquer que seja a
+ * quantidade de valores. Os valores são passados como bytes, sem materializar Strings.
+ */
+public class HyperLogLogWritable implements Writable {
+
+    public static final int PRECISION = 12;                 // Bits do hash que escolhem o registrador
+    public static final int REGISTERS = 1 << PRECISION;     // Registradores (e bytes serializados)
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);  // Correção de viés do estimador
+    private static final long SEED = 0x9747b28cL;
+    private static final long MULTIPLIER = 0xc6a4a7935bd1e995L;  // Constante do MurmurHash64A
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    /**
+     * Construtor vazio padrão (necessário para serialização)
+     */
+    public HyperLogLogWritable() {
+    }
+
+    /**
+     * Volta ao contador vazio.
+     */
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    /**
+     * Registra um valor.
+     * @param bytes Os bytes do valor (ex.: CsvFieldTokenizer.getBytes())
+     * @param start O início do valor
+     * @param length O tamanho do valor
+     */
+    public void add(byte[] bytes, int start, int length) {
+        long hash = hash(bytes, start, length);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Bit sentinela garante no máximo 64 - PRECISION + 1 mesmo se os bits restantes forem todos zero
+        long rest = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Funde outro contador neste: o resultado estima os distintos da união dos dois conjuntos.
+     * @param other O contador parcial
+     */
+    public void merge(HyperLogLogWritable other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * @return A quantidade estimada de valores distintos
+     */
+    public long getCardinality() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);  // Contagem linear para poucos valores
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * MurmurHash64A dos bytes: espalha bem valores curtos e parecidos, como códigos de mercadoria.
+     */
+    static long hash(byte[] bytes, int start, int length) {
+        long h = SEED ^ (length * MULTIPLIER);
+        int end = start + (length & ~7);
+        for (int i = start; i < end; i += 8) {
+            long k = (bytes[i] & 0xffL) | (bytes[i + 1] & 0xffL) << 8 | (bytes[i + 2] & 0xffL) << 16
+                    | (bytes[i + 3] & 0xffL) << 24 | (bytes[i + 4] & 0xffL) << 32 | (bytes[i + 5] & 0xffL) << 40
+                    | (bytes[i + 6] & 0xffL) << 48 | (bytes[i + 7] & 0xffL) << 56;
+            k *= MULTIPLIER;
+            k ^= k >>> 47;
+            k *= MULTIPLIER;
+            h ^= k;
+            h *= MULTIPLIER;
+        }
+        int remaining = length & 7;
+        if (remaining > 0) {
+            for (int i = remaining - 1; i >= 0; i--) {
+                h ^= (bytes[end + i] & 0xffL) << (8 * i);
+            }
+            h *= MULTIPLIER;
+        }
+        h ^= h >>> 47;
+        h *= MULTIPLIER;
+        h ^= h >>> 47;
+        return h;
+    }
+
+    @Override
+    public void write(DataOutput dataOutput) throws IOException {
+        dataOutput.write(registers);
+    }
+
+    @Override
+    public void readFields(DataInput dataInput) throws IOException {
+        dataInput.readFully(registers);
+    }
+
+    /**
+     * @return A string com a quantidade estimada de distintos
+     */
+    @Override
+    public String toString() {
+        return "Distinct: " + getCardinality();
+    }
+}
@@ -0,0 +1,206 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Agregação dentro do Mapper: acumula um StatsWritable por chave em uma tabela hash de arrays
+ * primitivos, emitindo um único par por chave no cleanup() (ou antes, quando o limite de memória
+ * é atingido). As chaves são copiadas para uma área de bytes própria e os resumos são reaproveitados
+ * entre esvaziamentos, sem criar objetos por linha. Com "tde2.inmapper.max.entries" igual a 0 não há
+ * agregação: cada ocorrência é emitida na hora, como um Mapper sem a tabela.
+ */
+public class InMapperAggregator {
+
+    public static final String MAX_ENTRIES = "tde2.inmapper.max.entries";  // Chaves distintas antes de esvaziar (0 = sem agregação)
+    public static final String MAX_KEY_BYTES = "tde2.inmapper.max.key.bytes";  // Bytes de chaves antes de esvaziar
+
+    /**
+     * Contadores que medem a redução de registros enviados ao shuffle.
+     */
+    public enum Counters {
+        AGGREGATED_RECORDS,  // Registros recebidos pela agregação
+        EMITTED_RECORDS,     // Pares efetivamente emitidos pelo Mapper
+        FLUSHES              // Quantas vezes a tabela foi esvaziada
+    }
+
+    /**
+     * Recebe cada chave agregada no momento em que a tabela é esvaziada.
+     */
+    public interface Flusher {
+        void flush(byte[] key, int start, int length, StatsWritable stats) throws IOException, InterruptedException;
+    }
+
+    private final Flusher flusher;
+    private final Counter aggregatedRecords;
+    private final Counter emittedRecords;
+    private final Counter flushes;
+    private final int maxEntries;
+
+    private int[] table;        // Índice da entrada + 1 em cada posição (0 = livre)
+    private int[] hashes;       // Hash de cada entrada
+    private int[] keyStarts;    // Início da chave na área de bytes
+    private int[] keyLengths;   // Tamanho da chave
+    private StatsWritable[] stats;  // Resumo por chave (criado no primeiro uso e reaproveitado)
+    private StatsWritable single = new StatsWritable();  // Resumo de chaves que não cabem na área
+    private byte[] keyBytes;    // Área onde as chaves são copiadas
+    private byte[] pendingKey;  // Cópia da chave sendo inserida durante um esvaziamento
+    private int keyBytesUsed;
+    private int size;
+
+    /**
+     * @param context O contexto da tarefa (configuração e contadores)
+     * @param flusher Quem emite cada chave agregada
+     */
+    public InMapperAggregator(TaskInputOutputContext<?, ?, ?, ?> context, Flusher flusher) {
+        this.flusher = flusher;
+        aggregatedRecords = context.getCounter(Counters.AGGREGATED_RECORDS);
+        emittedRecords = context.getCounter(Counters.EMITTED_RECORDS);
+        flushes = context.getCounter(Counters.FLUSHES);
+
+        Configuration conf = context.getConfiguration();
+        maxEntries = Math.max(0, conf.getInt(MAX_ENTRIES, 16384));
+        int tableSize = maxEntries == 0 ? 1 : Integer.highestOneBit(maxEntries * 2 - 1) << 1;  // Potência de 2, ocupação <= 50%
+
+        table = new int[tableSize];
+        hashes = new int[maxEntries];
+        keyStarts = new int[maxEntries];
+        keyLengths = new int[maxEntries];
+        stats = new StatsWritable[maxEntries];
+        keyBytes = new byte[maxEntries == 0 ? 0 : Math.max(64, conf.getInt(MAX_KEY_BYTES, 1 << 20))];
+    }
+
+    /**
+     * Agrega uma ocorrência da chave com o valor informado.
+     * @param key Array com os bytes da chave
+     * @param start Início da chave
+     * @param length Tamanho da chave
+     * @param value Valor da transação
+     */
+    public void add(byte[] key, int start, int length, double value) throws IOException, InterruptedException {
+        StatsWritable entry = lookup(key, start, length);
+        if (entry == null) {
+            single.clear();
+            single.add(value);
+            emit(key, start, length, single);  // Sem agregação, ou chave maior que a área inteira
+        } else {
+            entry.add(value);
+        }
+    }
+
+    /**
+     * Agrega uma ocorrência da chave sem valor associado (apenas contagem).
+     * @param key Array com os bytes da chave
+     * @param start Início da chave
+     * @param length Tamanho da chave
+     */
+    public void count(byte[] key, int start, int length) throws IOException, InterruptedException {
+        StatsWritable entry = lookup(key, start, length);
+        if (entry == null) {
+            single.clear();
+            single.addCount(1);
+            emit(key, start, length, single);  // Sem agregação, ou chave maior que a área inteira
+        } else {
+            entry.addCount(1);
+        }
+    }
+
+    /**
+     * Localiza (ou cria) o resumo da chave, esvaziando a tabela quando o limite é atingido.
+     * @return O resumo da chave, ou null se não houver agregação ou a chave não couber na área de bytes
+     */
+    private StatsWritable lookup(byte[] key, int start, int length) throws IOException, InterruptedException {
+        aggregatedRecords.increment(1);
+        if (maxEntries == 0) {
+            return null;  // Sem agregação: o chamador emite direto
+        }
+
+        int hash = hash(key, start, length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int entry = table[slot] - 1;
+            if (hashes[entry] == hash && sameKey(entry, key, start, length)) {
+                return stats[entry];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (length > keyBytes.length) {
+            return null;  // Nunca caberia na área: o chamador emite direto
+        }
+        if (size == maxEntries || keyBytesUsed + length > keyBytes.length) {
+            // O flusher pode reescrever o array de onde a chave veio (ex.: o mesmo Text usado na saída),
+            // então a chave é copiada antes de esvaziar
+            if (pendingKey == null) {
+                pendingKey = new byte[keyBytes.length];
+            }
+            System.arraycopy(key, start, pendingKey, 0, length);
+            key = pendingKey;
+            start = 0;
+            flush();  // Limite de memória atingido: esvazia e insere em uma tabela limpa
+            slot = hash & mask;
+        }
+
+        int entry = size++;
+        System.arraycopy(key, start, keyBytes, keyBytesUsed, length);
+        hashes[entry] = hash;
+        keyStarts[entry] = keyBytesUsed;
+        keyLengths[entry] = length;
+        keyBytesUsed += length;
+        table[slot] = entry + 1;
+
+        if (stats[entry] == null) {
+            stats[entry] = new StatsWritable();
+        } else {
+            stats[entry].clear();
+        }
+        return stats[entry];
+    }
+
+    /**
+     * Emite todas as chaves acumuladas e limpa a tabela. Deve ser chamado no cleanup() do Mapper.
+     */
+    public void flush() throws IOException, InterruptedException {
+        if (size == 0) {
+            return;
+        }
+        for (int entry = 0; entry < size; entry++) {
+            emit(keyBytes, keyStarts[entry], keyLengths[entry], stats[entry]);
+        }
+        Arrays.fill(table, 0);
+        size = 0;
+        keyBytesUsed = 0;
+        flushes.increment(1);
+    }
+
+    private void emit(byte[] key, int start, int length, StatsWritable value) throws IOException, InterruptedException {
+        emittedRecords.increment(1);
+        flusher.flush(key, start, length, value);
+    }
+
+    private boolean sameKey(int entry, byte[] key, int start, int length) {
+        if (keyLengths[entry] != length) {
+            return false;
+        }
+        int offset = keyStarts[entry];
+        for (int i = 0; i < length; i++) {
+            if (keyBytes[offset + i] != key[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] key, int start, int length) {
+        int h = 1;
+        for (int i = start; i < start + length; i++) {
+            h = 31 * h + key[i];
+        }
+        return h ^ (h >>> 16);  // Espalha os bits altos para a máscara da tabela
+    }
+}
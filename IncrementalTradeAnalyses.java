@@ -0,0 +1,255 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Atualiza os resultados das sete análises do SingleScanTransactionAnalyses lendo apenas os arquivos
+ * CSV que chegaram desde a última execução.
+ *
+ * O estado fica em state/single_scan/current: data/ guarda o resumo (StatsWritable) de cada chave marcada
+ * em SequenceFile, e manifest lista os arquivos já processados. Cada execução lê os arquivos novos de
+ * in/entregas e o estado anterior, funde os dois no Reducer do job combinado e grava o novo estado junto
+ * com os resultados, de modo que o custo é proporcional aos dados novos e não ao histórico inteiro.
+ * Os diretórios podem ser trocados com -D tde2.incremental.input=... e -D tde2.incremental.state=...
+ *
+ * A troca do estado é feita por renomeações (current → backup, next → current) e o manifesto de next só
+ * existe depois que os resultados foram publicados; assim, se uma execução parar no meio da troca, a
+ * próxima recupera o estado a partir de next ou de backup (recover()) antes de apagar qualquer diretório.
+ */
+public class IncrementalTradeAnalyses {
+
+    public final static String INPUT = "tde2.incremental.input";  // Diretório onde chegam os novos CSVs
+    public final static String STATE = "tde2.incremental.state";  // Diretório do estado persistido
+
+    private final static String STATE_OUTPUT = "state";         // Saída nomeada do novo estado
+    private final static String STATE_DATA = "data";            // Resumos por chave, em SequenceFile
+    private final static String MANIFEST = "manifest";          // Arquivos já processados
+
+    private static final Logger LOG = Logger.getLogger(IncrementalTradeAnalyses.class);
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();
+
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+
+        Path input = new Path(c.get(INPUT, "in/entregas"));  // Diretório com as entregas do feed
+        Path state = new Path(c.get(STATE, "state/single_scan"));
+        Path output = new Path("output");  // Diretório raiz; cada análise grava no seu subdiretório
+
+        Path current = new Path(state, "current");  // Estado consolidado da última execução
+        Path next = new Path(state, "next");        // Estado e resultados da execução atual
+        Path backup = new Path(state, "backup");    // Estado anterior durante a troca
+        FileSystem fs = state.getFileSystem(c);
+
+        recover(fs, current, next, backup);
+        Map<String, String> manifest = readManifest(fs, new Path(current, MANIFEST));
+        List<FileStatus> arrivals = newFiles(input.getFileSystem(c), input, manifest);
+        if (arrivals.isEmpty()) {
+            LOG.info("Nenhum arquivo novo em " + input + "; resultados já atualizados");
+            System.exit(0);
+        }
+
+        Job j = Job.getInstance(c, "incremental-transaction-analyses");
+
+        j.setJarByClass(IncrementalTradeAnalyses.class);
+        j.setCombinerClass(StatsReducer.class);
+        j.setReducerClass(ReduceForIncrementalAnalyses.class);
+
+        j.setMapOutputKeyClass(Text.class);
+        j.setMapOutputValueClass(StatsWritable.class);
+
+        j.setOutputKeyClass(Text.class);
+        j.setOutputValueClass(Text.class);
+
+        // Arquivos novos passam pelo Mapper do job combinado; o estado anterior entra já agregado
+        Class<? extends InputFormat<?, ?>> csvFormat =
+                MappedTradeInputFormat.isEnabled(c) ? MappedTradeInputFormat.class : TextInputFormat.class;
+        for (FileStatus file : arrivals) {
+            MultipleInputs.addInputPath(j, file.getPath(), csvFormat, SingleScanTransactionAnalyses.MapForAllAnalyses.class);
+            manifest.put(file.getPath().toString(), signature(file));
+        }
+        Path previous = new Path(current, STATE_DATA);
+        if (fs.exists(previous)) {
+            MultipleInputs.addInputPath(j, previous, SequenceFileInputFormat.class, MapForState.class);
+        }
+
+        fs.delete(next, true);  // Restos de uma execução interrompida
+        FileOutputFormat.setOutputPath(j, next);
+
+        LazyOutputFormat.setOutputFormatClass(j, TextOutputFormat.class);
+        MultipleOutputs.addNamedOutput(j, STATE_OUTPUT, SequenceFileOutputFormat.class, Text.class, StatsWritable.class);
+        for (SingleScanTransactionAnalyses.Analysis analysis : SingleScanTransactionAnalyses.Analysis.values()) {
+            MultipleOutputs.addNamedOutput(j, analysis.getNamedOutput(), TextOutputFormat.class,
+                    Text.class, analysis.getValueClass());
+        }
+
+        LOG.info(String.format("%d arquivos novos em %s", arrivals.size(), input));
+        if (!TradeJobs.waitForCompletion(j)) {
+            System.exit(1);
+        }
+
+        publish(fs, next, output);
+        writeManifest(fs, new Path(next, MANIFEST), manifest);
+
+        // O estado só é substituído depois que os resultados foram publicados: se a execução parar antes,
+        // a próxima reprocessa os mesmos arquivos sobre o estado antigo; se parar durante a troca,
+        // a próxima a completa em recover()
+        fs.delete(backup, true);
+        if (fs.exists(current) && !fs.rename(current, backup)) {
+            throw new IOException("Não foi possível guardar o estado anterior em " + backup);
+        }
+        if (!fs.rename(next, current)) {
+            throw new IOException("Não foi possível consolidar o estado em " + current);
+        }
+        fs.delete(backup, true);
+        System.exit(0);
+    }
+
+    /**
+     * Completa ou desfaz a troca de estado de uma execução interrompida. Sem current, usa next se o seu
+     * manifesto já foi gravado (resultados publicados) e, senão, o backup do estado anterior.
+     */
+    private static void recover(FileSystem fs, Path current, Path next, Path backup) throws IOException {
+        if (!fs.exists(current)) {
+            Path source = fs.exists(new Path(next, MANIFEST)) ? next : fs.exists(backup) ? backup : null;
+            if (source == null) {
+                return;  // Primeira execução
+            }
+            LOG.warn("Estado incompleto em " + current + "; recuperando de " + source);
+            if (!fs.rename(source, current)) {
+                throw new IOException("Não foi possível recuperar o estado de " + source);
+            }
+        }
+        fs.delete(backup, true);  // Troca concluída: o estado anterior não é mais necessário
+    }
+
+    /**
+     * Lista os arquivos do diretório de entrada que ainda não constam no manifesto.
+     * @throws IOException se um arquivo já processado foi alterado depois disso
+     */
+    private static List<FileStatus> newFiles(FileSystem fs, Path input, Map<String, String> manifest) throws IOException {
+        List<FileStatus> arrivals = new ArrayList<>();
+        if (!fs.exists(input)) {
+            return arrivals;
+        }
+        FileStatus[] listing = fs.listStatus(input, path -> !path.getName().startsWith(".") && !path.getName().startsWith("_"));
+        Arrays.sort(listing);  // Ordem estável entre execuções
+        for (FileStatus file : listing) {
+            if (!file.isFile()) {
+                continue;
+            }
+            String processed = manifest.get(file.getPath().toString());
+            if (processed == null) {
+                arrivals.add(file);
+            } else if (!processed.equals(signature(file))) {
+                throw new IOException("Arquivo já processado foi alterado: " + file.getPath());
+            }
+        }
+        return arrivals;
+    }
+
+    private static String signature(FileStatus file) {
+        return file.getLen() + "\t" + file.getModificationTime();
+    }
+
+    /**
+     * @return Os arquivos processados (caminho → tamanho e data de modificação), na ordem do manifesto
+     */
+    private static Map<String, String> readManifest(FileSystem fs, Path path) throws IOException {
+        Map<String, String> manifest = new LinkedHashMap<>();
+        if (!fs.exists(path)) {
+            return manifest;  // Primeira execução
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(path), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                manifest.put(line.substring(0, tab), line.substring(tab + 1));
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Grava o manifesto em um arquivo temporário e o renomeia: o manifesto só aparece quando está completo.
+     */
+    private static void writeManifest(FileSystem fs, Path path, Map<String, String> manifest) throws IOException {
+        Path partial = new Path(path.getParent(), "_" + path.getName());
+        try (FSDataOutputStream out = fs.create(partial, true)) {
+            for (Map.Entry<String, String> entry : manifest.entrySet()) {
+                out.write((entry.getKey() + "\t" + entry.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        fs.delete(path, false);
+        if (!fs.rename(partial, path)) {
+            throw new IOException("Não foi possível gravar o manifesto " + path);
+        }
+    }
+
+    /**
+     * Move o resultado de cada análise para output/, substituindo o da execução anterior.
+     */
+    private static void publish(FileSystem fs, Path next, Path output) throws IOException {
+        fs.mkdirs(output);
+        for (SingleScanTransactionAnalyses.Analysis analysis : SingleScanTransactionAnalyses.Analysis.values()) {
+            Path result = new Path(next, analysis.getDirectory());
+            Path target = new Path(output, analysis.getDirectory());
+            fs.delete(target, true);
+            if (fs.exists(result) && !fs.rename(result, target)) {
+                throw new IOException("Não foi possível publicar " + target);
+            }
+        }
+    }
+
+    /**
+     * Classe Mapper que repassa o estado anterior (chave marcada e resumo) sem alteração.
+     */
+    public static class MapForState extends Mapper<Text, StatsWritable, Text, StatsWritable> {
+    }
+
+    /**
+     * Reducer do job combinado que, além dos resultados das análises, grava o resumo fundido
+     * de cada chave como o novo estado.
+     */
+    public static class ReduceForIncrementalAnalyses extends SingleScanTransactionAnalyses.ReduceForAllAnalyses {
+
+        private final static String STATE_PATH = STATE_DATA + "/part";
+
+        @Override
+        protected void write(Text key, StatsWritable merged) throws IOException, InterruptedException {
+            mos.write(STATE_OUTPUT, key, merged, STATE_PATH);
+            super.write(key, merged);
+        }
+    }
+}
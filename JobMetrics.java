@@ -0,0 +1,121 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Resumo em JSON das métricas de um job concluído, gravado em "<saída>/_metrics.json" pelo TradeJobs.
+ *
+ * Traz o tempo de parede, o destino das linhas (RowMetrics.Rows), o tempo médio por linha de cada fase
+ * cronometrada, o volume do shuffle, o histograma de registros por chave dos Reducers (KeyHistogram) e,
+ * em "counters", todos os contadores do job. O "_" inicial faz o FileInputFormat ignorar o arquivo.
+ */
+public final class JobMetrics {
+
+    public final static String FILE = "_metrics.json";
+
+    private JobMetrics() {
+    }
+
+    /**
+     * @param j O job concluído com sucesso
+     * @param counters Os contadores do job
+     * @param millis O tempo de parede do job
+     */
+    public static void write(Job j, Counters counters, long millis) throws IOException {
+        Path output = FileOutputFormat.getOutputPath(j);
+        if (output == null) {
+            return;  // Job sem diretório de saída
+        }
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"job\": ").append(quote(j.getJobName())).append(",\n");
+        json.append("  \"wallMillis\": ").append(millis).append(",\n");
+
+        json.append("  \"rows\": {");
+        String separator = "";
+        for (RowMetrics.Rows row : RowMetrics.Rows.values()) {
+            json.append(separator).append(quote(row.name())).append(": ").append(counters.findCounter(row).getValue());
+            separator = ", ";
+        }
+        json.append("},\n");
+
+        json.append("  \"nanosPerRow\": {")
+                .append("\"parse\": ").append(mean(counters, RowMetrics.Timers.PARSE_NANOS, RowMetrics.Timers.PARSE_SAMPLES))
+                .append(", \"filter\": ").append(mean(counters, RowMetrics.Timers.FILTER_NANOS, RowMetrics.Timers.FILTER_SAMPLES))
+                .append(", \"emit\": ").append(mean(counters, RowMetrics.Timers.EMIT_NANOS, RowMetrics.Timers.EMIT_SAMPLES))
+                .append("},\n");
+
+        json.append("  \"shuffle\": {")
+                .append("\"aggregatedRecords\": ").append(counters.findCounter(InMapperAggregator.Counters.AGGREGATED_RECORDS).getValue())
+                .append(", \"mapOutputRecords\": ").append(counters.findCounter(TaskCounter.MAP_OUTPUT_RECORDS).getValue())
+                .append(", \"mapOutputBytes\": ").append(counters.findCounter(TaskCounter.MAP_OUTPUT_MATERIALIZED_BYTES).getValue())
+                .append(", \"reduceInputRecords\": ").append(counters.findCounter(TaskCounter.REDUCE_INPUT_RECORDS).getValue())
+                .append("},\n");
+
+        json.append("  \"recordsPerKey\": ");
+        appendGroup(json, counters.getGroup(KeyHistogram.GROUP));
+        json.append(",\n");
+
+        json.append("  \"counters\": {");
+        separator = "\n    ";
+        for (CounterGroup group : counters) {
+            json.append(separator).append(quote(group.getDisplayName())).append(": ");
+            appendGroup(json, group);
+            separator = ",\n    ";
+        }
+        json.append("\n  }\n}\n");
+
+        Configuration conf = j.getConfiguration();
+        Path file = new Path(output, FILE);
+        FileSystem fs = file.getFileSystem(conf);
+        try (FSDataOutputStream out = fs.create(file, true)) {
+            out.write(json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * @return O tempo médio por linha cronometrada, em nanossegundos (0 sem amostras)
+     */
+    private static long mean(Counters counters, RowMetrics.Timers nanos, RowMetrics.Timers samples) {
+        long count = counters.findCounter(samples).getValue();
+        return count == 0 ? 0 : counters.findCounter(nanos).getValue() / count;
+    }
+
+    private static void appendGroup(StringBuilder json, CounterGroup group) {
+        json.append('{');
+        String separator = "";
+        for (Counter counter : group) {
+            json.append(separator).append(quote(counter.getDisplayName())).append(": ").append(counter.getValue());
+            separator = ", ";
+        }
+        json.append('}');
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,57 @@
+package TDE2;
+
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.hadoop.mapreduce.TaskType;
+
+/**
+ * Histograma de quantos registros cada chave recebeu em um Reducer, em faixas de potências de 2
+ * ("0001", "0002-0003", "0004-0007", ...), publicado no grupo de contadores GROUP no cleanup().
+ *
+ * Mostra, sem ler a saída, se a agregação no Mapper e o combiner deixaram poucas entradas por chave
+ * ou se alguma chave ainda concentra o shuffle.
+ */
+public class KeyHistogram {
+
+    public final static String GROUP = "TDE2 registros por chave";
+
+    private final TaskInputOutputContext<?, ?, ?, ?> context;
+    private final long[] keys = new long[64];  // keys[i]: chaves com 2^i a 2^(i+1)-1 registros
+    private final boolean enabled;
+
+    /**
+     * @param context O contexto da tarefa, onde os contadores são publicados
+     */
+    public KeyHistogram(TaskInputOutputContext<?, ?, ?, ?> context) {
+        this.context = context;
+        this.enabled = context.getTaskAttemptID().getTaskType() == TaskType.REDUCE;  // A mesma classe roda como combiner no map
+    }
+
+    /**
+     * @param records Os registros recebidos por uma chave (pelo menos 1)
+     */
+    public void add(long records) {
+        if (enabled) {
+            keys[63 - Long.numberOfLeadingZeros(records)]++;
+        }
+    }
+
+    /**
+     * @return O nome da faixa i, ex.: "0004-0007" (com zeros à esquerda, para as faixas ficarem em ordem)
+     */
+    static String bucket(int i) {
+        long low = 1L << i;
+        long high = i == 63 ? Long.MAX_VALUE : (low << 1) - 1;
+        return low == high ? String.format("%04d", low) : String.format("%04d-%04d", low, high);
+    }
+
+    /**
+     * Publica as faixas não vazias nos contadores da tarefa. Chamado no cleanup() do Reducer.
+     */
+    public void close() {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] > 0) {
+                context.getCounter(GROUP, bucket(i)).increment(keys[i]);
+            }
+        }
+    }
+}
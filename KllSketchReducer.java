@@ -0,0 +1,37 @@
+package TDE2;
+
+import org.apache.hadoop.mapreduce.Reducer;
+
+import java.io.IOException;
+
+/**
+ * Reducer que funde todos os sketches de quantis de uma chave em um único sketch.
+ * Como a fusão preserva o tipo e a garantia de erro, a classe serve também como combiner.
+ */
+public class KllSketchReducer<K> extends Reducer<K, KllSketchWritable, K, KllSketchWritable> {
+
+    private KllSketchWritable total = new KllSketchWritable();  // Sketch acumulado da chave
+    private KeyHistogram histogram;  // Registros recebidos por chave
+
+    @Override
+    protected void setup(Context context) {
+        histogram = new KeyHistogram(context);
+    }
+
+    @Override
+    public void reduce(K key, Iterable<KllSketchWritable> values, Context context) throws IOException, InterruptedException {
+        total.clear();
+        long records = 0;
+        for (KllSketchWritable value : values) {  // Itera sobre os sketches parciais
+            total.merge(value);
+            records++;
+        }
+        histogram.add(records);
+        context.write(key, total);  // Emite a chave com o sketch fundido
+    }
+
+    @Override
+    protected void cleanup(Context context) {
+        histogram.close();
+    }
+}
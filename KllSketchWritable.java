@@ -0,0 +1,303 @@
+package TDE2;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Sketch de quantis KLL (Karnin, Lang e Liberty) para os valores das transações.
+ *
+ * Os valores ficam em níveis: um valor no nível h representa 2^h valores originais. Quando um nível
+ * enche, ele é ordenado e metade dos valores (os de posição par ou ímpar, ao acaso) sobe para o nível
+ * seguinte. A capacidade dos níveis decresce geometricamente (fator 2/3) a partir do mais alto, então
+ * a memória é O(k log(n/k)) e o erro de posto é de cerca de 1,7/k com alta probabilidade (~1% para
+ * k = 200). Dois sketches se fundem nível a nível, então o mesmo objeto serve para o Mapper, o combiner
+ * e o Reducer. Mínimo e máximo são exatos.
+ */
+public class KllSketchWritable implements Writable {
+
+    public static final int DEFAULT_K = 200;  // Capacidade do nível mais alto
+
+    private static final double DECAY = 2.0 / 3.0;  // Razão entre as capacidades de níveis vizinhos
+    private static final int MIN_CAPACITY = 2;
+
+    private int k = DEFAULT_K;
+    private long count;                             // Valores recebidos
+    private double min = Double.POSITIVE_INFINITY;  // Menor valor
+    private double max = Double.NEGATIVE_INFINITY;  // Maior valor
+    private double[][] levels = new double[1][16];  // Valores guardados em cada nível
+    private int[] sizes = new int[1];               // Quantidade de valores em cada nível
+    private int height = 1;                         // Níveis em uso
+    private int retained;                           // Total de valores guardados
+    private int capacity;                           // Soma das capacidades dos níveis em uso
+
+    private final Random random = new Random(0x4b4c4c);  // Escolha da metade que sobe na compactação
+
+    /**
+     * Construtor vazio padrão (necessário para serialização)
+     */
+    public KllSketchWritable() {
+        capacity = totalCapacity();
+    }
+
+    /**
+     * @param k Capacidade do nível mais alto: maior k, menor erro e mais memória
+     */
+    public KllSketchWritable(int k) {
+        this.k = k;
+        capacity = totalCapacity();
+    }
+
+    /**
+     * Volta ao sketch vazio, mantendo os arrays alocados.
+     */
+    public void clear() {
+        count = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        Arrays.fill(sizes, 0);
+        height = 1;
+        retained = 0;
+        capacity = totalCapacity();
+    }
+
+    /**
+     * Acrescenta um valor ao sketch.
+     * @param value O valor da transação
+     */
+    public void add(double value) {
+        count++;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        append(0, value);
+        if (retained >= capacity) {
+            compress();
+        }
+    }
+
+    /**
+     * Funde outro sketch neste. O resultado tem a mesma garantia de erro de um sketch que tivesse
+     * recebido todos os valores dos dois.
+     * @param other O sketch parcial (não é alterado)
+     */
+    public void merge(KllSketchWritable other) {
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        while (height < other.height) {
+            grow();
+        }
+        for (int h = 0; h < other.height; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        while (retained >= capacity) {
+            compress();
+        }
+    }
+
+    private void append(int level, double value) {
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+        retained++;
+    }
+
+    /**
+     * Compacta o nível mais baixo que excedeu a capacidade, criando um nível novo se necessário.
+     */
+    private void compress() {
+        for (int h = 0; h < height; h++) {
+            if (sizes[h] >= levelCapacity(h)) {
+                if (h + 1 >= height) {
+                    grow();
+                }
+                double[] items = levels[h];
+                int size = sizes[h];
+                Arrays.sort(items, 0, size);
+                int odd = size & 1;  // Com tamanho ímpar, o maior valor fica no nível
+                int offset = random.nextBoolean() ? 1 : 0;
+                for (int i = offset; i < size - odd; i += 2) {
+                    append(h + 1, items[i]);
+                }
+                retained -= size - odd;
+                if (odd == 1) {
+                    items[0] = items[size - 1];
+                }
+                sizes[h] = odd;
+                return;
+            }
+        }
+    }
+
+    private void grow() {
+        if (height == levels.length) {
+            levels = Arrays.copyOf(levels, height + 1);
+            sizes = Arrays.copyOf(sizes, height + 1);
+            levels[height] = new double[16];
+        }
+        height++;
+        capacity = totalCapacity();
+    }
+
+    private int levelCapacity(int level) {
+        int depth = height - level - 1;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int h = 0; h < height; h++) {
+            total += levelCapacity(h);
+        }
+        return total;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return Quantos valores o sketch guarda (a memória usada, independente de getCount())
+     */
+    public int getRetained() {
+        return retained;
+    }
+
+    /**
+     * Estima o quantil q: o menor valor guardado cujo posto acumulado (com os pesos dos níveis) alcança q × n.
+     * @param q A fração desejada, entre 0 e 1 (ex.: 0.5 para a mediana)
+     * @return O valor estimado (NaN para um sketch vazio)
+     */
+    public double getQuantile(double q) {
+        return getQuantiles(q)[0];
+    }
+
+    /**
+     * Estima vários quantis com uma única ordenação dos valores guardados.
+     * @param qs As frações desejadas, entre 0 e 1
+     * @return Os valores estimados, na ordem de qs
+     */
+    public double[] getQuantiles(double... qs) {
+        double[] result = new double[qs.length];
+        if (count == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+
+        // Ordena (valor, peso) de todos os níveis; o peso de um valor no nível h é 2^h
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int n = 0;
+        for (int h = 0; h < height; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[n] = levels[h][i];
+                weights[n++] = 1L << h;
+            }
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        for (int r = 0; r < qs.length; r++) {
+            double q = qs[r];
+            if (q <= 0) {
+                result[r] = min;
+                continue;
+            }
+            if (q >= 1) {
+                result[r] = max;
+                continue;
+            }
+            double target = q * count;
+            long cumulative = 0;
+            result[r] = max;
+            for (int i = 0; i < n; i++) {
+                cumulative += weights[order[i]];
+                if (cumulative >= target) {
+                    result[r] = values[order[i]];
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void write(DataOutput dataOutput) throws IOException {
+        WritableUtils.writeVInt(dataOutput, k);
+        WritableUtils.writeVLong(dataOutput, count);
+        dataOutput.writeDouble(min);
+        dataOutput.writeDouble(max);
+        WritableUtils.writeVInt(dataOutput, height);
+        for (int h = 0; h < height; h++) {
+            WritableUtils.writeVInt(dataOutput, sizes[h]);
+            for (int i = 0; i < sizes[h]; i++) {
+                dataOutput.writeDouble(levels[h][i]);
+            }
+        }
+    }
+
+    @Override
+    public void readFields(DataInput dataInput) throws IOException {
+        k = WritableUtils.readVInt(dataInput);
+        count = WritableUtils.readVLong(dataInput);
+        min = dataInput.readDouble();
+        max = dataInput.readDouble();
+        int levelCount = WritableUtils.readVInt(dataInput);
+        if (levels.length < levelCount) {
+            levels = Arrays.copyOf(levels, levelCount);
+            sizes = Arrays.copyOf(sizes, levelCount);
+        }
+        Arrays.fill(sizes, 0);
+        height = levelCount;
+        retained = 0;
+        for (int h = 0; h < levelCount; h++) {
+            int size = WritableUtils.readVInt(dataInput);
+            if (levels[h] == null || levels[h].length < size) {
+                levels[h] = new double[Math.max(16, size)];
+            }
+            for (int i = 0; i < size; i++) {
+                levels[h][i] = dataInput.readDouble();
+            }
+            sizes[h] = size;
+            retained += size;
+        }
+        capacity = totalCapacity();
+    }
+
+    /**
+     * Fornece uma representação legível dos percentis usados nas análises.
+     * @return A string com contagem, mínimo, P50, P90, P99 e máximo
+     */
+    @Override
+    public String toString() {
+        double[] p = getQuantiles(0.5, 0.9, 0.99);
+        return "Count: " + count + ", Min: " + min + ", P50: " + p[0] + ", P90: " + p[1] + ", P99: " + p[2]
+                + ", Max: " + max;
+    }
+}
@@ -0,0 +1,73 @@
+package TDE2;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Uma linha do arquivo como trecho de um array de bytes, sem cópia: o MappedTradeInputFormat aponta
+ * o mesmo objeto para cada linha da sua janela de leitura. O conteúdo só é válido até a próxima linha.
+ */
+public class LineSlice implements Writable {
+
+    private byte[] bytes = new byte[0];  // Array apontado: a janela do leitor (set()) ou owned (readFields())
+    private byte[] owned = new byte[0];  // Array próprio, o único onde readFields() escreve
+    private int offset;
+    private int length;
+
+    /**
+     * Construtor vazio padrão (necessário para serialização)
+     */
+    public LineSlice() {
+    }
+
+    /**
+     * Aponta para um trecho de um array, sem copiar.
+     * @param bytes O array com a linha
+     * @param offset O início da linha
+     * @param length O tamanho da linha em bytes, sem o terminador
+     */
+    public void set(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public void write(DataOutput dataOutput) throws IOException {
+        WritableUtils.writeVInt(dataOutput, length);
+        dataOutput.write(bytes, offset, length);
+    }
+
+    @Override
+    public void readFields(DataInput dataInput) throws IOException {
+        length = WritableUtils.readVInt(dataInput);
+        if (owned.length < length) {
+            owned = new byte[length];
+        }
+        dataInput.readFully(owned, 0, length);  // Nunca na janela compartilhada que set() possa ter apontado
+        bytes = owned;
+        offset = 0;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,519 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.serializer.SerializationFactory;
+import org.apache.hadoop.io.serializer.Serializer;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.JobStatus;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.TaskID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
+import org.apache.hadoop.mapreduce.task.JobContextImpl;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.IndexedSortable;
+import org.apache.hadoop.util.Progress;
+import org.apache.hadoop.util.QuickSort;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executa um job configurado dentro da própria JVM, sem LocalJobRunner: a entrada é dividida por faixa de
+ * bytes entre todos os núcleos, os Mappers do job rodam em paralelo (cada thread com a sua agregação no
+ * Mapper e o seu combiner), as saídas são ordenadas pelo comparator do job e os Reducers gravam pelo
+ * OutputFormat e pelo committer do próprio job, produzindo os mesmos arquivos da execução no Hadoop.
+ *
+ * Ativado nos drivers com "-D tde2.local.engine=true"; toda a saída dos Mappers fica em memória.
+ */
+public class LocalTradeEngine {
+
+    public final static String ENABLED = "tde2.local.engine";
+    public final static String THREADS = "tde2.local.engine.threads";
+
+    private static final Logger LOG = Logger.getLogger(LocalTradeEngine.class);
+
+    private final Job job;
+    private final JobConf conf;
+    private final JobID jobId = new JobID("local", 1);
+    private final JobContext jobContext;
+    private final int threads;
+    private final Counters counters = new Counters();
+
+    public LocalTradeEngine(Job job) {
+        this.job = job;
+        this.conf = (JobConf) job.getConfiguration();
+        this.jobContext = new JobContextImpl(conf, jobId);
+        this.threads = conf.getInt(THREADS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param conf A configuração do job
+     * @return true se o job deve rodar no motor local
+     */
+    public static boolean isEnabled(Configuration conf) {
+        return conf.getBoolean(ENABLED, false);
+    }
+
+    /**
+     * @return Os contadores somados de todas as tarefas
+     */
+    public Counters getCounters() {
+        return counters;
+    }
+
+    /**
+     * Executa o job até o fim.
+     * @return true se o job terminou com sucesso (a saída só é confirmada nesse caso)
+     */
+    public boolean run() throws IOException, InterruptedException, ClassNotFoundException {
+        long start = System.currentTimeMillis();
+        OutputFormat<?, ?> jobOutput = ReflectionUtils.newInstance(jobContext.getOutputFormatClass(), conf);
+        jobOutput.checkOutputSpecs(jobContext);
+        OutputCommitter jobCommitter = jobOutput.getOutputCommitter(attemptContext(TaskType.JOB_SETUP, 0));
+        jobCommitter.setupJob(jobContext);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<InputSplit> splits = getSplits();
+            int reduces = job.getNumReduceTasks();
+            List<Callable<RecordBuffer>> mapTasks = new ArrayList<>();
+            for (int i = 0; i < splits.size(); i++) {
+                int task = i;
+                mapTasks.add(() -> runMap(task, splits.get(task), reduces));
+            }
+            List<RecordBuffer> mapOutputs = invokeAll(pool, mapTasks);
+
+            List<Callable<Void>> reduceTasks = new ArrayList<>();
+            for (int i = 0; i < reduces; i++) {
+                int partition = i;
+                reduceTasks.add(() -> {
+                    runReduce(partition, mapOutputs);
+                    return null;
+                });
+            }
+            invokeAll(pool, reduceTasks);
+
+            jobCommitter.commitJob(jobContext);
+            LOG.info(String.format("%s: %d splits e %d reduces em %d threads, %d ms",
+                    job.getJobName(), splits.size(), reduces, threads, System.currentTimeMillis() - start));
+            return true;
+        } catch (ExecutionException e) {
+            LOG.error(job.getJobName() + ": tarefa falhou", e.getCause());
+            jobCommitter.abortJob(jobContext, JobStatus.State.FAILED);
+            return false;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Gera os splits pelo InputFormat do job, limitando o tamanho de cada um para que haja
+     * pelo menos um split por thread (a menos que o job já defina o tamanho máximo).
+     */
+    private List<InputSplit> getSplits() throws IOException, InterruptedException, ClassNotFoundException {
+        if (conf.get(FileInputFormat.SPLIT_MAXSIZE) == null) {
+            long total = 0;
+            for (Path path : getInputPaths()) {
+                FileSystem fs = path.getFileSystem(conf);
+                if (fs.exists(path)) {
+                    total += fs.getContentSummary(path).getLength();
+                }
+            }
+            FileInputFormat.setMaxInputSplitSize(job, Math.max(1, (total + threads - 1) / threads));
+        }
+        InputFormat<?, ?> input = ReflectionUtils.newInstance(jobContext.getInputFormatClass(), conf);
+        return input.getSplits(jobContext);
+    }
+
+    /**
+     * @return Os caminhos de entrada do job, incluindo os registrados pelo MultipleInputs
+     */
+    private List<Path> getInputPaths() {
+        List<Path> paths = new ArrayList<>(Arrays.asList(FileInputFormat.getInputPaths(jobContext)));
+        String tagged = conf.get(MultipleInputs.DIR_FORMATS);
+        if (tagged != null) {
+            for (String mapping : tagged.split(",")) {  // "<caminho>;<InputFormat>", como no MultipleInputs
+                paths.add(new Path(mapping.split(";")[0]));
+            }
+        }
+        return paths;
+    }
+
+    private static <T> List<T> invokeAll(ExecutorService pool, List<Callable<T>> tasks)
+            throws InterruptedException, ExecutionException {
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : pool.invokeAll(tasks)) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private TaskAttemptContext attemptContext(TaskType type, int task) {
+        return new TaskAttemptContextImpl(conf, new TaskAttemptID(new TaskID(jobId, type, task), 0));
+    }
+
+    /**
+     * Roda um Mapper sobre o split. Com reduces, a saída é ordenada e passa pelo combiner do job;
+     * num job só de map, é gravada diretamente pela saída do job.
+     * @return A saída ordenada por partição e chave (null num job só de map)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private RecordBuffer runMap(int task, InputSplit split, int reduces) throws Exception {
+        JobConf taskConf = new JobConf(conf);
+        taskConf.setInt(MRJobConfig.TASK_PARTITION, task);  // Como no MapTask do Hadoop
+        TaskAttemptContext attempt = new TaskAttemptContextImpl(taskConf, new TaskAttemptID(new TaskID(jobId, TaskType.MAP, task), 0));
+        TaskContexts.CounterReporter reporter = new TaskContexts.CounterReporter();
+        InputFormat input = ReflectionUtils.newInstance(attempt.getInputFormatClass(), taskConf);
+        RecordReader reader = new CountingReader(input.createRecordReader(split, attempt),
+                reporter.getCounter(TaskCounter.MAP_INPUT_RECORDS));
+        Mapper mapper = ReflectionUtils.newInstance(attempt.getMapperClass(), taskConf);
+
+        if (reduces == 0) {
+            runTask(attempt, reporter, (writer, committer) -> {
+                Mapper.Context context = TaskContexts.mapContext(taskConf, attempt.getTaskAttemptID(), reader, writer,
+                        committer, reporter, split);
+                reader.initialize(split, context);
+                mapper.run(context);
+                reader.close();
+            });
+            addCounters(reporter);
+            return null;
+        }
+
+        RecordBuffer output = new RecordBuffer(taskConf, attempt.getMapOutputKeyClass(), attempt.getMapOutputValueClass(),
+                attempt.getSortComparator());
+        Partitioner partitioner = ReflectionUtils.newInstance(attempt.getPartitionerClass(), taskConf);
+        Counter mapOutputRecords = reporter.getCounter(TaskCounter.MAP_OUTPUT_RECORDS);
+        Mapper.Context context = TaskContexts.mapContext(taskConf, attempt.getTaskAttemptID(), reader,
+                new RecordWriter<Object, Object>() {
+                    @Override
+                    public void write(Object key, Object value) throws IOException {
+                        output.add(reduces == 1 ? 0 : partitioner.getPartition(key, value, reduces), key, value);
+                        mapOutputRecords.increment(1);
+                    }
+
+                    @Override
+                    public void close(TaskAttemptContext context) {
+                    }
+                }, null, reporter, split);
+        reader.initialize(split, context);
+        mapper.run(context);
+        reader.close();
+        output.sort();
+
+        RecordBuffer mapOutput = attempt.getCombinerClass() == null ? output : combine(attempt, reporter, output, reduces);
+        addCounters(reporter);
+        return mapOutput;
+    }
+
+    private void addCounters(TaskContexts.CounterReporter reporter) {
+        synchronized (counters) {
+            counters.incrAllCounters(reporter.getCounters());
+        }
+    }
+
+    /**
+     * Passa cada partição da saída do Mapper pelo combiner, na mesma thread.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private RecordBuffer combine(TaskAttemptContext attempt, TaskContexts.CounterReporter reporter, RecordBuffer output,
+            int reduces) throws Exception {
+        Configuration taskConf = attempt.getConfiguration();
+        RecordBuffer combined = new RecordBuffer(taskConf, attempt.getMapOutputKeyClass(), attempt.getMapOutputValueClass(),
+                attempt.getSortComparator());
+        Counter combineOutputRecords = reporter.getCounter(TaskCounter.COMBINE_OUTPUT_RECORDS);
+        for (int partition = 0; partition < reduces; partition++) {
+            int target = partition;
+            Reducer combiner = ReflectionUtils.newInstance(attempt.getCombinerClass(), taskConf);
+            Reducer.Context context = TaskContexts.reduceContext(taskConf, attempt.getTaskAttemptID(),
+                    output.iterator(partition), null, reporter.getCounter(TaskCounter.COMBINE_INPUT_RECORDS),
+                    new RecordWriter<Object, Object>() {
+                        @Override
+                        public void write(Object key, Object value) throws IOException {
+                            combined.add(target, key, value);
+                            combineOutputRecords.increment(1);
+                        }
+
+                        @Override
+                        public void close(TaskAttemptContext context) {
+                        }
+                    }, null, reporter, (RawComparator) attempt.getCombinerKeyGroupingComparator(),
+                    (Class) attempt.getMapOutputKeyClass(), (Class) attempt.getMapOutputValueClass());
+            combiner.run(context);
+        }
+        combined.sort();
+        return combined;
+    }
+
+    /**
+     * Junta a partição de todas as saídas dos Mappers, ordena e roda o Reducer do job sobre ela.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void runReduce(int partition, List<RecordBuffer> mapOutputs) throws Exception {
+        JobConf taskConf = new JobConf(conf);
+        TaskAttemptContext attempt = new TaskAttemptContextImpl(taskConf,
+                new TaskAttemptID(new TaskID(jobId, TaskType.REDUCE, partition), 0));
+        TaskContexts.CounterReporter reporter = new TaskContexts.CounterReporter();
+
+        RecordBuffer input = new RecordBuffer(taskConf, attempt.getMapOutputKeyClass(), attempt.getMapOutputValueClass(),
+                attempt.getSortComparator());
+        for (RecordBuffer mapOutput : mapOutputs) {
+            mapOutput.copyPartition(partition, input);
+        }
+        input.sort();
+
+        Reducer reducer = ReflectionUtils.newInstance(attempt.getReducerClass(), taskConf);
+        runTask(attempt, reporter, (writer, committer) -> {
+            Reducer.Context context = TaskContexts.reduceContext(taskConf, attempt.getTaskAttemptID(), input.iterator(partition),
+                    reporter.getCounter(TaskCounter.REDUCE_INPUT_GROUPS), reporter.getCounter(TaskCounter.REDUCE_INPUT_RECORDS),
+                    writer, committer, reporter, (RawComparator) attempt.getGroupingComparator(),
+                    (Class) attempt.getMapOutputKeyClass(), (Class) attempt.getMapOutputValueClass());
+            reducer.run(context);
+        });
+        addCounters(reporter);
+    }
+
+    /**
+     * Corpo de uma tarefa que grava pela saída do job.
+     */
+    private interface OutputTask {
+        @SuppressWarnings("rawtypes")
+        void run(RecordWriter writer, OutputCommitter committer) throws Exception;
+    }
+
+    /**
+     * Executa a tarefa entre setupTask e commitTask do committer do job, com um OutputFormat próprio
+     * (o FileOutputFormat guarda o committer, e com ele o diretório de trabalho, da primeira tentativa que o usa).
+     */
+    @SuppressWarnings("rawtypes")
+    private void runTask(TaskAttemptContext attempt, TaskContexts.CounterReporter reporter, OutputTask task) throws Exception {
+        OutputFormat output = ReflectionUtils.newInstance(attempt.getOutputFormatClass(), attempt.getConfiguration());
+        OutputCommitter committer = output.getOutputCommitter(attempt);
+        committer.setupTask(attempt);
+        try {
+            RecordWriter writer = output.getRecordWriter(attempt);
+            task.run(writer, committer);
+            writer.close(attempt);
+            if (committer.needsTaskCommit(attempt)) {
+                committer.commitTask(attempt);
+            }
+        } catch (Exception e) {
+            committer.abortTask(attempt);
+            throw e;
+        }
+    }
+
+    /**
+     * Pares serializados em memória, ordenáveis por (partição, chave) com o comparator bruto do job.
+     * Cada registro ocupa quatro posições em meta: partição, início da chave, início do valor e fim.
+     */
+    private static class RecordBuffer implements IndexedSortable {
+
+        private final DataOutputBuffer data = new DataOutputBuffer();
+        private final Serializer<Object> keySerializer;
+        private final Serializer<Object> valueSerializer;
+        private final RawComparator<?> comparator;
+        private int[] meta = new int[4 * 1024];
+        private int[] order = new int[1024];  // Índices dos registros na ordem de saída
+        private int count;
+
+        @SuppressWarnings("unchecked")
+        RecordBuffer(Configuration conf, Class<?> keyClass, Class<?> valueClass, RawComparator<?> comparator) throws IOException {
+            SerializationFactory serialization = new SerializationFactory(conf);
+            this.keySerializer = serialization.getSerializer((Class<Object>) keyClass);
+            this.valueSerializer = serialization.getSerializer((Class<Object>) valueClass);
+            this.keySerializer.open(data);
+            this.valueSerializer.open(data);
+            this.comparator = comparator;
+        }
+
+        void add(int partition, Object key, Object value) throws IOException {
+            int keyStart = data.getLength();
+            keySerializer.serialize(key);
+            int valueStart = data.getLength();
+            valueSerializer.serialize(value);
+            append(partition, keyStart, valueStart, data.getLength());
+        }
+
+        private void append(int partition, int keyStart, int valueStart, int end) {
+            if (4 * count == meta.length) {
+                meta = Arrays.copyOf(meta, 2 * meta.length);
+                order = Arrays.copyOf(order, 2 * order.length);
+            }
+            int m = 4 * count;
+            meta[m] = partition;
+            meta[m + 1] = keyStart;
+            meta[m + 2] = valueStart;
+            meta[m + 3] = end;
+            order[count] = count;
+            count++;
+        }
+
+        /**
+         * Acrescenta a outro buffer os registros de uma partição, sem desserializar.
+         */
+        void copyPartition(int partition, RecordBuffer target) throws IOException {
+            for (int i = 0; i < count; i++) {
+                int m = 4 * order[i];
+                if (meta[m] != partition) {
+                    continue;
+                }
+                int base = target.data.getLength();
+                target.data.write(data.getData(), meta[m + 1], meta[m + 3] - meta[m + 1]);
+                target.append(partition, base, base + meta[m + 2] - meta[m + 1], base + meta[m + 3] - meta[m + 1]);
+            }
+        }
+
+        void sort() {
+            if (count > 1) {  // O QuickSort do Hadoop não aceita faixas vazias
+                new QuickSort().sort(this, 0, count);
+            }
+        }
+
+        @Override
+        public int compare(int i, int j) {
+            int mi = 4 * order[i];
+            int mj = 4 * order[j];
+            if (meta[mi] != meta[mj]) {
+                return Integer.compare(meta[mi], meta[mj]);
+            }
+            byte[] bytes = data.getData();
+            return comparator.compare(bytes, meta[mi + 1], meta[mi + 2] - meta[mi + 1],
+                    bytes, meta[mj + 1], meta[mj + 2] - meta[mj + 1]);
+        }
+
+        @Override
+        public void swap(int i, int j) {
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        /**
+         * @return Os registros ordenados de uma partição, no formato lido pelo ReduceContextImpl
+         */
+        RawKeyValueIterator iterator(int partition) {
+            return new RawKeyValueIterator() {
+                private final DataInputBuffer key = new DataInputBuffer();
+                private final DataInputBuffer value = new DataInputBuffer();
+                private final Progress progress = new Progress();
+                private int next = 0;
+
+                @Override
+                public DataInputBuffer getKey() {
+                    return key;
+                }
+
+                @Override
+                public DataInputBuffer getValue() {
+                    return value;
+                }
+
+                @Override
+                public boolean next() {
+                    while (next < count && meta[4 * order[next]] != partition) {
+                        next++;
+                    }
+                    if (next == count) {
+                        return false;
+                    }
+                    int m = 4 * order[next++];
+                    key.reset(data.getData(), meta[m + 1], meta[m + 2] - meta[m + 1]);
+                    value.reset(data.getData(), meta[m + 2], meta[m + 3] - meta[m + 2]);
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+
+                @Override
+                public Progress getProgress() {
+                    return progress;
+                }
+            };
+        }
+    }
+
+    /**
+     * RecordReader que conta os registros lidos em MAP_INPUT_RECORDS, como o MapTask do Hadoop.
+     */
+    private static class CountingReader<K, V> extends RecordReader<K, V> {
+
+        private final RecordReader<K, V> reader;
+        private final Counter inputRecords;
+
+        CountingReader(RecordReader<K, V> reader, Counter inputRecords) {
+            this.reader = reader;
+            this.inputRecords = inputRecords;
+        }
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+            reader.initialize(split, context);
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException, InterruptedException {
+            boolean next = reader.nextKeyValue();
+            if (next) {
+                inputRecords.increment(1);
+            }
+            return next;
+        }
+
+        @Override
+        public K getCurrentKey() throws IOException, InterruptedException {
+            return reader.getCurrentKey();
+        }
+
+        @Override
+        public V getCurrentValue() throws IOException, InterruptedException {
+            return reader.getCurrentValue();
+        }
+
+        @Override
+        public float getProgress() throws IOException, InterruptedException {
+            return reader.getProgress();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.io.serializer.SerializationFactory;
+import org.apache.hadoop.io.serializer.Serializer;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.task.JobContextImpl;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Amostra da saída do Mapper de um job, coletada antes da submissão.
+ *
+ * O Mapper do job roda sobre as primeiras linhas de alguns splits espaçados pela entrada, sem a agregação
+ * no Mapper, e a amostra guarda quantos registros cada chave recebeu e quantos bytes eles ocupariam no
+ * shuffle. A fração lida de cada split (pelo getProgress() do leitor) permite extrapolar para a entrada toda.
+ */
+public class MapOutputSample {
+
+    public final static String RECORDS = "tde2.sample.map.records";  // Linhas lidas na amostragem
+    public final static String SPLITS = "tde2.sample.map.splits";    // Splits lidos na amostragem
+
+    private final Map<Object, long[]> counts = new HashMap<>();  // Registros de cada chave
+    private long records;
+    private long bytes;
+    private int splits;
+    private double fraction;  // Fração da entrada lida
+
+    private MapOutputSample() {
+    }
+
+    /**
+     * Roda o Mapper do job sobre uma amostra da entrada.
+     * @param j O job configurado
+     * @return A amostra da saída do Mapper
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static MapOutputSample collect(Job j) throws IOException, InterruptedException, ClassNotFoundException {
+        Configuration conf = new Configuration(j.getConfiguration());
+        conf.setInt(InMapperAggregator.MAX_ENTRIES, 0);  // Sem agregação, cada linha gera seus registros: mede a carga antes do combiner
+
+        JobContextImpl jobContext = new JobContextImpl(conf, new JobID("sample", 0));
+        InputFormat input = ReflectionUtils.newInstance(jobContext.getInputFormatClass(), conf);
+        List<InputSplit> splits = input.getSplits(jobContext);
+        int sampled = Math.min(splits.size(), conf.getInt(SPLITS, 10));
+        int perSplit = Math.max(1, conf.getInt(RECORDS, 10000) / Math.max(1, sampled));
+
+        MapOutputSample sample = new MapOutputSample();
+        sample.splits = splits.size();
+        SerializationFactory factory = new SerializationFactory(conf);
+        Serializer<Object> keys = factory.getSerializer((Class<Object>) jobContext.getMapOutputKeyClass());
+        Serializer<Object> values = factory.getSerializer((Class<Object>) jobContext.getMapOutputValueClass());
+        DataOutputBuffer buffer = new DataOutputBuffer();
+        keys.open(buffer);
+        values.open(buffer);
+        RecordWriter writer = new RecordWriter<Object, Object>() {
+            @Override
+            public void write(Object key, Object value) throws IOException {
+                long[] count = sample.counts.get(key);
+                if (count == null) {
+                    count = new long[1];
+                    sample.counts.put(WritableUtils.clone((Writable) key, conf), count);
+                }
+                count[0]++;
+                sample.records++;
+                buffer.reset();
+                keys.serialize(key);
+                values.serialize(value);
+                sample.bytes += buffer.getLength();
+            }
+
+            @Override
+            public void close(TaskAttemptContext context) {
+            }
+        };
+
+        long totalLength = 0;
+        double readLength = 0;
+        for (InputSplit split : splits) {
+            totalLength += split.getLength();
+        }
+        for (int s = 0; s < sampled; s++) {
+            InputSplit split = splits.get((int) ((long) s * splits.size() / sampled));  // Splits espaçados pela entrada
+            TaskAttemptContext attempt = new TaskAttemptContextImpl(conf, new TaskAttemptID(new TaskID(jobContext.getJobID(), TaskType.MAP, s), 0));
+            LimitedReader reader = new LimitedReader(input.createRecordReader(split, attempt), perSplit);
+            Mapper mapper = ReflectionUtils.newInstance(jobContext.getMapperClass(), conf);
+            Mapper.Context context = TaskContexts.mapContext(conf, attempt.getTaskAttemptID(), reader, writer,
+                    null, new TaskContexts.CounterReporter(), split);
+            reader.initialize(split, context);
+            mapper.run(context);
+            readLength += reader.getProgress() * split.getLength();
+            reader.close();
+        }
+        sample.fraction = totalLength == 0 ? 1 : Math.min(1, Math.max(readLength, 1) / totalLength);
+        return sample;
+    }
+
+    /**
+     * @return Os registros de cada chave na amostra (as chaves são cópias)
+     */
+    public Map<Object, long[]> getCounts() {
+        return counts;
+    }
+
+    /**
+     * @return Os registros emitidos pelo Mapper na amostra
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * @return Os registros que o Mapper emitiria sobre a entrada toda, sem agregação
+     */
+    public double getEstimatedRecords() {
+        return records / fraction;
+    }
+
+    /**
+     * @return O tamanho médio de um registro serializado (chave e valor), em bytes
+     */
+    public double getAverageRecordBytes() {
+        return records == 0 ? 0 : (double) bytes / records;
+    }
+
+    /**
+     * Estima as chaves distintas da entrada toda pelo estimador Chao1: as chaves vistas uma única vez
+     * indicam quantas a amostra deixou de ver.
+     * @return A quantidade estimada de chaves distintas
+     */
+    public double getEstimatedKeys() {
+        long once = 0;
+        long twice = 0;
+        for (long[] count : counts.values()) {
+            if (count[0] == 1) {
+                once++;
+            } else if (count[0] == 2) {
+                twice++;
+            }
+        }
+        double unseen = twice > 0 ? once * (double) once / (2 * twice) : once * (once - 1) / 2.0;
+        return Math.min(counts.size() + unseen, Math.max(counts.size(), getEstimatedRecords()));
+    }
+
+    /**
+     * @return A quantidade de splits (tarefas de map) do job
+     */
+    public int getSplits() {
+        return splits;
+    }
+
+    /**
+     * Encerra a leitura de um split depois de um número fixo de registros.
+     */
+    private static class LimitedReader<K, V> extends RecordReader<K, V> {
+
+        private final RecordReader<K, V> reader;
+        private long remaining;
+
+        LimitedReader(RecordReader<K, V> reader, long limit) {
+            this.reader = reader;
+            this.remaining = limit;
+        }
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+            reader.initialize(split, context);
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException, InterruptedException {
+            return remaining-- > 0 && reader.nextKeyValue();
+        }
+
+        @Override
+        public K getCurrentKey() throws IOException, InterruptedException {
+            return reader.getCurrentKey();
+        }
+
+        @Override
+        public V getCurrentValue() throws IOException, InterruptedException {
+            return reader.getCurrentValue();
+        }
+
+        @Override
+        public float getProgress() throws IOException, InterruptedException {
+            return reader.getProgress();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
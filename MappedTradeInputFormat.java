@@ -0,0 +1,213 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lê o CSV local por mapeamento em memória (FileChannel.map) em vez do LineRecordReader.
+ *
+ * Cada arquivo é dividido em um split por núcleo, com as fronteiras ajustadas para logo depois de um "\n",
+ * de forma que nenhuma linha atravessa dois splits. O reader copia o trecho mapeado em blocos para uma
+ * janela reutilizada e entrega cada linha como um LineSlice apontando para a janela: não há read() por
+ * linha nem cópia para um Text. Ativado nos drivers com "-D tde2.mapped.input=true"; só lê arquivos do
+ * sistema de arquivos local e sem compressão.
+ */
+public class MappedTradeInputFormat extends FileInputFormat<LongWritable, LineSlice> {
+
+    public final static String ENABLED = "tde2.mapped.input";
+    public final static String SPLITS = "tde2.mapped.splits";  // Splits por arquivo; padrão: núcleos disponíveis
+
+    private final static long MAX_SPLIT = 1L << 30;      // Um FileChannel.map aceita no máximo 2 GB
+    private final static int WINDOW_BYTES = 4 << 20;     // Janela copiada do mapeamento a cada recarga
+    private final static int SCAN_BYTES = 64 << 10;      // Leitura para achar o fim de linha na fronteira
+
+    private static final Logger LOG = Logger.getLogger(MappedTradeInputFormat.class);
+
+    /**
+     * @param conf A configuração do job
+     * @return true se a entrada em texto deve ser lida por mapeamento
+     */
+    public static boolean isEnabled(Configuration conf) {
+        return conf.getBoolean(ENABLED, false);
+    }
+
+    @Override
+    public List<InputSplit> getSplits(JobContext job) throws IOException {
+        Configuration conf = job.getConfiguration();
+        int perFile = conf.getInt(SPLITS, Runtime.getRuntime().availableProcessors());
+        long maxSize = getMaxSplitSize(job);
+        CompressionCodecFactory codecs = new CompressionCodecFactory(conf);
+        List<InputSplit> splits = new ArrayList<>();
+
+        for (FileStatus file : listStatus(job)) {
+            Path path = file.getPath();
+            long length = file.getLen();
+            if (codecs.getCodec(path) != null) {
+                throw new IOException("Arquivo comprimido não pode ser mapeado: " + path);
+            }
+            if (length == 0) {
+                continue;
+            }
+            long size = Math.min(Math.min((length + perFile - 1) / perFile, maxSize), MAX_SPLIT);
+            FileSystem fs = path.getFileSystem(conf);
+            try (FSDataInputStream in = fs.open(path)) {
+                long start = 0;
+                while (start < length) {
+                    long end = start + size >= length ? length : nextLineStart(in, start + size, length);
+                    splits.add(makeSplit(path, start, end - start, new String[0]));
+                    start = end;
+                }
+            }
+        }
+        LOG.info(String.format("%d splits alinhados por linha", splits.size()));
+        return splits;
+    }
+
+    /**
+     * Procura o início da primeira linha que começa em position ou depois.
+     * @return O deslocamento logo após o "\n" (ou o tamanho do arquivo, se não houver mais linhas)
+     */
+    private static long nextLineStart(FSDataInputStream in, long position, long length) throws IOException {
+        byte[] buffer = new byte[SCAN_BYTES];
+        long offset = position - 1;  // Se o byte anterior já é "\n", a fronteira fica exatamente em position
+        while (offset < length) {
+            int n = (int) Math.min(buffer.length, length - offset);
+            in.readFully(offset, buffer, 0, n);
+            for (int i = 0; i < n; i++) {
+                if (buffer[i] == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += n;
+        }
+        return length;
+    }
+
+    @Override
+    public RecordReader<LongWritable, LineSlice> createRecordReader(InputSplit split, TaskAttemptContext context) {
+        return new MappedLineRecordReader();
+    }
+
+    /**
+     * Entrega as linhas de um split (chave: deslocamento da linha no arquivo, como no TextInputFormat).
+     * Terminadores "\n" e "\r\n" são removidos; a última linha pode não ter terminador.
+     */
+    public static class MappedLineRecordReader extends RecordReader<LongWritable, LineSlice> {
+
+        private final LongWritable key = new LongWritable();
+        private final LineSlice value = new LineSlice();
+
+        private MappedByteBuffer mapped;  // Trecho do arquivo correspondente ao split
+        private long start;
+        private long length;
+        private byte[] window;      // Cópia do trecho atual do mapeamento
+        private long windowOffset;  // Posição no arquivo de window[0]
+        private int pos;            // Início da próxima linha na janela
+        private int limit;          // Bytes válidos na janela
+
+        @Override
+        public void initialize(InputSplit genericSplit, TaskAttemptContext context) throws IOException {
+            FileSplit split = (FileSplit) genericSplit;
+            Path path = split.getPath();
+            Configuration conf = context.getConfiguration();
+            if (!"file".equals(path.getFileSystem(conf).getUri().getScheme())) {
+                throw new IOException("O mapeamento só lê arquivos locais: " + path);
+            }
+            File file = FileSystem.getLocal(conf).pathToFile(path);
+            start = split.getStart();
+            length = split.getLength();
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);  // Continua válido após o close
+            }
+            window = new byte[(int) Math.max(1, Math.min(WINDOW_BYTES, length))];
+            windowOffset = start;
+            pos = 0;
+            limit = 0;
+        }
+
+        @Override
+        public boolean nextKeyValue() {
+            int scan = pos;
+            while (true) {
+                for (int i = scan; i < limit; i++) {
+                    if (window[i] == '\n') {
+                        emit(pos, i);
+                        pos = i + 1;
+                        return true;
+                    }
+                }
+                scan = limit;
+                if (!mapped.hasRemaining()) {
+                    if (pos < limit) {  // Última linha sem terminador
+                        emit(pos, limit);
+                        pos = limit;
+                        return true;
+                    }
+                    return false;
+                }
+
+                // Move a linha incompleta para o início da janela e completa com o próximo trecho
+                int pending = limit - pos;
+                if (pending == window.length) {
+                    window = Arrays.copyOf(window, window.length * 2);  // Linha maior que a janela
+                } else {
+                    System.arraycopy(window, pos, window, 0, pending);
+                }
+                windowOffset += pos;
+                scan -= pos;
+                pos = 0;
+                limit = pending;
+                int n = Math.min(window.length - limit, mapped.remaining());
+                mapped.get(window, limit, n);
+                limit += n;
+            }
+        }
+
+        private void emit(int from, int to) {
+            int end = to > from && window[to - 1] == '\r' ? to - 1 : to;
+            key.set(windowOffset + from);
+            value.set(window, from, end - from);
+        }
+
+        @Override
+        public LongWritable getCurrentKey() {
+            return key;
+        }
+
+        @Override
+        public LineSlice getCurrentValue() {
+            return value;
+        }
+
+        @Override
+        public float getProgress() {
+            return length == 0 ? 1.0f : (windowOffset + pos - start) / (float) length;
+        }
+
+        @Override
+        public void close() {
+            mapped = null;  // O mapeamento é liberado pelo coletor de lixo
+        }
+    }
+}
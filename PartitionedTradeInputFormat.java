@@ -0,0 +1,89 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * InputFormat de texto para o layout gerado pelo TradeRepartitioner. Em vez de ler o CSV inteiro, o driver
+ * chama addInputPartitions(), que adiciona à entrada apenas os diretórios country=/year= aceitos pelo
+ * filtro declarado (TradePredicate). As linhas lidas são as do CSV original, então os Mappers não mudam.
+ */
+public class PartitionedTradeInputFormat extends TextInputFormat {
+
+    public static final String INPUT = "tde2.partitioned.input";  // Raiz das partições usada no lugar do CSV
+
+    private static final Logger LOG = Logger.getLogger(PartitionedTradeInputFormat.class);
+
+    /**
+     * Adiciona à entrada do job as partições que satisfazem o filtro de país e ano declarado na configuração.
+     * @param job O job a configurar
+     * @param root A raiz das partições
+     * @return A quantidade de partições adicionadas
+     */
+    public static int addInputPartitions(Job job, Path root) throws IOException {
+        Configuration conf = job.getConfiguration();
+        TradePredicate predicate = TradePredicate.get(conf);
+        FileSystem fs = root.getFileSystem(conf);
+        Text country = new Text();
+
+        int total = 0;
+        int added = 0;
+        for (FileStatus countryDir : fs.listStatus(root)) {
+            String countryName = countryDir.getPath().getName();
+            if (!countryDir.isDirectory() || !countryName.startsWith(TradeRepartitioner.COUNTRY_PREFIX)) {
+                continue;  // _SUCCESS e demais arquivos do job
+            }
+            country.set(TradeRepartitioner.unescape(countryName.substring(TradeRepartitioner.COUNTRY_PREFIX.length())));
+
+            for (FileStatus yearDir : fs.listStatus(countryDir.getPath())) {
+                String yearName = yearDir.getPath().getName();
+                if (!yearDir.isDirectory() || !yearName.startsWith(TradeRepartitioner.YEAR_PREFIX)) {
+                    continue;
+                }
+                total++;
+                if (predicate.accepts(TradeColumn.COUNTRY, country)
+                        && acceptsYear(predicate, yearName.substring(TradeRepartitioner.YEAR_PREFIX.length()))) {
+                    FileInputFormat.addInputPath(job, yearDir.getPath());
+                    added++;
+                }
+            }
+        }
+
+        LOG.info(String.format("%d de %d partições selecionadas em %s", added, total, root));
+        return added;
+    }
+
+    private static boolean acceptsYear(TradePredicate predicate, String escapedYear) {
+        if (!predicate.hasFilter(TradeColumn.YEAR)) {
+            return true;
+        }
+        try {
+            return predicate.acceptsYear(Integer.parseInt(TradeRepartitioner.unescape(escapedYear)));
+        } catch (NumberFormatException e) {
+            return false;  // Ano inválido (ex.: cabeçalho) nunca está no intervalo pedido
+        }
+    }
+
+    /**
+     * Um filtro sem nenhuma partição correspondente resulta em um job sem entrada, não em erro.
+     */
+    @Override
+    protected List<FileStatus> listStatus(JobContext job) throws IOException {
+        if (getInputPaths(job).length == 0) {
+            return new ArrayList<>();
+        }
+        return super.listStatus(job);
+    }
+}
@@ -0,0 +1,128 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.partition.TotalOrderPartitioner;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escolhe o número de Reducers de um job a partir de uma amostra da saída do Mapper ("-D tde2.reduces.auto=true").
+ *
+ * O volume do shuffle é estimado pelos registros extrapolados para a entrada toda, limitados, num job com
+ * combiner, a uma chave distinta por tarefa de map; cada Reducer recebe até "tde2.reduces.bytes.per.reducer"
+ * bytes, sem passar de "tde2.reduces.max" nem da quantidade estimada de chaves. Um número de Reducers
+ * fixado pelo driver ou por "-D mapreduce.job.reduces" é respeitado.
+ *
+ * Jobs cuja saída precisa ficar ordenada entre os arquivos (ex.: por ano) marcam TOTAL_ORDER; com mais de
+ * um Reducer, eles usam o TotalOrderPartitioner com pontos de corte tirados da mesma amostra, pesados
+ * pela quantidade de registros de cada chave. Jobs com comparador de agrupamento (ex.: o modo aproximado do
+ * SampledTradeInputFormat) mantêm o seu Partitioner, pois um ponto de corte poderia separar um grupo.
+ */
+public final class ReducerPlanner {
+
+    public final static String AUTO = "tde2.reduces.auto";                            // Ativa a escolha automática
+    public final static String BYTES_PER_REDUCER = "tde2.reduces.bytes.per.reducer";  // Volume do shuffle por Reducer
+    public final static String MAX_REDUCES = "tde2.reduces.max";                      // Limite de Reducers
+    public final static String TOTAL_ORDER = "tde2.total.order";                      // Saída ordenada entre os arquivos
+
+    private static final Logger LOG = Logger.getLogger(ReducerPlanner.class);
+
+    private ReducerPlanner() {
+    }
+
+    /**
+     * @param conf A configuração do job
+     * @return true se o número de Reducers deve ser escolhido pela amostra
+     */
+    public static boolean isEnabled(Configuration conf) {
+        return conf.getBoolean(AUTO, false) && !isFixed(conf);
+    }
+
+    /**
+     * @return true se o número de Reducers não vem do mapred-default.xml
+     */
+    private static boolean isFixed(Configuration conf) {
+        String[] sources = conf.getPropertySources(MRJobConfig.NUM_REDUCES);
+        return sources != null && !sources[sources.length - 1].endsWith("-default.xml");
+    }
+
+    /**
+     * Define o número de Reducers (e, com TOTAL_ORDER, os pontos de corte) a partir da amostra.
+     * @param j O job configurado
+     * @param sample A amostra da saída do Mapper do job
+     * @return O número de Reducers escolhido
+     */
+    public static int plan(Job j, MapOutputSample sample) throws IOException, ClassNotFoundException {
+        Configuration conf = j.getConfiguration();
+        double keys = sample.getEstimatedKeys();
+        double records = sample.getEstimatedRecords();
+        if (j.getCombinerClass() != null) {
+            records = Math.min(records, keys * sample.getSplits());  // Cada tarefa de map emite no máximo uma vez cada chave
+        }
+        double bytes = records * sample.getAverageRecordBytes();
+
+        int reduces = (int) Math.ceil(bytes / conf.getLong(BYTES_PER_REDUCER, 256L * 1024 * 1024));
+        reduces = (int) Math.max(1, Math.min(Math.min(reduces, conf.getInt(MAX_REDUCES, 64)), Math.ceil(keys)));
+        if (reduces > 1 && conf.getBoolean(TOTAL_ORDER, false)
+                && conf.get(MRJobConfig.GROUP_COMPARATOR_CLASS) == null) {  // Os cortes seguem a chave inteira, não o grupo
+            reduces = writePartitionFile(j, sample, reduces);
+        }
+        j.setNumReduceTasks(reduces);
+
+        LOG.info(String.format("%s: ~%.0f chaves, ~%.0f registros e ~%.1f MB no shuffle: %d Reducer(s)",
+                j.getJobName(), keys, records, bytes / (1024 * 1024), reduces));
+        return reduces;
+    }
+
+    /**
+     * Grava os pontos de corte do TotalOrderPartitioner ao lado da saída do job, apagados ao fim da JVM.
+     * @return O número de Reducers, limitado pelas chaves distintas da amostra
+     */
+    @SuppressWarnings("unchecked")
+    private static int writePartitionFile(Job j, MapOutputSample sample, int reduces) throws IOException {
+        Map<Object, long[]> counts = sample.getCounts();
+        List<Object> keys = new ArrayList<>(counts.keySet());
+        keys.sort((Comparator<Object>) j.getSortComparator());
+
+        // Cada ponto de corte abre uma partição depois de acumular 1/R dos registros da amostra
+        List<Object> points = new ArrayList<>();
+        long accumulated = 0;
+        for (int i = 0; i < keys.size() - 1 && points.size() < reduces - 1; i++) {
+            accumulated += counts.get(keys.get(i))[0];
+            if (accumulated * reduces >= sample.getRecords() * (points.size() + 1)) {
+                points.add(keys.get(i + 1));
+            }
+        }
+        if (points.isEmpty()) {
+            return 1;
+        }
+
+        Configuration conf = j.getConfiguration();
+        Path file = FileOutputFormat.getOutputPath(j).suffix("_partitions");
+        try (SequenceFile.Writer writer = SequenceFile.createWriter(conf, SequenceFile.Writer.file(file),
+                SequenceFile.Writer.keyClass(j.getMapOutputKeyClass()),
+                SequenceFile.Writer.valueClass(NullWritable.class))) {
+            for (Object point : points) {
+                writer.append(point, NullWritable.get());
+            }
+        }
+        FileSystem fs = file.getFileSystem(conf);
+        fs.deleteOnExit(file);
+
+        TotalOrderPartitioner.setPartitionFile(conf, fs.makeQualified(file));
+        j.setPartitionerClass(TotalOrderPartitioner.class);
+        return points.size() + 1;
+    }
+}
@@ -0,0 +1,225 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Tabela de referência pequena ("chave;valor" por linha, com uma linha de cabeçalho) distribuída a todas as
+ * tarefas pelo cache distribuído e consultada no map() de cada linha, como o lado pequeno de um join sem shuffle.
+ *
+ * Chaves e valores ficam em uma única área de bytes, indexada por uma tabela hash de arrays primitivos como a do
+ * InMapperAggregator. A consulta recebe os bytes da coluna (ex.: de um CsvFieldTokenizer) e compara sem diferenciar
+ * maiúsculas/minúsculas, como os Mappers, sem criar objetos por linha.
+ */
+public class ReferenceTable {
+
+    private int[] table;       // Índice da entrada + 1 em cada posição (0 = livre)
+    private int[] hashes;      // Hash de cada entrada
+    private int[] keyStarts;   // Início da chave na área de bytes
+    private int[] keyLengths;
+    private int[] valueStarts; // Início do valor na área de bytes
+    private int[] valueLengths;
+    private byte[] bytes;      // Conteúdo do arquivo (chaves e valores)
+    private int size;
+
+    /**
+     * Lê a tabela a partir do conteúdo do arquivo. Linhas sem ";" são ignoradas e, com chaves repetidas, vale a primeira.
+     * @param bytes O conteúdo do arquivo (mantido pela tabela, sem cópia)
+     * @param length Os bytes válidos
+     */
+    public ReferenceTable(byte[] bytes, int length) {
+        this.bytes = bytes;
+        int lines = 1;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '\n') {
+                lines++;
+            }
+        }
+        table = new int[Integer.highestOneBit(lines * 2 - 1) << 1];  // Potência de 2, ocupação <= 50%
+        hashes = new int[lines];
+        keyStarts = new int[lines];
+        keyLengths = new int[lines];
+        valueStarts = new int[lines];
+        valueLengths = new int[lines];
+
+        boolean header = true;
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && bytes[end] != '\n') {
+                end++;
+            }
+            int next = end + 1;
+            if (end > start && bytes[end - 1] == '\r') {
+                end--;
+            }
+            int delimiter = start;
+            while (delimiter < end && bytes[delimiter] != CsvFieldTokenizer.DELIMITER) {
+                delimiter++;
+            }
+            if (header) {
+                header = false;  // A primeira linha nomeia as colunas
+            } else if (delimiter < end) {
+                put(start, delimiter - start, delimiter + 1, end - delimiter - 1);
+            }
+            start = next;
+        }
+    }
+
+    private void put(int keyStart, int keyLength, int valueStart, int valueLength) {
+        if (find(bytes, keyStart, keyLength) >= 0) {
+            return;
+        }
+        int hash = hash(bytes, keyStart, keyLength);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        int entry = size++;
+        hashes[entry] = hash;
+        keyStarts[entry] = keyStart;
+        keyLengths[entry] = keyLength;
+        valueStarts[entry] = valueStart;
+        valueLengths[entry] = valueLength;
+        table[slot] = entry + 1;
+    }
+
+    /**
+     * Registra o arquivo no cache distribuído do job.
+     * @param j O job
+     * @param file O arquivo da tabela
+     * @param name O nome pelo qual as tarefas carregam a tabela (load())
+     */
+    public static void addCacheFile(Job j, Path file, String name) throws IOException {
+        URI uri = file.getFileSystem(j.getConfiguration()).makeQualified(file).toUri();
+        try {
+            j.addCacheFile(new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), null, name));
+        } catch (URISyntaxException e) {
+            throw new IOException("Caminho inválido para o cache distribuído: " + file, e);
+        }
+    }
+
+    /**
+     * Carrega a tabela registrada com addCacheFile(). Chamado uma vez por tarefa, no setup().
+     *
+     * Lê a cópia local que o cache distribuído cria no diretório de trabalho da tarefa (o link "#name").
+     * Quando não há cópia local, como no LocalTradeEngine, que não localiza o cache, lê o arquivo de origem.
+     * @param context O contexto da tarefa
+     * @param name O nome usado no registro
+     * @return A tabela carregada
+     */
+    public static ReferenceTable load(JobContext context, String name) throws IOException {
+        Configuration conf = context.getConfiguration();
+        URI[] files = context.getCacheFiles();
+        if (files != null) {
+            for (URI uri : files) {
+                if (name.equals(uri.getFragment())) {
+                    FileSystem local = FileSystem.getLocal(conf);
+                    Path localized = local.makeQualified(new Path(name));
+                    if (local.exists(localized)) {
+                        return read(conf, localized);
+                    }
+                    return read(conf, new Path(uri.getScheme(), uri.getAuthority(), uri.getPath()));
+                }
+            }
+        }
+        throw new IOException("Tabela de referência " + name + " não está no cache distribuído");
+    }
+
+    /**
+     * @param conf A configuração (sistema de arquivos)
+     * @param file O arquivo da tabela
+     * @return A tabela lida do arquivo
+     */
+    public static ReferenceTable read(Configuration conf, Path file) throws IOException {
+        FileSystem fs = file.getFileSystem(conf);
+        ByteArrayOutputStream content = new ByteArrayOutputStream((int) Math.min(fs.getFileStatus(file).getLen(), 1 << 30));
+        try (FSDataInputStream in = fs.open(file)) {
+            IOUtils.copyBytes(in, content, 1 << 16);
+        }
+        byte[] bytes = content.toByteArray();
+        return new ReferenceTable(bytes, bytes.length);
+    }
+
+    /**
+     * Procura uma chave.
+     * @param key Array com os bytes da chave
+     * @param start Início da chave
+     * @param length Tamanho da chave
+     * @return A entrada da chave, ou -1 se ela não estiver na tabela
+     */
+    public int find(byte[] key, int start, int length) {
+        int hash = hash(key, start, length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int entry = table[slot] - 1;
+            if (hashes[entry] == hash && sameKey(entry, key, start, length)) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean sameKey(int entry, byte[] key, int start, int length) {
+        if (keyLengths[entry] != length) {
+            return false;
+        }
+        int offset = keyStarts[entry];
+        for (int i = 0; i < length; i++) {
+            if (toLowerAscii(bytes[offset + i]) != toLowerAscii(key[start + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return A área de bytes onde estão os valores
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int valueStart(int entry) {
+        return valueStarts[entry];
+    }
+
+    public int valueLength(int entry) {
+        return valueLengths[entry];
+    }
+
+    /**
+     * @return Quantas chaves a tabela tem
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Hash que ignora maiúsculas/minúsculas nas letras ASCII, coerente com equalsIgnoreCase.
+     */
+    private static int hash(byte[] key, int start, int length) {
+        int h = 1;
+        for (int i = start; i < start + length; i++) {
+            h = 31 * h + toLowerAscii(key[i]);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static byte toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+}
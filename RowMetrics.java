@@ -0,0 +1,141 @@
+package TDE2;
+
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+/**
+ * Contadores de linhas e cronômetros amostrados de um Mapper, publicados como contadores do Hadoop no cleanup().
+ *
+ * O Mapper marca as fases de cada linha: begin() ao receber a linha, parsed() depois de separar e converter
+ * as colunas, filtered() ou accepted() depois do filtro e emitted() depois de acumular ou emitir o registro.
+ * Uma linha malformada termina em malformed(motivo). Os totais ficam em campos long e só vão aos contadores
+ * no close(), e apenas uma a cada "tde2.metrics.timer.interval" linhas (padrão: 64; 0 desliga) é
+ * cronometrada com System.nanoTime(), para que a medição não pese no Mapper.
+ */
+public class RowMetrics {
+
+    public final static String TIMER_INTERVAL = "tde2.metrics.timer.interval";
+
+    /**
+     * Destino de cada linha lida.
+     */
+    public enum Rows {
+        READ,               // Linhas recebidas pelo Mapper
+        MALFORMED_COLUMNS,  // Quantidade de colunas diferente da esperada
+        MALFORMED_NUMBER,   // Número inválido (inclui a linha de cabeçalho)
+        FILTERED,           // Linhas válidas descartadas pelo filtro do job
+        ACCEPTED            // Linhas que chegaram à agregação ou à emissão
+    }
+
+    /**
+     * Tempo somado das linhas cronometradas, em nanossegundos, e quantas linhas cada fase cronometrou.
+     */
+    public enum Timers {
+        PARSE_NANOS, PARSE_SAMPLES,
+        FILTER_NANOS, FILTER_SAMPLES,
+        EMIT_NANOS, EMIT_SAMPLES
+    }
+
+    private final TaskInputOutputContext<?, ?, ?, ?> context;
+    private final long[] rows = new long[Rows.values().length];
+    private final long[] timers = new long[Timers.values().length];
+    private final int interval;
+
+    private int untilTimed;  // Linhas até a próxima cronometrada
+    private boolean timing;  // A linha atual é cronometrada
+    private long mark;       // Início da fase atual
+
+    /**
+     * @param context O contexto da tarefa, onde os contadores são publicados
+     */
+    public RowMetrics(TaskInputOutputContext<?, ?, ?, ?> context) {
+        this.context = context;
+        this.interval = context.getConfiguration().getInt(TIMER_INTERVAL, 64);
+        this.untilTimed = interval;
+    }
+
+    /**
+     * Início de uma linha.
+     */
+    public void begin() {
+        rows[Rows.READ.ordinal()]++;
+        if (interval > 0 && --untilTimed == 0) {
+            untilTimed = interval;
+            timing = true;
+            mark = System.nanoTime();
+        }
+    }
+
+    /**
+     * A linha foi descartada durante a leitura das colunas.
+     * @param reason Rows.MALFORMED_COLUMNS ou Rows.MALFORMED_NUMBER
+     */
+    public void malformed(Rows reason) {
+        rows[reason.ordinal()]++;
+        if (timing) {
+            lap(Timers.PARSE_NANOS);
+            timing = false;
+        }
+    }
+
+    /**
+     * Fim da leitura das colunas de uma linha válida.
+     */
+    public void parsed() {
+        if (timing) {
+            lap(Timers.PARSE_NANOS);
+        }
+    }
+
+    /**
+     * A linha válida foi descartada pelo filtro do job.
+     */
+    public void filtered() {
+        rows[Rows.FILTERED.ordinal()]++;
+        if (timing) {
+            lap(Timers.FILTER_NANOS);
+            timing = false;
+        }
+    }
+
+    /**
+     * A linha passou pelo filtro do job (ou o job não filtra).
+     */
+    public void accepted() {
+        rows[Rows.ACCEPTED.ordinal()]++;
+        if (timing) {
+            lap(Timers.FILTER_NANOS);
+        }
+    }
+
+    /**
+     * Fim da agregação ou da emissão da linha aceita.
+     */
+    public void emitted() {
+        if (timing) {
+            lap(Timers.EMIT_NANOS);
+            timing = false;
+        }
+    }
+
+    /**
+     * Soma o tempo desde a marca à fase (o contador de amostras vem logo depois do de tempo) e reinicia a marca.
+     */
+    private void lap(Timers phase) {
+        long now = System.nanoTime();
+        timers[phase.ordinal()] += now - mark;
+        timers[phase.ordinal() + 1]++;
+        mark = now;
+    }
+
+    /**
+     * Publica os totais nos contadores da tarefa. Chamado no cleanup() do Mapper.
+     */
+    public void close() {
+        for (Rows row : Rows.values()) {
+            context.getCounter(row).increment(rows[row.ordinal()]);
+        }
+        for (Timers timer : Timers.values()) {
+            context.getCounter(timer).increment(timers[timer.ordinal()]);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+
+/**
+ * Executa um job com o SkewAwarePartitioner ("-D tde2.skew.partitioner=true -D mapreduce.job.reduces=<R>").
+ *
+ * Se a amostragem encontra chaves quentes e o job tem combiner (ou seja, os valores parciais se fundem
+ * sem perda), os registros de cada chave quente são espalhados entre vários Reducers, que apenas fundem
+ * os parciais com o combiner e gravam em um diretório temporário. Um segundo job, com o Partitioner original,
+ * lê esses parciais (poucos por chave) e aplica o Reducer original, gravando a saída final do job.
+ * Sem combiner, as chaves quentes só ganham Reducers exclusivos, e o job roda em um único estágio.
+ */
+public final class SaltedJobs {
+
+    private static final Logger LOG = Logger.getLogger(SaltedJobs.class);
+
+    private SaltedJobs() {
+    }
+
+    /**
+     * @param j O job configurado, com mais de um Reducer
+     * @param sample A amostra da saída do Mapper do job (ou null, para coletar uma)
+     * @return true se todos os estágios terminaram com sucesso
+     */
+    public static boolean run(Job j, MapOutputSample sample) throws IOException, InterruptedException, ClassNotFoundException {
+        Configuration original = new Configuration(j.getConfiguration());  // Configuração antes do salting
+        int hotKeys = SkewAwarePartitioner.setHotKeys(j, sample == null ? MapOutputSample.collect(j) : sample);
+        if (hotKeys == 0) {
+            return TradeJobs.execute(j);  // Mantém o Partitioner do job (ex.: o TotalOrderPartitioner)
+        }
+        j.setPartitionerClass(SkewAwarePartitioner.class);
+        if (j.getCombinerClass() == null) {
+            return TradeJobs.execute(j);
+        }
+
+        // Verifica a saída final antes de gastar o primeiro estágio
+        OutputFormat<?, ?> output = ReflectionUtils.newInstance(j.getOutputFormatClass(), j.getConfiguration());
+        output.checkOutputSpecs(j);
+
+        Path finalOutput = FileOutputFormat.getOutputPath(j);
+        Path partials = finalOutput.suffix("_salted");
+        FileSystem fs = partials.getFileSystem(original);
+        fs.delete(partials, true);  // Resto de uma execução interrompida
+
+        j.getConfiguration().setBoolean(SkewAwarePartitioner.SALTED, true);
+        j.setReducerClass(j.getCombinerClass());  // 1º estágio: só funde os parciais de cada partição
+        j.setOutputKeyClass(j.getMapOutputKeyClass());
+        j.setOutputValueClass(j.getMapOutputValueClass());
+        j.setOutputFormatClass(SequenceFileOutputFormat.class);
+        FileOutputFormat.setOutputPath(j, partials);
+        LOG.info(j.getJobName() + ": " + hotKeys + " chave(s) quente(s) espalhada(s); parciais em " + partials);
+
+        try {
+            if (!TradeJobs.execute(j)) {
+                return false;
+            }
+
+            original.unset("mapreduce.input.multipleinputs.dir.formats");  // O 2º estágio lê só os parciais
+            original.unset("mapreduce.input.multipleinputs.dir.mappers");
+            Job merge = Job.getInstance(original, j.getJobName() + "-merge");
+            merge.setInputFormatClass(SequenceFileInputFormat.class);
+            merge.setMapperClass(Mapper.class);  // Identidade, com o Partitioner original do job
+            FileInputFormat.setInputPaths(merge, partials);
+            return TradeJobs.execute(merge);
+        } finally {
+            fs.delete(partials, true);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+
+import java.util.Locale;
+
+/**
+ * Estimativas do modo aproximado, com intervalos de 95%, para a amostra em dois níveis do SampledTradeInputFormat:
+ * M splits candidatos, dos quais n foram mantidos (fração q dos bytes), e em cada um as linhas mantidas com
+ * probabilidade p.
+ *
+ * Os totais são estimados pela razão aos bytes lidos (contagem da amostra / (q × p)). A variância soma dois
+ * termos: a variação entre os splits mantidos, M² (1 - n/M) / n × s², em que s² é a variância dos resíduos
+ * de cada split em relação à razão (os splits sem a chave entram com resíduo negativo), e a amostragem das
+ * linhas dentro dos splits, binomial. Sem amostragem de splits (n = M), o primeiro termo some e restam os
+ * intervalos da amostragem independente das linhas.
+ */
+public class SampleEstimates {
+
+    public final static double Z_95 = 1.96;  // Quantil da normal para o intervalo de 95%
+
+    private final double rowFraction;  // p: probabilidade de cada linha de um split mantido entrar na amostra
+    private final double keptFraction; // q: fração dos bytes nos splits mantidos
+    private final int splits;          // M: splits candidatos
+    private final int keptSplits;      // n: splits mantidos
+    private final double keptBytes;    // Soma dos tamanhos dos splits mantidos
+    private final double keptSquares;  // Soma dos quadrados desses tamanhos
+
+    /**
+     * @param conf A configuração do job, depois de SampledTradeInputFormat.getSplits()
+     */
+    public SampleEstimates(Configuration conf) {
+        rowFraction = conf.getDouble(SampledTradeInputFormat.ROW_FRACTION, 1.0);
+        keptFraction = SampledTradeInputFormat.fraction(conf) / rowFraction;
+        splits = conf.getInt(SampledTradeInputFormat.SPLITS, 1);
+        keptSplits = conf.getInt(SampledTradeInputFormat.KEPT_SPLITS, splits);
+        keptBytes = conf.getLong(SampledTradeInputFormat.KEPT_BYTES, 1);
+        keptSquares = conf.getDouble(SampledTradeInputFormat.KEPT_SQUARES, 1);
+    }
+
+    /**
+     * @return A probabilidade de cada linha estar na amostra
+     */
+    public double fraction() {
+        return keptFraction * rowFraction;
+    }
+
+    /**
+     * @param sample As contagens da chave em cada split
+     * @return A contagem estimada e a margem de erro, ex.: "Estimate: 3960, Error: ±110 (95%), Sample: 396, Fraction: 0.1"
+     */
+    public String count(Splits sample) {
+        sample.close();
+        return String.format(Locale.ROOT, "Estimate: %d, Error: ±%.0f (95%%), Sample: %d, Fraction: %s",
+                Math.round(sample.count / fraction()), countError(sample), (long) sample.count, fraction());
+    }
+
+    /**
+     * @param sample As contagens e somas da chave em cada split
+     * @param total O resumo dos valores da amostra
+     * @return A contagem e a média estimadas com as margens de erro, e o mínimo e máximo observados
+     */
+    public String stats(Splits sample, StatsWritable total) {
+        sample.close();
+        return String.format(Locale.ROOT,
+                "Count: %d ± %.0f, Mean: %.6g ± %.3g (95%%), Sample Min: %s, Sample Max: %s, Sample: %d, Fraction: %s",
+                Math.round(total.getCount() / fraction()), countError(sample),
+                total.getMean(), meanError(sample, total), total.getMin(), total.getMax(),
+                total.getCount(), fraction());
+    }
+
+    /**
+     * Margem de erro da contagem estimada. Os resíduos de cada split são e = y / p - R × bytes, com R a razão
+     * entre a contagem estimada nos splits mantidos e os seus bytes; dentro de um split, a contagem é
+     * binomial(N, p), com variância estimada por y × (1 - p) / p².
+     */
+    public double countError(Splits sample) {
+        sample.close();
+        double p = rowFraction;
+        double ratio = sample.count / p / keptBytes;
+        double residuals = sample.countSquares / (p * p) - 2 * ratio * sample.countBytes / p + ratio * ratio * keptSquares;
+        double within = sample.count * (1 - p) / (p * p * keptFraction);
+        return Z_95 * Math.sqrt(between(residuals) + within);
+    }
+
+    /**
+     * Margem de erro da média, estimada pela razão soma / contagem. Os resíduos de cada split são
+     * z = (soma - média × contagem) / p; dentro de um split, vale o erro padrão s / √n com a correção
+     * para população finita.
+     */
+    public double meanError(Splits sample, StatsWritable total) {
+        sample.close();
+        long n = total.getCount();
+        if (n < 2) {
+            return Double.POSITIVE_INFINITY;  // Um valor isolado não estima a dispersão
+        }
+        double p = rowFraction;
+        double mean = sample.sum / sample.count;
+        double residuals = (sample.sumSquares - 2 * mean * sample.countSum + mean * mean * sample.countSquares) / (p * p);
+        double sampleVariance = total.getVariance() * n / (n - 1);
+        double within = n * sampleVariance * (1 - p) / (p * p * keptFraction);
+        double estimatedCount = n / fraction();
+        return Z_95 * Math.sqrt((between(residuals) + within) / (estimatedCount * estimatedCount));
+    }
+
+    /**
+     * Variância entre os splits: M² (1 - n/M) / n × s², com s² = resíduos² / (n - 1).
+     */
+    private double between(double residuals) {
+        if (keptSplits >= splits) {
+            return 0;  // Todos os splits lidos
+        }
+        if (keptSplits < 2) {
+            return Double.POSITIVE_INFINITY;  // Um split isolado não estima a variação entre eles
+        }
+        double n = keptSplits;
+        return (double) splits * splits * (1 - n / splits) / n * Math.max(0, residuals) / (n - 1);
+    }
+
+    /**
+     * Acumula, para uma chave, os parciais recebidos de cada split. Os valores de um mesmo split chegam
+     * juntos (ordenados pelo SplitTaggedKey.Comparator), então basta fechar o split atual quando ele muda.
+     */
+    public static class Splits {
+
+        private long split;           // Split atual
+        private double splitBytes;    // Tamanho do split atual
+        private double splitCount;    // Contagem do split atual
+        private double splitSum;      // Soma dos valores do split atual
+        private boolean open;
+
+        private double count;         // Σ contagens
+        private double sum;           // Σ somas
+        private double countSquares;  // Σ contagem²
+        private double sumSquares;    // Σ soma²
+        private double countSum;      // Σ contagem × soma
+        private double countBytes;    // Σ contagem × bytes do split
+
+        public void clear() {
+            open = false;
+            splitCount = splitSum = 0;
+            count = sum = countSquares = sumSquares = countSum = countBytes = 0;
+        }
+
+        /**
+         * @param split O identificador do split de origem
+         * @param bytes O tamanho do split
+         * @param count A contagem parcial do split
+         * @param sum A soma parcial dos valores do split
+         */
+        public void add(long split, long bytes, double count, double sum) {
+            if (!open || split != this.split) {
+                close();
+                this.split = split;
+                splitBytes = bytes;
+                open = true;
+            }
+            splitCount += count;
+            splitSum += sum;
+        }
+
+        private void close() {
+            if (splitCount != 0 || splitSum != 0) {
+                count += splitCount;
+                sum += splitSum;
+                countSquares += splitCount * splitCount;
+                sumSquares += splitSum * splitSum;
+                countSum += splitCount * splitSum;
+                countBytes += splitCount * splitBytes;
+            }
+            splitCount = 0;
+            splitSum = 0;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.MapContext;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Lê uma amostra aleatória do CSV para o modo aproximado dos drivers.
+ *
+ * A amostragem tem dois níveis: cada split é mantido com probabilidade "tde2.sample.splits" (os demais
+ * nem são abertos) e, dentro dos splits mantidos, cada linha é mantida com probabilidade "tde2.sample.rows".
+ * Como o sorteio dos splits raramente mantém exatamente a fração pedida, getSplits() grava na configuração a
+ * fração dos bytes efetivamente mantida ("tde2.sample.splits.kept"); cada linha entra na amostra com
+ * probabilidade fraction() = fração mantida × linhas, e os Reducers aproximados (ApproximateCountReducer,
+ * ApproximateStatsReducer) dividem as contagens por essa fração. A semente "tde2.sample.seed" torna a
+ * amostra reproduzível.
+ *
+ * Como as linhas de um split entram (ou ficam de fora) juntas, a margem de erro vem da variação entre os
+ * splits mantidos: configure() troca o Mapper do job pelo TaggingMapper, que marca cada chave emitida com o
+ * split de origem (SplitTaggedKey), e getSplits() grava quantos splits havia e quantos foram mantidos e os
+ * seus tamanhos, usados pelo SampleEstimates.
+ */
+public class SampledTradeInputFormat extends TextInputFormat {
+
+    public final static String SPLIT_FRACTION = "tde2.sample.splits";  // Fração dos splits lidos
+    public final static String ROW_FRACTION = "tde2.sample.rows";      // Fração das linhas lidas em cada split
+    public final static String SEED = "tde2.sample.seed";              // Semente da amostragem
+    public final static String KEPT_FRACTION = "tde2.sample.splits.kept";  // Fração dos bytes nos splits mantidos
+    public final static String SPLITS = "tde2.sample.splits.candidates";     // Splits candidatos ao sorteio
+    public final static String KEPT_SPLITS = "tde2.sample.splits.kept.count";  // Splits mantidos
+    public final static String KEPT_BYTES = "tde2.sample.splits.kept.bytes";   // Soma dos tamanhos dos splits mantidos
+    public final static String KEPT_SQUARES = "tde2.sample.splits.kept.squares";  // Soma dos quadrados desses tamanhos
+    public final static String MAPPER = "tde2.sample.mapper";  // Mapper original do job, executado pelo TaggingMapper
+
+    private final static int CANDIDATE_SPLITS = 64;  // Splits mínimos para a amostragem de splits ter efeito
+
+    private static final Logger LOG = Logger.getLogger(SampledTradeInputFormat.class);
+
+    /**
+     * @param conf A configuração do job
+     * @return true se alguma das frações de amostragem foi definida abaixo de 1
+     */
+    public static boolean isEnabled(Configuration conf) {
+        return samplesSplits(conf) || fraction(conf, ROW_FRACTION) < 1;
+    }
+
+    /**
+     * @param conf A configuração do job
+     * @return true se a amostra é de splits inteiros, e as linhas não entram nela de forma independente
+     */
+    public static boolean samplesSplits(Configuration conf) {
+        return fraction(conf, SPLIT_FRACTION) < 1;
+    }
+
+    /**
+     * @param conf A configuração do job, depois de getSplits()
+     * @return A probabilidade de cada linha entrar na amostra
+     */
+    public static double fraction(Configuration conf) {
+        return conf.getDouble(KEPT_FRACTION, fraction(conf, SPLIT_FRACTION)) * fraction(conf, ROW_FRACTION);
+    }
+
+    private static double fraction(Configuration conf, String name) {
+        double value = conf.getDouble(name, 1.0);
+        if (value <= 0 || value > 1) {
+            throw new IllegalArgumentException(name + " deve estar em (0, 1]: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Passa a ler a entrada em CSV do job por amostragem, se o modo aproximado estiver ativo.
+     * @param j O job configurado
+     * @return true se o job lerá uma amostra (e os Reducers devem estimar os totais)
+     */
+    public static boolean configure(Job j) throws ClassNotFoundException {
+        if (!isEnabled(j.getConfiguration()) || j.getInputFormatClass() != TextInputFormat.class) {
+            return false;  // Modo exato, ou entrada colunar/particionada
+        }
+        j.setInputFormatClass(SampledTradeInputFormat.class);
+
+        // As chaves passam a carregar o split de origem; o agrupamento continua pela chave original
+        Configuration conf = j.getConfiguration();
+        conf.setClass(MAPPER, j.getMapperClass(), Mapper.class);
+        conf.setClass(SplitTaggedKey.KEY_CLASS, j.getMapOutputKeyClass(), WritableComparable.class);
+        j.setMapperClass(TaggingMapper.class);
+        j.setMapOutputKeyClass(SplitTaggedKey.class);
+        j.setSortComparatorClass(SplitTaggedKey.Comparator.class);
+        j.setGroupingComparatorClass(SplitTaggedKey.KeyComparator.class);
+        return true;
+    }
+
+    /**
+     * @param split Um split da entrada
+     * @return O identificador do split nas chaves marcadas (arquivo e início)
+     */
+    public static long splitId(FileSplit split) {
+        return split.getPath().hashCode() * 31L + split.getStart();
+    }
+
+    @Override
+    public List<InputSplit> getSplits(JobContext job) throws IOException {
+        Configuration conf = job.getConfiguration();
+        double splitFraction = fraction(conf, SPLIT_FRACTION);
+        if (splitFraction == 1) {
+            return super.getSplits(job);
+        }
+
+        // Divide a entrada em splits pequenos o bastante para que a fração de splits seja significativa
+        long total = 0;
+        for (FileStatus file : listStatus(job)) {
+            total += file.getLen();
+        }
+        long candidateSize = Math.max(1, (total + CANDIDATE_SPLITS - 1) / CANDIDATE_SPLITS);
+        conf.setLong(SPLIT_MAXSIZE, Math.min(getMaxSplitSize(job), candidateSize));
+
+        List<InputSplit> candidates = super.getSplits(job);
+        Random random = new Random(conf.getLong(SEED, 0));
+        List<InputSplit> sampled = new ArrayList<>();
+        for (InputSplit split : candidates) {
+            if (random.nextDouble() < splitFraction) {
+                sampled.add(split);
+            }
+        }
+        if (sampled.isEmpty() && !candidates.isEmpty()) {
+            sampled.add(candidates.get(random.nextInt(candidates.size())));  // Nunca devolve uma amostra vazia
+        }
+
+        // Os Reducers estimam pela fração dos bytes realmente mantida, não pela fração pedida,
+        // e a margem de erro pela variação entre os splits mantidos
+        long candidateBytes = bytes(candidates);
+        long sampledBytes = bytes(sampled);
+        if (candidateBytes > 0) {
+            conf.setDouble(KEPT_FRACTION, (double) sampledBytes / candidateBytes);
+        }
+        double squares = 0;
+        for (InputSplit split : sampled) {
+            double length = ((FileSplit) split).getLength();
+            squares += length * length;
+        }
+        conf.setInt(SPLITS, candidates.size());
+        conf.setInt(KEPT_SPLITS, sampled.size());
+        conf.setLong(KEPT_BYTES, sampledBytes);
+        conf.setDouble(KEPT_SQUARES, squares);
+        LOG.info(String.format("%d de %d splits amostrados (%d de %d bytes)",
+                sampled.size(), candidates.size(), sampledBytes, candidateBytes));
+        return sampled;
+    }
+
+    private static long bytes(List<InputSplit> splits) {
+        long bytes = 0;
+        for (InputSplit split : splits) {
+            bytes += ((FileSplit) split).getLength();
+        }
+        return bytes;
+    }
+
+    @Override
+    public RecordReader<LongWritable, Text> createRecordReader(InputSplit split, TaskAttemptContext context) {
+        return new SampledLineRecordReader(super.createRecordReader(split, context));
+    }
+
+    /**
+     * Executa o Mapper original do job ("tde2.sample.mapper") e marca cada chave emitida com o split lido.
+     */
+    public static class TaggingMapper<KI, VI, KO, VO> extends Mapper<KI, VI, SplitTaggedKey, VO> {
+
+        private final SplitTaggedKey tagged = new SplitTaggedKey();  // Chave emitida, reutilizada
+        private final DataOutputBuffer buffer = new DataOutputBuffer();  // Chave original serializada
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public void run(Context context) throws IOException, InterruptedException {
+            Configuration conf = context.getConfiguration();
+            Mapper<KI, VI, KO, VO> mapper = ReflectionUtils.newInstance(conf.getClass(MAPPER, null, Mapper.class), conf);
+            FileSplit split = (FileSplit) context.getInputSplit();
+            tagged.setSplit(splitId(split), split.getLength());
+
+            Mapper<KI, VI, KO, VO>.Context tagging = new WrappedMapper<KI, VI, KO, VO>().new Context((MapContext) context) {
+                @Override
+                public void write(KO key, VO value) throws IOException, InterruptedException {
+                    buffer.reset();
+                    ((Writable) key).write(buffer);
+                    tagged.setKey(buffer.getData(), 0, buffer.getLength());
+                    context.write(tagged, value);
+                }
+            };
+            mapper.run(tagging);
+        }
+    }
+
+    /**
+     * Repassa cada linha do LineRecordReader com probabilidade "tde2.sample.rows".
+     */
+    public static class SampledLineRecordReader extends RecordReader<LongWritable, Text> {
+
+        private final RecordReader<LongWritable, Text> lines;
+        private Random random;
+        private double rowFraction;
+
+        public SampledLineRecordReader(RecordReader<LongWritable, Text> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+            Configuration conf = context.getConfiguration();
+            FileSplit fileSplit = (FileSplit) split;
+            rowFraction = fraction(conf, ROW_FRACTION);
+            // Semente própria por split: a amostra não depende da ordem em que os splits são lidos
+            random = new Random(conf.getLong(SEED, 0) * 31 + fileSplit.getPath().hashCode() * 31L + fileSplit.getStart());
+            lines.initialize(split, context);
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException, InterruptedException {
+            while (lines.nextKeyValue()) {
+                if (rowFraction == 1 || random.nextDouble() < rowFraction) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public LongWritable getCurrentKey() throws IOException, InterruptedException {
+            return lines.getCurrentKey();
+        }
+
+        @Override
+        public Text getCurrentValue() throws IOException, InterruptedException {
+            return lines.getCurrentValue();
+        }
+
+        @Override
+        public float getProgress() throws IOException, InterruptedException {
+            return lines.getProgress();
+        }
+
+        @Override
+        public void close() throws IOException {
+            lines.close();
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.FileAlreadyExistsException;
+import org.apache.hadoop.mapred.InvalidJobConfException;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+
+import java.io.IOException;
+
+/**
+ * Classe principal que executa as sete análises do TDE2 em uma única leitura do arquivo CSV.
+ * O Mapper lê cada linha uma vez e emite chaves marcadas com a análise de destino; o Reducer
+ * despacha pela marcação e grava cada resultado no mesmo diretório de output/ usado pelo job individual.
+ * Com -D tde2.columnar.input=<diretório>, lê a saída do ColumnarTradeConverter em vez do CSV.
+ */
+public class SingleScanTransactionAnalyses {
+
+    /**
+     * Análises registradas no job combinado. A marcação de cada uma é um único caractere
+     * ('A' + ordinal) que prefixa a chave emitida pelo Mapper, seguido de ";".
+     */
+    public enum Analysis {
+        BRAZIL_COUNT("brazilcount", "brazil_transactions_number", IntWritable.class),
+        BRAZIL_AVERAGE("brazilaverage", "brazil_transactions_average", StatsWritable.class),
+        BRAZIL_EXPORT_AVERAGE("brazilexportaverage", "brazil_export_transactions_average", StatsWritable.class),
+        BRAZIL_MIN_MAX("brazilminmax", "brazil_transactions_min_max", StatsWritable.class),
+        PER_YEAR("peryear", "transactions_per_year", IntWritable.class),
+        BY_FLOW("byflow", "transactions_by_flow", IntWritable.class),
+        BY_CATEGORY("bycategory", "transactions_by_category", IntWritable.class);
+
+        private final String namedOutput;  // Nome da saída no MultipleOutputs (somente letras)
+        private final String directory;    // Diretório de saída, relativo a output/
+        private final String baseOutputPath; // Prefixo dos arquivos gravados pelo MultipleOutputs
+        private final Class<?> valueClass; // Tipo do valor final gravado
+        private final byte[] prefix;       // Prefixo "<marcação>;" das chaves emitidas
+
+        Analysis(String namedOutput, String directory, Class<?> valueClass) {
+            this.namedOutput = namedOutput;
+            this.directory = directory;
+            this.baseOutputPath = directory + "/part";
+            this.valueClass = valueClass;
+            this.prefix = new byte[]{tag(), CsvFieldTokenizer.DELIMITER};
+        }
+
+        public byte tag() {
+            return (byte) ('A' + ordinal());
+        }
+
+        public byte[] prefix() {
+            return prefix;
+        }
+
+        public String getNamedOutput() {
+            return namedOutput;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public String getBaseOutputPath() {
+            return baseOutputPath;
+        }
+
+        public Class<?> getValueClass() {
+            return valueClass;
+        }
+
+        /**
+         * @return true se a análise grava apenas a contagem de transações
+         */
+        public boolean isCount() {
+            return valueClass == IntWritable.class;
+        }
+
+        /**
+         * Recupera a análise a partir do primeiro byte de uma chave marcada.
+         * @param tag O byte de marcação
+         * @return A análise correspondente
+         */
+        public static Analysis fromTag(byte tag) {
+            return values()[tag - 'A'];
+        }
+    }
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();
+
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+
+        Path input = new Path("in/operacoes_comerciais_inteira.csv");  // Caminho para o arquivo CSV de entrada
+        Path output = new Path("output");  // Diretório raiz; cada análise grava no seu subdiretório
+
+        Job j = Job.getInstance(c, "single-scan-transaction-analyses");
+
+        j.setJarByClass(SingleScanTransactionAnalyses.class);
+        j.setMapperClass(MapForAllAnalyses.class);
+        j.setCombinerClass(StatsReducer.class);  // Os resumos parciais se fundem igualmente em todas as análises
+        j.setReducerClass(ReduceForAllAnalyses.class);
+
+        j.setMapOutputKeyClass(Text.class);
+        j.setMapOutputValueClass(StatsWritable.class);
+
+        j.setOutputKeyClass(Text.class);
+        j.setOutputValueClass(Text.class);
+
+        String columnarInput = c.get(ColumnarTradeInputFormat.INPUT);
+        if (columnarInput != null) {
+            input = new Path(columnarInput);
+            j.setInputFormatClass(ColumnarTradeInputFormat.class);
+            j.setMapperClass(MapForAllAnalysesColumnar.class);
+            // A mercadoria não é usada por nenhuma análise e não é lida do disco
+            ColumnarTradeInputFormat.setColumns(j, TradeColumn.COUNTRY, TradeColumn.YEAR, TradeColumn.FLOW,
+                    TradeColumn.TRADE_USD, TradeColumn.CATEGORY);
+        }
+
+        FileInputFormat.addInputPath(j, input);
+        FileOutputFormat.setOutputPath(j, output);
+
+        // Nenhum registro é gravado pela saída padrão; só cria arquivos quando houver escrita
+        LazyOutputFormat.setOutputFormatClass(j, SingleScanOutputFormat.class);
+        for (Analysis analysis : Analysis.values()) {
+            MultipleOutputs.addNamedOutput(j, analysis.getNamedOutput(), TextOutputFormat.class,
+                    Text.class, analysis.getValueClass());
+        }
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
+    }
+
+    /**
+     * Formato de saída que aceita o diretório output/ já existente, mas recusa sobrescrever
+     * o resultado de alguma das análises registradas.
+     */
+    public static class SingleScanOutputFormat<K, V> extends TextOutputFormat<K, V> {
+
+        @Override
+        public void checkOutputSpecs(JobContext job) throws IOException {
+            Path outDir = getOutputPath(job);
+            if (outDir == null) {
+                throw new InvalidJobConfException("Output directory not set.");
+            }
+
+            FileSystem fs = outDir.getFileSystem(job.getConfiguration());
+            for (Analysis analysis : Analysis.values()) {
+                Path target = new Path(outDir, analysis.getDirectory());
+                if (fs.exists(target)) {
+                    throw new FileAlreadyExistsException("Output directory " + target + " already exists");
+                }
+            }
+        }
+    }
+
+    /**
+     * Classe Mapper que lê cada linha uma única vez e emite um par marcado para cada análise interessada.
+     */
+    public static class MapForAllAnalyses extends StatsMapper<LongWritable, Writable, Text> {
+
+        private final static byte[] brazil = CsvFieldTokenizer.ascii("Brazil");  // País procurado
+        private final static byte[] export = CsvFieldTokenizer.ascii("Export");  // Tipo de transação procurado
+        private final static byte[] year2016 = CsvFieldTokenizer.ascii("2016");  // Ano da análise de mínimo/máximo
+        private final static byte[] brazil2016 = CsvFieldTokenizer.ascii("Brazil_2016");  // Chave da análise de mínimo/máximo
+
+        private Text taggedKey = new Text();  // Chave marcada reutilizada ("<marcação>;<chave>")
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+
+        @Override
+        protected Text outputKey(byte[] key, int start, int length) {
+            taggedKey.set(key, start, length);
+            return taggedKey;  // Emitida com o resumo parcial
+        }
+
+        @Override
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);  // Localiza as colunas uma única vez para todas as análises
+            int columns = col.fieldCount();
+            metrics.parsed();
+            metrics.accepted();  // Cada análise filtra por conta própria; a linha entra ao menos nas contagens
+
+            boolean isBrazil = col.equalsIgnoreCase(0, brazil);  // A primeira coluna contém o país
+
+            if (isBrazil) {
+                countField(Analysis.BRAZIL_COUNT, 0);
+            }
+            if (columns > 1) {
+                countField(Analysis.PER_YEAR, 1);
+            }
+            if (columns > 4) {
+                countField(Analysis.BY_FLOW, 4);
+            }
+            if (columns > 8) {
+                countField(Analysis.BY_CATEGORY, 9);
+            }
+
+            if (isBrazil && columns >= 10) {
+                double price;
+
+                try {
+                    price = col.parseDouble(5);  // Converte o preço (sexta coluna) para double
+                } catch (NumberFormatException e) {
+                    metrics.emitted();
+                    return;  // Ignora linhas com preços inválidos nas análises de valor
+                }
+
+                if (columns == 10) {
+                    addField(Analysis.BRAZIL_AVERAGE, 1, price);  // Chave: o ano
+                    if (col.equals(1, year2016)) {
+                        add(Analysis.BRAZIL_MIN_MAX, brazil2016, 0, brazil2016.length, price);
+                    }
+                }
+                if (col.equalsIgnoreCase(4, export)) {
+                    addField(Analysis.BRAZIL_EXPORT_AVERAGE, 1, price);
+                }
+            }
+            metrics.emitted();
+        }
+
+        private void countField(Analysis analysis, int field) throws IOException, InterruptedException {
+            tag(analysis, col.getBytes(), col.start(field), col.length(field));
+            aggregator.count(taggedKey.getBytes(), 0, taggedKey.getLength());
+        }
+
+        private void addField(Analysis analysis, int field, double price) throws IOException, InterruptedException {
+            add(analysis, col.getBytes(), col.start(field), col.length(field), price);
+        }
+
+        private void add(Analysis analysis, byte[] bytes, int start, int length, double price)
+                throws IOException, InterruptedException {
+            tag(analysis, bytes, start, length);
+            aggregator.add(taggedKey.getBytes(), 0, taggedKey.getLength(), price);
+        }
+
+        private void tag(Analysis analysis, byte[] bytes, int start, int length) {
+            taggedKey.clear();
+            taggedKey.append(analysis.prefix(), 0, 2);
+            taggedKey.append(bytes, start, length);
+        }
+    }
+
+    /**
+     * Variante do Mapper para a entrada colunar. O conversor mantém apenas linhas com as 10 colunas e ano
+     * inteiro, então as contagens ignoram o cabeçalho e linhas incompletas que o CSV contaria.
+     */
+    public static class MapForAllAnalysesColumnar extends StatsMapper<NullWritable, TradeRecord, Text> {
+
+        private final static byte[] brazil = CsvFieldTokenizer.ascii("Brazil");  // País procurado
+        private final static byte[] export = CsvFieldTokenizer.ascii("Export");  // Tipo de transação procurado
+        private final static byte[] brazil2016 = CsvFieldTokenizer.ascii("Brazil_2016");  // Chave da análise de mínimo/máximo
+
+        private Text taggedKey = new Text();  // Chave marcada reutilizada ("<marcação>;<chave>")
+        private Text year = new Text();  // Ano atual em decimal
+
+        @Override
+        protected Text outputKey(byte[] key, int start, int length) {
+            taggedKey.set(key, start, length);
+            return taggedKey;
+        }
+
+        @Override
+        public void map(NullWritable key, TradeRecord value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            metrics.parsed();
+            metrics.accepted();
+            Text country = value.getCountry();
+            Text flow = value.getFlow();
+            Text category = value.getCategory();
+            value.copyYear(year);
+
+            boolean isBrazil = CsvFieldTokenizer.equalsIgnoreCase(country.getBytes(), 0, country.getLength(), brazil);
+
+            if (isBrazil) {
+                count(Analysis.BRAZIL_COUNT, country.getBytes(), 0, country.getLength());
+            }
+            count(Analysis.PER_YEAR, year.getBytes(), 0, year.getLength());
+            count(Analysis.BY_FLOW, flow.getBytes(), 0, flow.getLength());
+            count(Analysis.BY_CATEGORY, category.getBytes(), 0, category.getLength());
+
+            double price = value.getTradeUsd();
+            if (!isBrazil || Double.isNaN(price)) {
+                metrics.emitted();
+                return;  // Valor inválido no CSV: fica fora das análises de valor
+            }
+
+            add(Analysis.BRAZIL_AVERAGE, year.getBytes(), 0, year.getLength(), price);
+            if (value.getYear() == 2016) {
+                add(Analysis.BRAZIL_MIN_MAX, brazil2016, 0, brazil2016.length, price);
+            }
+            if (CsvFieldTokenizer.equalsIgnoreCase(flow.getBytes(), 0, flow.getLength(), export)) {
+                add(Analysis.BRAZIL_EXPORT_AVERAGE, year.getBytes(), 0, year.getLength(), price);
+            }
+            metrics.emitted();
+        }
+
+        private void count(Analysis analysis, byte[] bytes, int start, int length) throws IOException, InterruptedException {
+            tag(analysis, bytes, start, length);
+            aggregator.count(taggedKey.getBytes(), 0, taggedKey.getLength());
+        }
+
+        private void add(Analysis analysis, byte[] bytes, int start, int length, double price)
+                throws IOException, InterruptedException {
+            tag(analysis, bytes, start, length);
+            aggregator.add(taggedKey.getBytes(), 0, taggedKey.getLength(), price);
+        }
+
+        private void tag(Analysis analysis, byte[] bytes, int start, int length) {
+            taggedKey.clear();
+            taggedKey.append(analysis.prefix(), 0, 2);
+            taggedKey.append(bytes, start, length);
+        }
+    }
+
+    /**
+     * Classe Reducer que despacha cada chave para a agregação da sua análise e grava
+     * o resultado no diretório correspondente através do MultipleOutputs.
+     */
+    public static class ReduceForAllAnalyses extends Reducer<Text, StatsWritable, Text, Text> {
+
+        protected MultipleOutputs<Text, Text> mos;
+        private Text resultKey = new Text();  // Chave original, sem a marcação
+        private IntWritable countResult = new IntWritable();  // Resultado das análises de contagem
+        private StatsWritable statsResult = new StatsWritable();  // Resultado das análises de valor
+        private KeyHistogram histogram;  // Registros recebidos por chave
+
+        @Override
+        protected void setup(Context context) {
+            mos = new MultipleOutputs<>(context);
+            histogram = new KeyHistogram(context);
+        }
+
+        @Override
+        public void reduce(Text key, Iterable<StatsWritable> values, Context context) throws IOException, InterruptedException {
+            statsResult.clear();
+            long records = 0;
+            for (StatsWritable value : values) {
+                statsResult.merge(value);
+                records++;
+            }
+            histogram.add(records);
+            write(key, statsResult);
+        }
+
+        /**
+         * Grava o resumo de uma chave marcada no diretório da sua análise.
+         * @param key A chave marcada ("<marcação>;<chave>")
+         * @param merged O resumo de todos os valores da chave
+         */
+        protected void write(Text key, StatsWritable merged) throws IOException, InterruptedException {
+            Analysis analysis = Analysis.fromTag(key.getBytes()[0]);
+            resultKey.set(key.getBytes(), 2, key.getLength() - 2);  // Remove "<marcação>;"
+
+            if (analysis.isCount()) {
+                countResult.set((int) merged.getCount());
+                mos.write(analysis.getNamedOutput(), resultKey, countResult, analysis.getBaseOutputPath());
+            } else {
+                mos.write(analysis.getNamedOutput(), resultKey, merged, analysis.getBaseOutputPath());
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            mos.close();
+            histogram.close();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.serializer.Deserializer;
+import org.apache.hadoop.io.serializer.SerializationFactory;
+import org.apache.hadoop.io.serializer.Serializer;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partitioner que distribui as chaves quentes (ex.: "Brazil", "Export") entre vários Reducers.
+ *
+ * Antes da submissão, setHotKeys() usa uma amostra da saída do Mapper (MapOutputSample) e marca como quente cada chave com mais registros que a parcela justa de um Reducer (1/R). Cada chave
+ * quente recebe um espalhamento proporcional à sua parcela. Com salting (job com combiner, ver SaltedJobs),
+ * os registros da chave se revezam entre esse número de partições e as saídas parciais são fundidas num
+ * segundo estágio; sem salting, cada chave quente ganha uma partição exclusiva e as demais chaves se
+ * espalham pelas partições restantes. Chaves que não são quentes seguem o HashPartitioner.
+ */
+public class SkewAwarePartitioner<K, V> extends Partitioner<K, V> implements Configurable {
+
+    public final static String ENABLED = "tde2.skew.partitioner";    // Ativa a amostragem e o particionamento
+    public final static String SALTED = "tde2.skew.salted";           // Espalha as chaves quentes (exige 2º estágio)
+    public final static String HOT_KEYS = "tde2.skew.hot.keys";       // "<chave serializada em base64>:<espalhamento>,..."
+
+    private static final Logger LOG = Logger.getLogger(SkewAwarePartitioner.class);
+
+    private Configuration conf;
+    private Map<Object, Integer> hot = new HashMap<>();     // Espalhamento de cada chave quente
+    private Map<Object, Integer> dedicated = new HashMap<>();  // Partição exclusiva de cada chave quente (sem salting)
+    private boolean salted;
+    private long next;  // Rodízio das partições das chaves quentes
+
+    /**
+     * @param conf A configuração do job
+     * @return true se o job deve ser amostrado e particionado por este Partitioner
+     */
+    public static boolean isEnabled(Configuration conf) {
+        return conf.getBoolean(ENABLED, false);
+    }
+
+    @Override
+    public void setConf(Configuration conf) {
+        this.conf = conf;
+        salted = conf.getBoolean(SALTED, false);
+        next = conf.getInt(MRJobConfig.TASK_PARTITION, 0);  // Cada Mapper começa o rodízio em uma partição diferente
+        hot.clear();
+        dedicated.clear();
+        String encoded = conf.get(HOT_KEYS, "");
+        if (encoded.isEmpty()) {
+            return;
+        }
+        try {
+            Class<?> keyClass = conf.getClass("mapreduce.map.output.key.class", null);
+            SerializationFactory factory = new SerializationFactory(conf);
+            @SuppressWarnings("unchecked")
+            Deserializer<Object> deserializer = factory.getDeserializer((Class<Object>) keyClass);
+            DataInputBuffer in = new DataInputBuffer();
+            deserializer.open(in);
+            for (String entry : encoded.split(",")) {
+                int colon = entry.lastIndexOf(':');
+                byte[] bytes = Base64.getDecoder().decode(entry.substring(0, colon));
+                in.reset(bytes, bytes.length);
+                Object key = deserializer.deserialize(null);
+                hot.put(key, Integer.parseInt(entry.substring(colon + 1)));
+                dedicated.put(key, dedicated.size());
+            }
+            deserializer.close();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Chaves quentes inválidas em " + HOT_KEYS, e);
+        }
+    }
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+
+    @Override
+    public int getPartition(K key, V value, int numPartitions) {
+        int hash = key.hashCode() & Integer.MAX_VALUE;
+        Integer spread = hot.get(key);
+        if (salted) {
+            if (spread == null) {
+                return hash % numPartitions;
+            }
+            return (int) ((hash + next++ % spread) % numPartitions);  // Rodízio entre "spread" partições vizinhas
+        }
+
+        int reserved = Math.min(dedicated.size(), numPartitions - 1);  // Sempre sobra uma partição para as demais
+        if (spread != null) {
+            return dedicated.get(key) % Math.max(1, reserved);
+        }
+        return reserved + hash % (numPartitions - reserved);
+    }
+
+    /**
+     * Grava na configuração as chaves quentes da amostra da saída do Mapper.
+     * @param j O job configurado (com o número final de Reducers)
+     * @param sample A amostra da saída do Mapper do job
+     * @return A quantidade de chaves quentes encontradas
+     */
+    @SuppressWarnings("unchecked")
+    public static int setHotKeys(Job j, MapOutputSample sample) throws IOException {
+        int reduces = j.getNumReduceTasks();
+        long total = sample.getRecords();
+
+        // Quente: mais registros que a parcela de um Reducer; espalhada pelo número de Reducers que a sua carga ocupa
+        Serializer<Object> serializer = new SerializationFactory(j.getConfiguration()).getSerializer((Class<Object>) j.getMapOutputKeyClass());
+        DataOutputBuffer out = new DataOutputBuffer();
+        serializer.open(out);
+        List<String> hotKeys = new ArrayList<>();
+        for (Map.Entry<Object, long[]> entry : sample.getCounts().entrySet()) {
+            long count = entry.getValue()[0];
+            if (count * reduces > total) {
+                int spread = (int) Math.min(reduces, (count * reduces + total - 1) / total);
+                out.reset();
+                serializer.serialize(entry.getKey());
+                byte[] bytes = Arrays.copyOf(out.getData(), out.getLength());
+                hotKeys.add(Base64.getEncoder().encodeToString(bytes) + ":" + spread);
+                LOG.info(String.format("Chave quente %s: %.1f%% da amostra, espalhada por %d Reducers",
+                        entry.getKey(), 100.0 * count / total, spread));
+            }
+        }
+        serializer.close();
+        j.getConfiguration().set(HOT_KEYS, String.join(",", hotKeys));
+        return hotKeys.size();
+    }
+}
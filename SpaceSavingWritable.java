@@ -0,0 +1,261 @@
+package TDE2;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumo Space-Saving (Metwally et al.) dos itens mais pesados de um fluxo, com no máximo capacity itens.
+ *
+ * Cada item monitorado tem um peso acumulado (ex.: soma de trade_usd) e um erro máximo. Um item novo com
+ * o resumo cheio substitui o de menor peso e herda esse peso como erro, então o peso real de cada item
+ * está entre getWeight() - getError() e getWeight(), e todo item com peso real acima de total/capacity
+ * está no resumo. Os itens ficam em um heap de mínimo indexado por um HashMap, e dois resumos se fundem
+ * somando os pesos (o mínimo de um resumo cheio limita o peso dos itens que ele não monitora).
+ */
+public class SpaceSavingWritable implements Writable {
+
+    public static final int DEFAULT_CAPACITY = 100;
+
+    /**
+     * Um item monitorado.
+     */
+    public static class Entry {
+
+        private final Text item = new Text();
+        private double weight;  // Peso acumulado (limite superior do peso real)
+        private double error;   // Quanto do peso pode ter sido herdado de itens substituídos
+        private int index;      // Posição no heap
+
+        public Text getItem() {
+            return item;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public double getError() {
+            return error;
+        }
+    }
+
+    private int capacity;
+    private Entry[] heap;  // Heap de mínimo pelo peso
+    private int size;
+    private final Map<Text, Entry> entries = new HashMap<>();
+    private final Text probe = new Text();  // Chave de busca reutilizada
+
+    /**
+     * Construtor vazio padrão (necessário para serialização)
+     */
+    public SpaceSavingWritable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Quantidade máxima de itens monitorados
+     */
+    public SpaceSavingWritable(int capacity) {
+        setCapacity(capacity);
+    }
+
+    private void setCapacity(int capacity) {
+        this.capacity = capacity;
+        heap = new Entry[capacity];
+        size = 0;
+        entries.clear();
+    }
+
+    /**
+     * Esvazia o resumo.
+     */
+    public void clear() {
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
+        entries.clear();
+    }
+
+    /**
+     * Acrescenta peso a um item.
+     * @param bytes Os bytes do item
+     * @param start O início do item
+     * @param length O tamanho do item
+     * @param weight O peso (ex.: o valor da transação)
+     */
+    public void add(byte[] bytes, int start, int length, double weight) {
+        probe.set(bytes, start, length);
+        add(probe, weight, 0);
+    }
+
+    private void add(Text item, double weight, double error) {
+        Entry entry = entries.get(item);
+        if (entry != null) {
+            entry.weight += weight;
+            entry.error += error;
+            siftDown(entry.index);
+            return;
+        }
+        if (size < capacity) {
+            entry = new Entry();
+            entry.item.set(item);
+            entry.weight = weight;
+            entry.error = error;
+            entry.index = size;
+            heap[size++] = entry;
+            entries.put(entry.item, entry);
+            siftUp(entry.index);
+            return;
+        }
+
+        // Resumo cheio: o item de menor peso dá lugar ao novo, que herda o seu peso como erro
+        entry = heap[0];
+        entries.remove(entry.item);
+        entry.error = entry.weight + error;
+        entry.weight += weight;
+        entry.item.set(item);
+        entries.put(entry.item, entry);
+        siftDown(0);
+    }
+
+    /**
+     * Funde outro resumo neste, mantendo os capacity itens de maior peso.
+     * @param other O resumo parcial (não é alterado)
+     */
+    public void merge(SpaceSavingWritable other) {
+        double missingHere = size == capacity ? heap[0].weight : 0;  // Peso máximo de um item não monitorado aqui
+        double missingThere = other.size == other.capacity ? other.heap[0].weight : 0;
+
+        List<Entry> union = new ArrayList<>(size + other.size);
+        for (int i = 0; i < size; i++) {
+            Entry mine = heap[i];
+            Entry theirs = other.entries.get(mine.item);
+            union.add(combined(mine, theirs == null ? missingThere : theirs.weight,
+                    theirs == null ? missingThere : theirs.error));
+        }
+        for (int i = 0; i < other.size; i++) {
+            Entry theirs = other.heap[i];
+            if (!entries.containsKey(theirs.item)) {
+                union.add(combined(theirs, missingHere, missingHere));
+            }
+        }
+
+        union.sort((a, b) -> Double.compare(b.weight, a.weight));
+        clear();
+        for (int i = 0; i < Math.min(capacity, union.size()); i++) {
+            Entry entry = union.get(i);
+            add(entry.item, entry.weight, entry.error);
+        }
+    }
+
+    private static Entry combined(Entry entry, double weight, double error) {
+        Entry copy = new Entry();
+        copy.item.set(entry.item);
+        copy.weight = entry.weight + weight;
+        copy.error = entry.error + error;
+        return copy;
+    }
+
+    /**
+     * @param n Quantidade de itens desejada
+     * @return Os n itens de maior peso, em ordem decrescente
+     */
+    public List<Entry> getTop(int n) {
+        List<Entry> sorted = new ArrayList<>(Arrays.asList(heap).subList(0, size));
+        sorted.sort((a, b) -> Double.compare(b.weight, a.weight));
+        return sorted.subList(0, Math.min(n, sorted.size()));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int i) {
+        Entry entry = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].weight <= entry.weight) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(entry, i);
+    }
+
+    private void siftDown(int i) {
+        Entry entry = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].weight < heap[child].weight) {
+                child++;
+            }
+            if (entry.weight <= heap[child].weight) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(entry, i);
+    }
+
+    private void place(Entry entry, int i) {
+        heap[i] = entry;
+        entry.index = i;
+    }
+
+    @Override
+    public void write(DataOutput dataOutput) throws IOException {
+        WritableUtils.writeVInt(dataOutput, capacity);
+        WritableUtils.writeVInt(dataOutput, size);
+        for (int i = 0; i < size; i++) {
+            heap[i].item.write(dataOutput);
+            dataOutput.writeDouble(heap[i].weight);
+            dataOutput.writeDouble(heap[i].error);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput dataInput) throws IOException {
+        int newCapacity = WritableUtils.readVInt(dataInput);
+        if (newCapacity != capacity) {
+            setCapacity(newCapacity);
+        } else {
+            clear();
+        }
+        int count = WritableUtils.readVInt(dataInput);
+        for (int i = 0; i < count; i++) {
+            probe.readFields(dataInput);
+            double weight = dataInput.readDouble();
+            double error = dataInput.readDouble();
+            add(probe, weight, error);
+        }
+    }
+
+    /**
+     * @return Os itens monitorados em ordem decrescente de peso
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (Entry entry : getTop(size)) {
+            if (out.length() > 0) {
+                out.append(", ");
+            }
+            out.append(entry.item).append(": ").append(entry.weight);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,204 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Chave do modo aproximado: a chave original do Mapper, serializada, marcada com o split de onde veio
+ * e o tamanho desse split em bytes. Serializada como o tamanho da chave original (vint), os seus bytes,
+ * o identificador do split (long) e o tamanho do split (long).
+ *
+ * Comparator ordena pela chave original (com o comparador registrado para a classe "tde2.sample.key.class")
+ * e depois pelo split, de modo que o combiner só funde registros de um mesmo split; KeyComparator agrupa
+ * só pela chave original, e cada chamada a reduce() recebe os parciais de todos os splits em ordem de split,
+ * como na ordenação secundária do CountryYearKey.
+ */
+public class SplitTaggedKey implements WritableComparable<SplitTaggedKey> {
+
+    public final static String KEY_CLASS = "tde2.sample.key.class";  // Classe da chave original do Mapper
+
+    private byte[] key = new byte[16];  // Chave original serializada
+    private int length;
+    private long split;        // Identificador do split de origem
+    private long splitLength;  // Tamanho do split em bytes
+    private final DataInputBuffer reader = new DataInputBuffer();
+
+    /**
+     * Construtor vazio padrão (necessário para serialização)
+     */
+    public SplitTaggedKey() {
+    }
+
+    /**
+     * Define a chave original a partir dos seus bytes serializados, sem alterar o split.
+     */
+    public void setKey(byte[] bytes, int start, int length) {
+        if (key.length < length) {
+            key = new byte[length * 2];
+        }
+        System.arraycopy(bytes, start, key, 0, length);
+        this.length = length;
+    }
+
+    public void setSplit(long split, long splitLength) {
+        this.split = split;
+        this.splitLength = splitLength;
+    }
+
+    public long getSplit() {
+        return split;
+    }
+
+    public long getSplitLength() {
+        return splitLength;
+    }
+
+    /**
+     * Desserializa a chave original.
+     * @param target A instância da classe original que recebe a chave
+     */
+    public void getKey(Writable target) throws IOException {
+        reader.reset(key, 0, length);
+        target.readFields(reader);
+    }
+
+    /**
+     * @param conf A configuração do job
+     * @return Uma instância vazia da classe da chave original
+     */
+    public static Writable newKey(Configuration conf) {
+        return ReflectionUtils.newInstance(conf.getClass(KEY_CLASS, null, Writable.class), conf);
+    }
+
+    @Override
+    public void write(DataOutput dataOutput) throws IOException {
+        WritableUtils.writeVInt(dataOutput, length);
+        dataOutput.write(key, 0, length);
+        dataOutput.writeLong(split);
+        dataOutput.writeLong(splitLength);
+    }
+
+    @Override
+    public void readFields(DataInput dataInput) throws IOException {
+        int size = WritableUtils.readVInt(dataInput);
+        if (key.length < size) {
+            key = new byte[size * 2];
+        }
+        dataInput.readFully(key, 0, size);
+        length = size;
+        split = dataInput.readLong();
+        splitLength = dataInput.readLong();
+    }
+
+    /**
+     * Ordem dos bytes da chave original e depois do split; os jobs usam o Comparator, que respeita a ordem da classe original.
+     */
+    @Override
+    public int compareTo(SplitTaggedKey other) {
+        int byKey = WritableComparator.compareBytes(key, 0, length, other.key, 0, other.length);
+        return byKey != 0 ? byKey : Long.compare(split, other.split);
+    }
+
+    /**
+     * Igualdade pela chave original, como o agrupamento: a amostra do MapOutputSample conta chaves distintas, não splits.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SplitTaggedKey)) {
+            return false;
+        }
+        SplitTaggedKey other = (SplitTaggedKey) o;
+        return WritableComparator.compareBytes(key, 0, length, other.key, 0, other.length) == 0;
+    }
+
+    /**
+     * Hash só da chave original: o HashPartitioner manda os parciais de todos os splits ao mesmo Reducer.
+     */
+    @Override
+    public int hashCode() {
+        return WritableComparator.hashBytes(key, length);
+    }
+
+    @Override
+    public String toString() {
+        return "split " + split + " (" + splitLength + " bytes)";
+    }
+
+    /**
+     * Comparador que ordena chaves serializadas pela chave original e depois pelo split, sem desserializá-las.
+     */
+    public static class Comparator extends WritableComparator {
+
+        private RawComparator<?> keys;  // Comparador da chave original
+
+        public Comparator() {
+            super(SplitTaggedKey.class);
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public void setConf(Configuration conf) {
+            super.setConf(conf);
+            if (conf != null) {
+                keys = WritableComparator.get((Class) conf.getClass(KEY_CLASS, null, WritableComparable.class), conf);
+            }
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            try {
+                int prefix1 = WritableUtils.decodeVIntSize(b1[s1]);
+                int prefix2 = WritableUtils.decodeVIntSize(b2[s2]);
+                int length1 = readVInt(b1, s1);
+                int length2 = readVInt(b2, s2);
+                int byKey = keys.compare(b1, s1 + prefix1, length1, b2, s2 + prefix2, length2);
+                if (byKey != 0 || !bySplit()) {
+                    return byKey;
+                }
+                return Long.compare(readLong(b1, s1 + prefix1 + length1), readLong(b2, s2 + prefix2 + length2));
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public int compare(WritableComparable a, WritableComparable b) {
+            SplitTaggedKey first = (SplitTaggedKey) a;
+            SplitTaggedKey second = (SplitTaggedKey) b;
+            int byKey = keys.compare(first.key, 0, first.length, second.key, 0, second.length);
+            if (byKey != 0 || !bySplit()) {
+                return byKey;
+            }
+            return Long.compare(first.split, second.split);
+        }
+
+        /**
+         * @return true se chaves iguais de splits diferentes são diferentes
+         */
+        protected boolean bySplit() {
+            return true;
+        }
+    }
+
+    /**
+     * Comparador de agrupamento: chaves originais iguais, de qualquer split, são iguais.
+     */
+    public static class KeyComparator extends Comparator {
+
+        @Override
+        protected boolean bySplit() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package TDE2;
+
+/**
+ * Base dos Mappers de valores: emite o próprio StatsWritable da tabela de agregação, sem cópia.
+ */
+public abstract class StatsMapper<KEYIN, VALUEIN, KEYOUT> extends AggregatingMapper<KEYIN, VALUEIN, KEYOUT, StatsWritable> {
+
+    @Override
+    protected StatsWritable outputValue(StatsWritable stats) {
+        return stats;  // Serializado na emissão; a tabela só o reutiliza depois
+    }
+}
@@ -0,0 +1,38 @@
+package TDE2;
+
+import org.apache.hadoop.mapreduce.Reducer;
+
+import java.io.IOException;
+
+/**
+ * Reducer que funde todos os StatsWritable de uma chave em um único resumo.
+ * Como a fusão é associativa e a saída tem o mesmo tipo da entrada, a classe serve também como combiner.
+ * A chave é repassada sem alteração, então serve para qualquer tipo de chave (Text, YearKey, ...).
+ */
+public class StatsReducer<K> extends Reducer<K, StatsWritable, K, StatsWritable> {
+
+    private StatsWritable total = new StatsWritable();  // Resumo acumulado da chave
+    private KeyHistogram histogram;  // Registros recebidos por chave
+
+    @Override
+    protected void setup(Context context) {
+        histogram = new KeyHistogram(context);
+    }
+
+    @Override
+    public void reduce(K key, Iterable<StatsWritable> values, Context context) throws IOException, InterruptedException {
+        total.clear();
+        long records = 0;
+        for (StatsWritable value : values) {  // Itera sobre os resumos parciais
+            total.merge(value);
+            records++;
+        }
+        histogram.add(records);
+        context.write(key, total);  // Emite a chave com o resumo completo
+    }
+
+    @Override
+    protected void cleanup(Context context) {
+        histogram.close();
+    }
+}
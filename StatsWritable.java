@@ -0,0 +1,272 @@
+package TDE2;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Classe personalizada StatsWritable que resume um conjunto de valores de transações:
+ * contagem, soma, soma dos quadrados, mínimo e máximo. O resumo é associativo (merge), então
+ * o mesmo objeto serve para o Mapper, o combiner e o Reducer, e dele saem média e variância.
+ * As somas usam compensação de Kahan para não perder precisão com bilhões de valores.
+ * A serialização tem tamanho fixo (SERIALIZED_SIZE bytes), o que permite ler os campos direto dos bytes.
+ */
+public class StatsWritable implements WritableComparable<StatsWritable> {
+
+    public static final int SERIALIZED_SIZE = 8 * 7;  // count, sum, sumC, sumSquares, sumSquaresC, min, max
+
+    private long count;                    // Quantidade de transações
+    private double sum;                    // Soma dos valores
+    private double sumCompensation;        // Parte perdida da soma (Kahan)
+    private double sumSquares;             // Soma dos quadrados dos valores
+    private double sumSquaresCompensation; // Parte perdida da soma dos quadrados (Kahan)
+    private double min = Double.POSITIVE_INFINITY;  // Menor valor
+    private double max = Double.NEGATIVE_INFINITY;  // Maior valor
+
+    /**
+     * Construtor vazio padrão (necessário para serialização)
+     */
+    public StatsWritable() {
+    }
+
+    /**
+     * Construtor que inicializa o resumo com um único valor.
+     * @param value O valor da transação
+     */
+    public StatsWritable(double value) {
+        add(value);
+    }
+
+    /**
+     * Volta ao resumo vazio.
+     */
+    public void clear() {
+        count = 0;
+        sum = 0;
+        sumCompensation = 0;
+        sumSquares = 0;
+        sumSquaresCompensation = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Acrescenta um valor ao resumo.
+     * @param value O valor da transação
+     */
+    public void add(double value) {
+        count++;
+        addToSum(value);
+        addToSumSquares(value * value);
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Acrescenta ocorrências que não têm valor associado (ex.: contagens simples).
+     * @param occurrences Quantidade de ocorrências
+     */
+    public void addCount(long occurrences) {
+        count += occurrences;
+    }
+
+    /**
+     * Funde outro resumo neste. A operação é associativa e comutativa.
+     * @param other O resumo parcial
+     */
+    public void merge(StatsWritable other) {
+        count += other.count;
+        addToSum(other.sum);
+        addToSum(-other.sumCompensation);
+        addToSumSquares(other.sumSquares);
+        addToSumSquares(-other.sumSquaresCompensation);
+        if (other.min < min) {
+            min = other.min;
+        }
+        if (other.max > max) {
+            max = other.max;
+        }
+    }
+
+    /**
+     * Copia o conteúdo de outro resumo.
+     * @param other O resumo de origem
+     */
+    public void set(StatsWritable other) {
+        count = other.count;
+        sum = other.sum;
+        sumCompensation = other.sumCompensation;
+        sumSquares = other.sumSquares;
+        sumSquaresCompensation = other.sumSquaresCompensation;
+        min = other.min;
+        max = other.max;
+    }
+
+    private void addToSum(double value) {
+        double y = value - sumCompensation;
+        double t = sum + y;
+        sumCompensation = (t - sum) - y;
+        sum = t;
+    }
+
+    private void addToSumSquares(double value) {
+        double y = value - sumSquaresCompensation;
+        double t = sumSquares + y;
+        sumSquaresCompensation = (t - sumSquares) - y;
+        sumSquares = t;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum - sumCompensation;
+    }
+
+    public double getSumSquares() {
+        return sumSquares - sumSquaresCompensation;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return A média dos valores (0 para um resumo vazio)
+     */
+    public double getMean() {
+        return count == 0 ? 0 : getSum() / count;
+    }
+
+    /**
+     * @return A variância populacional dos valores (0 para um resumo vazio)
+     */
+    public double getVariance() {
+        if (count == 0) {
+            return 0;
+        }
+        double mean = getMean();
+        return Math.max(0, getSumSquares() / count - mean * mean);
+    }
+
+    /**
+     * Método de serialização: escreve os dados do objeto para saída.
+     * @param dataOutput O fluxo de saída
+     */
+    @Override
+    public void write(DataOutput dataOutput) throws IOException {
+        dataOutput.writeLong(count);
+        dataOutput.writeDouble(sum);
+        dataOutput.writeDouble(sumCompensation);
+        dataOutput.writeDouble(sumSquares);
+        dataOutput.writeDouble(sumSquaresCompensation);
+        dataOutput.writeDouble(min);
+        dataOutput.writeDouble(max);
+    }
+
+    /**
+     * Método de desserialização: lê os dados do objeto a partir da entrada.
+     * @param dataInput O fluxo de entrada
+     */
+    @Override
+    public void readFields(DataInput dataInput) throws IOException {
+        count = dataInput.readLong();
+        sum = dataInput.readDouble();
+        sumCompensation = dataInput.readDouble();
+        sumSquares = dataInput.readDouble();
+        sumSquaresCompensation = dataInput.readDouble();
+        min = dataInput.readDouble();
+        max = dataInput.readDouble();
+    }
+
+    /**
+     * Lê a contagem diretamente de um StatsWritable serializado.
+     * @param bytes Os bytes serializados
+     * @param start O início do registro
+     * @return A contagem
+     */
+    public static long readCount(byte[] bytes, int start) {
+        return WritableComparator.readLong(bytes, start);
+    }
+
+    /**
+     * Lê a média diretamente de um StatsWritable serializado.
+     * @param bytes Os bytes serializados
+     * @param start O início do registro
+     * @return A média
+     */
+    public static double readMean(byte[] bytes, int start) {
+        long count = readCount(bytes, start);
+        if (count == 0) {
+            return 0;
+        }
+        double sum = WritableComparator.readDouble(bytes, start + 8) - WritableComparator.readDouble(bytes, start + 16);
+        return sum / count;
+    }
+
+    /**
+     * Ordena resumos pela contagem e, em seguida, pela média.
+     */
+    @Override
+    public int compareTo(StatsWritable other) {
+        int byCount = Long.compare(count, other.count);
+        return byCount != 0 ? byCount : Double.compare(getMean(), other.getMean());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof StatsWritable)) {
+            return false;
+        }
+        StatsWritable other = (StatsWritable) o;
+        return count == other.count && getSum() == other.getSum() && getSumSquares() == other.getSumSquares()
+                && min == other.min && max == other.max;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(count) * 31 + Double.hashCode(getSum());
+    }
+
+    /**
+     * Fornece uma representação legível de todas as estatísticas.
+     * @return A string com contagem, média, mínimo, máximo e variância
+     */
+    @Override
+    public String toString() {
+        return "Count: " + count + ", Mean: " + getMean() + ", Min: " + min + ", Max: " + max
+                + ", Variance: " + getVariance();
+    }
+
+    /**
+     * Comparador que ordena resumos serializados sem desserializá-los.
+     */
+    public static class Comparator extends WritableComparator {
+
+        public Comparator() {
+            super(StatsWritable.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            int byCount = Long.compare(readCount(b1, s1), readCount(b2, s2));
+            return byCount != 0 ? byCount : Double.compare(readMean(b1, s1), readMean(b2, s2));
+        }
+    }
+
+    static {
+        WritableComparator.define(StatsWritable.class, new Comparator());  // Registra o comparador binário
+    }
+}
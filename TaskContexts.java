@@ -0,0 +1,144 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.mapreduce.lib.reduce.WrappedReducer;
+import org.apache.hadoop.mapreduce.task.MapContextImpl;
+import org.apache.hadoop.mapreduce.task.ReduceContextImpl;
+
+import java.io.IOException;
+
+/**
+ * Contextos de Mapper e Reducer montados fora do framework (MapContextImpl/ReduceContextImpl embrulhados
+ * por WrappedMapper/WrappedReducer), para executar as classes do pacote direto na JVM atual.
+ */
+public final class TaskContexts {
+
+    private TaskContexts() {
+    }
+
+    /**
+     * Cria o contexto de um Mapper.
+     * @param conf A configuração vista pelo Mapper
+     * @param attempt A tentativa de tarefa informada ao Mapper
+     * @param reader A origem dos pares de entrada (pode ser null se map() for chamado diretamente)
+     * @param writer O destino dos pares emitidos
+     * @param reporter Os contadores da tarefa
+     * @return O contexto, pronto para Mapper.run()
+     */
+    public static <KI, VI, KO, VO> Mapper<KI, VI, KO, VO>.Context mapContext(Configuration conf, TaskAttemptID attempt,
+            RecordReader<KI, VI> reader, RecordWriter<KO, VO> writer, StatusReporter reporter) {
+        return mapContext(conf, attempt, reader, writer, null, reporter, null);
+    }
+
+    /**
+     * Cria o contexto de um Mapper que lê um split e grava pela saída do job.
+     * @param committer O committer da saída do job (ou null)
+     * @param split O split lido pelo reader (ou null)
+     * @see #mapContext(Configuration, TaskAttemptID, RecordReader, RecordWriter, StatusReporter)
+     */
+    public static <KI, VI, KO, VO> Mapper<KI, VI, KO, VO>.Context mapContext(Configuration conf, TaskAttemptID attempt,
+            RecordReader<KI, VI> reader, RecordWriter<KO, VO> writer, OutputCommitter committer, StatusReporter reporter,
+            InputSplit split) {
+        MapContextImpl<KI, VI, KO, VO> mapContext = new MapContextImpl<>(conf, attempt, reader, writer, committer, reporter, split);
+        return new WrappedMapper<KI, VI, KO, VO>().getMapContext(mapContext);
+    }
+
+    /**
+     * Cria o contexto de um Reducer sobre pares já serializados e ordenados.
+     * @param conf A configuração vista pelo Reducer
+     * @param attempt A tentativa de tarefa informada ao Reducer
+     * @param input Os pares serializados, na ordem do comparator
+     * @param writer O destino dos pares emitidos
+     * @param reporter Os contadores da tarefa
+     * @param comparator O comparator que agrupa as chaves
+     * @param keyClass A classe da chave de entrada
+     * @param valueClass A classe do valor de entrada
+     * @return O contexto, pronto para Reducer.run()
+     */
+    public static <KI, VI, KO, VO> Reducer<KI, VI, KO, VO>.Context reduceContext(Configuration conf, TaskAttemptID attempt,
+            RawKeyValueIterator input, RecordWriter<KO, VO> writer, StatusReporter reporter, RawComparator<KI> comparator,
+            Class<KI> keyClass, Class<VI> valueClass) throws IOException, InterruptedException {
+        return reduceContext(conf, attempt, input, reporter.getCounter(TaskCounter.REDUCE_INPUT_GROUPS),
+                reporter.getCounter(TaskCounter.REDUCE_INPUT_RECORDS), writer, null, reporter, comparator, keyClass, valueClass);
+    }
+
+    /**
+     * Cria o contexto de um Reducer (ou combiner) com os contadores de entrada e o committer escolhidos.
+     * @param keyCounter O contador de grupos de entrada (ou null)
+     * @param valueCounter O contador de valores de entrada
+     * @param committer O committer da saída do job (ou null)
+     * @see #reduceContext(Configuration, TaskAttemptID, RawKeyValueIterator, RecordWriter, StatusReporter, RawComparator, Class, Class)
+     */
+    public static <KI, VI, KO, VO> Reducer<KI, VI, KO, VO>.Context reduceContext(Configuration conf, TaskAttemptID attempt,
+            RawKeyValueIterator input, Counter keyCounter, Counter valueCounter, RecordWriter<KO, VO> writer,
+            OutputCommitter committer, StatusReporter reporter, RawComparator<KI> comparator, Class<KI> keyClass,
+            Class<VI> valueClass) throws IOException, InterruptedException {
+        ReduceContextImpl<KI, VI, KO, VO> reduceContext = new ReduceContextImpl<>(conf, attempt, input, keyCounter,
+                valueCounter, writer, committer, reporter, comparator, keyClass, valueClass);
+        return new WrappedReducer<KI, VI, KO, VO>().getReducerContext(reduceContext);
+    }
+
+    /**
+     * StatusReporter que só guarda os contadores, sem progresso nem status.
+     */
+    public static class CounterReporter extends StatusReporter {
+
+        private final Counters counters = new Counters();
+
+        public Counters getCounters() {
+            return counters;
+        }
+
+        @Override
+        public Counter getCounter(Enum<?> name) {
+            return counters.findCounter(name);
+        }
+
+        @Override
+        public Counter getCounter(String group, String name) {
+            return counters.findCounter(group, name);
+        }
+
+        @Override
+        public void progress() {
+        }
+
+        @Override
+        public float getProgress() {
+            return 0;
+        }
+
+        @Override
+        public void setStatus(String status) {
+        }
+    }
+
+    /**
+     * RecordWriter que descarta os pares, para medir só o trabalho do Mapper/Reducer.
+     */
+    public static class DiscardingWriter<K, V> extends RecordWriter<K, V> {
+
+        @Override
+        public void write(K key, V value) {
+        }
+
+        @Override
+        public void close(TaskAttemptContext context) {
+        }
+    }
+}
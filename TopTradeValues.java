@@ -0,0 +1,180 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe principal que encontra, em uma única passada, as mercadorias e os países com maior soma de
+ * trade_usd em cada ano. Cada Mapper mantém um SpaceSavingWritable limitado por chave
+ * ("commodity;<ano>" ou "country;<ano>") e emite só esses candidatos no cleanup(); um único Reducer
+ * funde os resumos e grava os N primeiros com o erro máximo de cada peso.
+ * Com -D tde2.topk.n=<N> e -D tde2.topk.capacity=<itens monitorados> (padrão: 10 e 100).
+ */
+public class TopTradeValues {
+
+    public final static String TOP_N = "tde2.topk.n";              // Itens gravados por chave
+    public final static String CAPACITY = "tde2.topk.capacity";    // Itens monitorados por chave em cada Mapper
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();
+
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+
+        Path input = new Path("in/operacoes_comerciais_inteira.csv");  // Caminho para o arquivo CSV de entrada
+        Path output = new Path("output/top_trade_values");  // Caminho para o diretório de saída
+
+        if (c.getInt(CAPACITY, SpaceSavingWritable.DEFAULT_CAPACITY) < c.getInt(TOP_N, 10)) {
+            throw new IllegalArgumentException(CAPACITY + " deve ser maior ou igual a " + TOP_N);
+        }
+
+        Job j = Job.getInstance(c, "top-trade-values");
+
+        j.setJarByClass(TopTradeValues.class);
+        j.setMapperClass(MapForTopValues.class);
+        j.setReducerClass(ReduceForTopValues.class);
+        j.setNumReduceTasks(1);  // Todos os candidatos chegam ao mesmo Reducer
+
+        j.setMapOutputKeyClass(Text.class);
+        j.setMapOutputValueClass(SpaceSavingWritable.class);
+
+        j.setOutputKeyClass(Text.class);
+        j.setOutputValueClass(Text.class);
+
+        FileInputFormat.addInputPath(j, input);
+        FileOutputFormat.setOutputPath(j, output);
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
+    }
+
+    /**
+     * Mapper que acumula o valor de cada transação no resumo da mercadoria e no do país, para o ano da linha.
+     */
+    public static class MapForTopValues extends Mapper<LongWritable, Writable, Text, SpaceSavingWritable> {
+
+        private final static byte[] commodityPrefix = CsvFieldTokenizer.ascii("commodity;");
+        private final static byte[] countryPrefix = CsvFieldTokenizer.ascii("country;");
+
+        private Map<Text, SpaceSavingWritable> summaries = new HashMap<>();
+        private Text probe = new Text();  // Chave de busca reutilizada
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+        private int capacity;
+        private RowMetrics metrics;  // Destino de cada linha e tempo das fases
+
+        @Override
+        protected void setup(Context context) {
+            capacity = context.getConfiguration().getInt(CAPACITY, SpaceSavingWritable.DEFAULT_CAPACITY);
+            metrics = new RowMetrics(context);
+        }
+
+        @Override
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);
+            if (col.fieldCount() < 10) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
+                return;
+            }
+
+            double price;
+            try {
+                price = col.parseDouble(5);  // Converte o preço (sexta coluna) para double
+            } catch (NumberFormatException e) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
+                return;  // Ignora o cabeçalho e linhas com preços inválidos
+            }
+            metrics.parsed();
+            if (price < 0) {
+                metrics.filtered();
+                return;  // O Space-Saving só admite pesos não negativos
+            }
+            metrics.accepted();
+
+            summary(commodityPrefix).add(col.getBytes(), col.start(3), col.length(3), price);  // Quarta coluna: mercadoria
+            summary(countryPrefix).add(col.getBytes(), col.start(0), col.length(0), price);
+            context.getCounter(InMapperAggregator.Counters.AGGREGATED_RECORDS).increment(1);
+            metrics.emitted();
+        }
+
+        /**
+         * @return O resumo da chave "<prefixo><ano>", criado no primeiro uso
+         */
+        private SpaceSavingWritable summary(byte[] prefix) {
+            probe.set(prefix);
+            probe.append(col.getBytes(), col.start(1), col.length(1));
+            SpaceSavingWritable summary = summaries.get(probe);
+            if (summary == null) {
+                summary = new SpaceSavingWritable(capacity);
+                summaries.put(new Text(probe), summary);
+            }
+            return summary;
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            for (Map.Entry<Text, SpaceSavingWritable> entry : summaries.entrySet()) {
+                context.write(entry.getKey(), entry.getValue());  // Apenas os candidatos locais vão ao shuffle
+            }
+            metrics.close();
+        }
+    }
+
+    /**
+     * Reducer que funde os resumos de todos os Mappers e grava os N itens de maior valor de cada chave,
+     * um por linha: "<posição>. <item>: <soma de trade_usd> (erro máximo: <erro>)".
+     */
+    public static class ReduceForTopValues extends Reducer<Text, SpaceSavingWritable, Text, Text> {
+
+        private SpaceSavingWritable merged;
+        private Text line = new Text();
+        private int topN;
+        private KeyHistogram histogram;  // Registros recebidos por chave
+
+        @Override
+        protected void setup(Context context) {
+            Configuration conf = context.getConfiguration();
+            merged = new SpaceSavingWritable(conf.getInt(CAPACITY, SpaceSavingWritable.DEFAULT_CAPACITY));
+            topN = conf.getInt(TOP_N, 10);
+            histogram = new KeyHistogram(context);
+        }
+
+        @Override
+        public void reduce(Text key, Iterable<SpaceSavingWritable> values, Context context) throws IOException, InterruptedException {
+            merged.clear();
+            long records = 0;
+            for (SpaceSavingWritable value : values) {
+                merged.merge(value);
+                records++;
+            }
+            histogram.add(records);
+
+            List<SpaceSavingWritable.Entry> top = merged.getTop(topN);
+            for (int i = 0; i < top.size(); i++) {
+                SpaceSavingWritable.Entry entry = top.get(i);
+                line.set((i + 1) + ". " + entry.getItem() + ": " + entry.getWeight() + " (erro máximo: " + entry.getError() + ")");
+                context.write(key, line);
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context) {
+            histogram.close();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+
+import java.io.IOException;
+
+/**
+ * Classe principal que calcula o total em dólares das transações por região e grupo de mercadorias,
+ * gravado em output/trade_by_region como "<região>;<grupo>	Total: <soma>, Count: <linhas>".
+ *
+ * A região (pelo país) e o grupo (pelos dois primeiros dígitos do código da mercadoria, o capítulo do SH) vêm de
+ * duas tabelas de referência pequenas, enviadas a todos os Mappers pelo cache distribuído (ReferenceTable): o join
+ * é feito no map() de cada linha e apenas os totais já agregados vão ao shuffle. Países e capítulos fora das
+ * tabelas entram como "Unknown" e são contados em Join.
+ */
+public class TradeByRegion {
+
+    public final static String COUNTRIES = "tde2.join.countries";      // Tabela país;região
+    public final static String COMMODITIES = "tde2.join.commodities";  // Tabela capítulo;grupo
+
+    /**
+     * Resultado da consulta às tabelas de referência.
+     */
+    public enum Join {
+        MATCHED,              // Linhas com país e capítulo encontrados
+        UNKNOWN_COUNTRY,      // País fora da tabela de regiões
+        UNKNOWN_COMMODITY     // Capítulo fora da tabela de grupos
+    }
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();
+
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+
+        Path input = new Path("in/operacoes_comerciais_inteira.csv");  // Caminho para o arquivo CSV de entrada
+        Path output = new Path("output/trade_by_region");  // Caminho para o diretório de saída
+
+        Job j = Job.getInstance(c, "trade-by-region");
+
+        j.setJarByClass(TradeByRegion.class);
+        j.setMapperClass(MapForRegion.class);
+        j.setCombinerClass(StatsReducer.class);  // Funde os resumos parciais antes do shuffle
+        j.setReducerClass(ReduceForRegion.class);
+
+        j.setMapOutputKeyClass(Text.class);
+        j.setMapOutputValueClass(StatsWritable.class);
+
+        j.setOutputKeyClass(Text.class);
+        j.setOutputValueClass(Text.class);
+
+        // As tabelas são lidas uma vez por tarefa, direto do cache distribuído
+        ReferenceTable.addCacheFile(j, new Path(c.get(COUNTRIES, "in/paises_regioes.csv")), COUNTRIES);
+        ReferenceTable.addCacheFile(j, new Path(c.get(COMMODITIES, "in/grupos_mercadorias.csv")), COMMODITIES);
+
+        FileInputFormat.addInputPath(j, input);
+        FileOutputFormat.setOutputPath(j, output);
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
+    }
+
+    /**
+     * Classe Mapper que junta cada linha às tabelas de referência e acumula o valor por região e grupo.
+     */
+    public static class MapForRegion extends StatsMapper<LongWritable, Writable, Text> {
+
+        private final static byte[] unknown = CsvFieldTokenizer.ascii("Unknown");  // Região ou grupo não encontrado
+        private final static byte[] delimiter = {CsvFieldTokenizer.DELIMITER};
+
+        private ReferenceTable regions;  // País -> região
+        private ReferenceTable groups;   // Capítulo do SH -> grupo de mercadorias
+        private Text regionGroup = new Text();  // Chave reutilizada ("<região>;<grupo>")
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+        private long matched;
+        private long unknownCountries;
+        private long unknownCommodities;
+
+        @Override
+        protected void setup(Context context) throws IOException, InterruptedException {
+            super.setup(context);
+            regions = ReferenceTable.load(context, COUNTRIES);
+            groups = ReferenceTable.load(context, COMMODITIES);
+        }
+
+        @Override
+        protected Text outputKey(byte[] key, int start, int length) {
+            regionGroup.set(key, start, length);
+            return regionGroup;
+        }
+
+        @Override
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);
+            if (col.fieldCount() < 10) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
+                return;
+            }
+
+            double price;
+            try {
+                price = col.parseDouble(5);  // Converte o preço (sexta coluna) para double
+            } catch (NumberFormatException e) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
+                return;  // Ignora o cabeçalho e linhas com preços inválidos
+            }
+            metrics.parsed();
+            metrics.accepted();
+
+            int region = regions.find(col.getBytes(), col.start(0), col.length(0));
+            int group = groups.find(col.getBytes(), col.start(2), Math.min(2, col.length(2)));  // Capítulo: dois primeiros dígitos
+
+            regionGroup.clear();
+            if (region >= 0) {
+                regionGroup.append(regions.getBytes(), regions.valueStart(region), regions.valueLength(region));
+            } else {
+                regionGroup.append(unknown, 0, unknown.length);
+                unknownCountries++;
+            }
+            regionGroup.append(delimiter, 0, 1);
+            if (group >= 0) {
+                regionGroup.append(groups.getBytes(), groups.valueStart(group), groups.valueLength(group));
+            } else {
+                regionGroup.append(unknown, 0, unknown.length);
+                unknownCommodities++;
+            }
+            if (region >= 0 && group >= 0) {
+                matched++;
+            }
+
+            aggregator.add(regionGroup.getBytes(), 0, regionGroup.getLength(), price);
+            metrics.emitted();
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            super.cleanup(context);
+            context.getCounter(Join.MATCHED).increment(matched);
+            context.getCounter(Join.UNKNOWN_COUNTRY).increment(unknownCountries);
+            context.getCounter(Join.UNKNOWN_COMMODITY).increment(unknownCommodities);
+        }
+    }
+
+    /**
+     * Classe Reducer que funde os resumos de cada região e grupo e grava o total e a quantidade de transações.
+     */
+    public static class ReduceForRegion extends Reducer<Text, StatsWritable, Text, Text> {
+
+        private StatsWritable total = new StatsWritable();  // Resumo acumulado da chave
+        private Text result = new Text();
+        private KeyHistogram histogram;  // Registros recebidos por chave
+
+        @Override
+        protected void setup(Context context) {
+            histogram = new KeyHistogram(context);
+        }
+
+        @Override
+        public void reduce(Text key, Iterable<StatsWritable> values, Context context) throws IOException, InterruptedException {
+            total.clear();
+            long records = 0;
+            for (StatsWritable value : values) {
+                total.merge(value);
+                records++;
+            }
+            histogram.add(records);
+
+            result.set("Total: " + total.getSum() + ", Count: " + total.getCount());
+            context.write(key, result);
+        }
+
+        @Override
+        protected void cleanup(Context context) {
+            histogram.close();
+        }
+    }
+}
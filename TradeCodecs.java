@@ -0,0 +1,155 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.io.compress.SplittableCompressionCodec;
+import org.apache.hadoop.io.compress.zlib.ZlibFactory;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compressão da entrada, do shuffle e da saída dos jobs do TDE2, aplicada pelo TradeJobs.waitForCompletion().
+ *
+ * Os codecs são escolhidos pelo nome curto do Hadoop (deflate, gzip, bzip2, snappy, lz4, zstd):
+ *   -D tde2.codec.map.output=<codec>  comprime a saída dos Mappers antes do shuffle;
+ *   -D tde2.codec.output=<codec>      comprime os arquivos de output/ (SequenceFiles em blocos);
+ *   -D tde2.output.binary=true        grava SequenceFile no lugar do texto, para ser lido por outro job;
+ *   -D tde2.codec.input=<codec>       lê o CSV comprimido (caminho + extensão do codec), gerado pelo main().
+ * O bzip2 é o único codec embutido que permite dividir o CSV comprimido entre vários Mappers.
+ * Sem a biblioteca nativa do Hadoop, o gzip do shuffle e dos SequenceFiles é trocado pelo DefaultCodec.
+ * O LocalTradeEngine mantém a saída dos Mappers em memória e ignora a compressão do shuffle.
+ */
+public final class TradeCodecs {
+
+    public final static String MAP_OUTPUT = "tde2.codec.map.output";
+    public final static String OUTPUT = "tde2.codec.output";
+    public final static String BINARY_OUTPUT = "tde2.output.binary";
+    public final static String INPUT = "tde2.codec.input";
+
+    private static final Logger LOG = Logger.getLogger(TradeCodecs.class);
+
+    private TradeCodecs() {
+    }
+
+    /**
+     * Gera a cópia comprimida do CSV de entrada com o codec de "-D tde2.codec.input" (padrão: bzip2).
+     */
+    public static void main(String[] args) throws IOException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();
+
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+
+        Path input = new Path("in/operacoes_comerciais_inteira.csv");  // Caminho para o arquivo CSV de entrada
+
+        CompressionCodec codec = codec(c, c.get(INPUT, "bzip2"));
+        Path output = input.suffix(codec.getDefaultExtension());
+        FileSystem fs = input.getFileSystem(c);
+        try (InputStream in = fs.open(input);
+             OutputStream out = codec.createOutputStream(fs.create(output, true))) {
+            IOUtils.copyBytes(in, out, 1 << 16);
+        }
+        LOG.info(String.format("%s: %d bytes -> %s: %d bytes", input, fs.getFileStatus(input).getLen(),
+                output, fs.getFileStatus(output).getLen()));
+    }
+
+    /**
+     * @param conf A configuração do job
+     * @return O codec do CSV de entrada, ou null se a entrada não é comprimida
+     */
+    public static CompressionCodec getInputCodec(Configuration conf) {
+        String name = conf.get(INPUT);
+        return name == null ? null : codec(conf, name);
+    }
+
+    /**
+     * Aplica ao job os codecs pedidos na configuração.
+     * @param j O job configurado
+     */
+    public static void configure(Job j) throws IOException, ClassNotFoundException {
+        Configuration conf = j.getConfiguration();
+
+        String mapOutput = conf.get(MAP_OUTPUT);
+        if (mapOutput != null) {
+            conf.setBoolean(MRJobConfig.MAP_OUTPUT_COMPRESS, true);
+            conf.setClass(MRJobConfig.MAP_OUTPUT_COMPRESS_CODEC, binaryCodec(conf, mapOutput).getClass(), CompressionCodec.class);
+        }
+
+        if (conf.getBoolean(BINARY_OUTPUT, false) && TextOutputFormat.class.equals(j.getOutputFormatClass())) {
+            j.setOutputFormatClass(SequenceFileOutputFormat.class);  // Chaves e valores na forma binária dos Writables
+        }
+        String output = conf.get(OUTPUT);
+        if (output != null) {
+            FileOutputFormat.setCompressOutput(j, true);
+            if (SequenceFileOutputFormat.class.equals(j.getOutputFormatClass())) {
+                FileOutputFormat.setOutputCompressorClass(j, binaryCodec(conf, output).getClass());
+                SequenceFileOutputFormat.setOutputCompressionType(j, SequenceFile.CompressionType.BLOCK);
+            } else {
+                FileOutputFormat.setOutputCompressorClass(j, codec(conf, output).getClass());
+            }
+        }
+
+        CompressionCodec input = getInputCodec(conf);
+        if (input != null && j.getInputFormatClass() == TextInputFormat.class) {
+            CompressionCodecFactory codecs = new CompressionCodecFactory(conf);
+            Path[] paths = FileInputFormat.getInputPaths(j);
+            for (int i = 0; i < paths.length; i++) {
+                if (codecs.getCodec(paths[i]) == null) {  // Caminhos já comprimidos ficam como estão
+                    paths[i] = paths[i].suffix(input.getDefaultExtension());
+                }
+            }
+            FileInputFormat.setInputPaths(j, paths);
+            if (!(input instanceof SplittableCompressionCodec)) {
+                LOG.warn(conf.get(INPUT) + " não é divisível: cada arquivo de entrada será lido por um único Mapper");
+            }
+        }
+    }
+
+    /**
+     * O shuffle (IFile) e o SequenceFile só usam o gzip com a zlib nativa; sem ela, o mesmo deflate
+     * é gravado pelo DefaultCodec, sem o cabeçalho gzip.
+     * @return O codec para dados binários do Hadoop
+     */
+    private static CompressionCodec binaryCodec(Configuration conf, String name) {
+        CompressionCodec codec = codec(conf, name);
+        if (codec instanceof GzipCodec && !ZlibFactory.isNativeZlibLoaded(conf)) {
+            LOG.warn("gzip sem a zlib nativa: o shuffle e os SequenceFiles usam o DefaultCodec");
+            return ReflectionUtils.newInstance(DefaultCodec.class, conf);
+        }
+        return codec;
+    }
+
+    /**
+     * @param conf A configuração do job
+     * @param name O nome curto ou a classe do codec
+     * @return O codec
+     */
+    private static CompressionCodec codec(Configuration conf, String name) {
+        CompressionCodec codec = new CompressionCodecFactory(conf).getCodecByName(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Codec desconhecido: " + name);
+        }
+        return codec;
+    }
+}
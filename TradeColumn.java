@@ -0,0 +1,30 @@
+package TDE2;
+
+/**
+ * Colunas do CSV de transações mantidas no formato colunar, na ordem em que os blocos as gravam.
+ * As demais colunas (peso, quantidade, ...) não são usadas pelas análises e são descartadas na conversão.
+ */
+public enum TradeColumn {
+    COUNTRY(0, true),     // País (dicionário)
+    YEAR(1, false),       // Ano (int)
+    COMMODITY(2, true),   // Código da mercadoria (dicionário)
+    FLOW(4, true),        // Tipo de fluxo: Export, Import, ... (dicionário)
+    TRADE_USD(5, false),  // Valor da transação em dólares (double)
+    CATEGORY(9, true);    // Categoria da mercadoria (dicionário)
+
+    private final int csvIndex;        // Posição da coluna no CSV original
+    private final boolean dictionary;  // true se a coluna é gravada com dicionário
+
+    TradeColumn(int csvIndex, boolean dictionary) {
+        this.csvIndex = csvIndex;
+        this.dictionary = dictionary;
+    }
+
+    public int getCsvIndex() {
+        return csvIndex;
+    }
+
+    public boolean isDictionary() {
+        return dictionary;
+    }
+}
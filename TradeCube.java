@@ -0,0 +1,261 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Cubo (país, ano, fluxo, categoria) gerado pelo TradeCubeBuilder, carregado em memória para consultas.
+ *
+ * Uma consulta filtra dimensões e agrupa pelas dimensões restantes, somando as células:
+ * <pre>
+ *     cube.query().where(TradeColumn.COUNTRY, "Brazil").groupBy(TradeColumn.YEAR).run()
+ * </pre>
+ * responde à média do Brasil por ano. Como o cubo tem no máximo algumas dezenas de milhares de células,
+ * cada consulta leva milissegundos, contra uma leitura completa do CSV por um job.
+ */
+public class TradeCube {
+
+    public final static String DIRECTORY = "output/trade_cube";  // Saída do TradeCubeBuilder
+
+    /**
+     * Dimensões do cubo, na ordem em que aparecem nas chaves.
+     */
+    public final static List<TradeColumn> DIMENSIONS = Arrays.asList(
+            TradeColumn.COUNTRY, TradeColumn.YEAR, TradeColumn.FLOW, TradeColumn.CATEGORY);
+
+    private static final Logger LOG = Logger.getLogger(TradeCube.class);
+
+    private final List<String[]> coordinates = new ArrayList<>();  // Valores das dimensões de cada célula
+    private final List<Cell> cells = new ArrayList<>();
+
+    /**
+     * Lê todas as partes do cubo gravado pelo TradeCubeBuilder.
+     * @param conf A configuração do Hadoop
+     * @param directory O diretório de saída do TradeCubeBuilder
+     * @return O cubo em memória
+     */
+    public static TradeCube load(Configuration conf, Path directory) throws IOException {
+        TradeCube cube = new TradeCube();
+        Map<String, Cell> byCoordinates = new HashMap<>();
+        FileSystem fs = directory.getFileSystem(conf);
+        Text key = new Text();
+        StatsWritable value = new StatsWritable();
+
+        for (FileStatus part : fs.globStatus(new Path(directory, "part-*"))) {
+            try (SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(part.getPath()))) {
+                while (reader.next(key, value)) {
+                    String coordinate = new String(key.getBytes(), 2, key.getLength() - 2, StandardCharsets.UTF_8);  // Sem "<marcação>;"
+                    Cell cell = byCoordinates.get(coordinate);
+                    if (cell == null) {
+                        cell = new Cell();
+                        byCoordinates.put(coordinate, cell);
+                        cube.coordinates.add(coordinate.split(";", -1));
+                        cube.cells.add(cell);
+                    }
+                    if (key.getBytes()[0] == TradeCubeBuilder.ROWS) {
+                        cell.rows += value.getCount();
+                    } else {
+                        cell.values.merge(value);
+                    }
+                }
+            }
+        }
+        return cube;
+    }
+
+    /**
+     * @return A quantidade de células não vazias do cubo
+     */
+    public int size() {
+        return cells.size();
+    }
+
+    /**
+     * @return Uma nova consulta sobre todo o cubo
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    private static int dimension(TradeColumn column) {
+        int index = DIMENSIONS.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("A coluna " + column + " não é uma dimensão do cubo");
+        }
+        return index;
+    }
+
+    /**
+     * Fatia do cubo: filtros de igualdade (sem diferenciar maiúsculas, como as análises do TDE2)
+     * e dimensões de agrupamento.
+     */
+    public class Query {
+
+        private final List<Integer> filterDimensions = new ArrayList<>();
+        private final List<String> filterValues = new ArrayList<>();
+        private int[] groups = new int[0];
+
+        /**
+         * Mantém apenas as células em que a dimensão tem o valor dado.
+         */
+        public Query where(TradeColumn column, String value) {
+            filterDimensions.add(dimension(column));
+            filterValues.add(value);
+            return this;
+        }
+
+        /**
+         * Agrupa o resultado pelas dimensões dadas; sem agrupamento, a consulta devolve um único total.
+         * Células com alguma dimensão de agrupamento vazia (linhas incompletas do CSV, que não têm a coluna)
+         * ficam fora do resultado, como nos jobs que agrupam por essa coluna.
+         */
+        public Query groupBy(TradeColumn... columns) {
+            groups = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                groups[i] = dimension(columns[i]);
+            }
+            return this;
+        }
+
+        /**
+         * Soma as células selecionadas por grupo.
+         * @return Os totais por grupo, ordenados pela chave (valores das dimensões separados por ";";
+         *         chave vazia sem agrupamento)
+         */
+        public SortedMap<String, Cell> run() {
+            SortedMap<String, Cell> result = new TreeMap<>();
+            StringBuilder group = new StringBuilder();
+            for (int i = 0; i < cells.size(); i++) {
+                String[] coordinate = coordinates.get(i);
+                if (!matches(coordinate)) {
+                    continue;
+                }
+                group.setLength(0);
+                boolean absent = false;
+                for (int g = 0; g < groups.length; g++) {
+                    if (g > 0) {
+                        group.append(';');
+                    }
+                    group.append(coordinate[groups[g]]);
+                    absent |= coordinate[groups[g]].isEmpty();
+                }
+                if (absent) {
+                    continue;
+                }
+                result.computeIfAbsent(group.toString(), k -> new Cell()).merge(cells.get(i));
+            }
+            return result;
+        }
+
+        private boolean matches(String[] coordinate) {
+            for (int f = 0; f < filterDimensions.size(); f++) {
+                if (!coordinate[filterDimensions.get(f)].equalsIgnoreCase(filterValues.get(f))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Medidas de uma célula (ou de um grupo de células): linhas e resumo dos valores em dólares válidos.
+     */
+    public static class Cell {
+
+        private long rows;                                     // Linhas, inclusive com preço inválido
+        private final StatsWritable values = new StatsWritable();  // Contagem, soma, mínimo e máximo dos valores
+
+        public long getRows() {
+            return rows;
+        }
+
+        public StatsWritable getValues() {
+            return values;
+        }
+
+        /**
+         * Soma outra célula a esta.
+         * @param other A célula a somar
+         */
+        public void merge(Cell other) {
+            rows += other.rows;
+            values.merge(other.values);
+        }
+
+        @Override
+        public String toString() {
+            return "Rows: " + rows + ", " + values;
+        }
+    }
+
+    /**
+     * Responde às sete análises do TDE2 a partir do cubo, no formato dos arquivos de saída de cada job.
+     */
+    public static void main(String[] args) throws IOException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();
+
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+
+        long start = System.nanoTime();
+        TradeCube cube = load(c, new Path(DIRECTORY));
+        LOG.info(String.format("%d células carregadas em %d ms", cube.size(), (System.nanoTime() - start) / 1000000));
+
+        start = System.nanoTime();
+        SortedMap<String, Cell> brazilCount = cube.query().where(TradeColumn.COUNTRY, "Brazil")
+                .groupBy(TradeColumn.COUNTRY).run();
+        SortedMap<String, Cell> brazilAverage = cube.query().where(TradeColumn.COUNTRY, "Brazil")
+                .groupBy(TradeColumn.YEAR).run();
+        SortedMap<String, Cell> brazilExportAverage = cube.query().where(TradeColumn.COUNTRY, "Brazil")
+                .where(TradeColumn.FLOW, "Export").groupBy(TradeColumn.YEAR).run();
+        SortedMap<String, Cell> brazilMinMax = cube.query().where(TradeColumn.COUNTRY, "Brazil")
+                .where(TradeColumn.YEAR, "2016").run();
+        SortedMap<String, Cell> perYear = cube.query().groupBy(TradeColumn.YEAR).run();
+        SortedMap<String, Cell> byFlow = cube.query().groupBy(TradeColumn.FLOW).run();
+        SortedMap<String, Cell> byCategory = cube.query().groupBy(TradeColumn.CATEGORY).run();
+        LOG.info(String.format("7 análises respondidas em %.2f ms", (System.nanoTime() - start) / 1e6));
+
+        printRows("brazil_transactions_number", brazilCount);
+        printValues("brazil_transactions_average", brazilAverage);
+        printValues("brazil_export_transactions_average", brazilExportAverage);
+        for (Cell cell : brazilMinMax.values()) {
+            System.out.println("== brazil_transactions_min_max");
+            System.out.println("Brazil_2016\t" + cell.getValues());
+        }
+        printRows("transactions_per_year", perYear);
+        printRows("transactions_by_flow", byFlow);
+        printRows("transactions_by_category", byCategory);
+    }
+
+    private static void printRows(String analysis, SortedMap<String, Cell> result) {
+        System.out.println("== " + analysis);
+        for (Map.Entry<String, Cell> entry : result.entrySet()) {
+            System.out.println(entry.getKey() + "\t" + entry.getValue().getRows());
+        }
+    }
+
+    private static void printValues(String analysis, SortedMap<String, Cell> result) {
+        System.out.println("== " + analysis);
+        for (Map.Entry<String, Cell> entry : result.entrySet()) {
+            System.out.println(entry.getKey() + "\t" + entry.getValue().getValues());
+        }
+    }
+}
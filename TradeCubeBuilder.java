@@ -0,0 +1,140 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+
+import java.io.IOException;
+
+/**
+ * Classe principal que materializa o cubo (país, ano, fluxo, categoria) em output/trade_cube.
+ *
+ * Cada célula do cubo tem duas chaves marcadas no SequenceFile de saída: "R;<país>;<ano>;<fluxo>;<categoria>"
+ * conta as linhas da célula e "V;..." resume (contagem, soma, mínimo, máximo) os valores em dólares válidos.
+ * As duas medidas ficam separadas porque as contagens do TDE2 incluem linhas com preço inválido e linhas
+ * incompletas: uma linha com menos de 10 colunas conta em "R;<país>;<ano>;<fluxo>;", com a categoria
+ * (e o ano ou o fluxo, se também faltarem) vazia.
+ * As consultas sobre o cubo são feitas pelo TradeCube, sem nova leitura do CSV.
+ */
+public class TradeCubeBuilder {
+
+    public final static byte ROWS = 'R';    // Marcação das contagens de linhas
+    public final static byte VALUES = 'V';  // Marcação dos resumos de valores
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();
+
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+
+        Path input = new Path("in/operacoes_comerciais_inteira.csv");  // Caminho para o arquivo CSV de entrada
+        Path output = new Path(TradeCube.DIRECTORY);  // Diretório do cubo
+
+        Job j = Job.getInstance(c, "trade-cube");
+
+        j.setJarByClass(TradeCubeBuilder.class);
+        j.setMapperClass(MapForCube.class);
+        j.setCombinerClass(StatsReducer.class);
+        j.setReducerClass(StatsReducer.class);
+
+        j.setMapOutputKeyClass(Text.class);
+        j.setMapOutputValueClass(StatsWritable.class);
+
+        j.setOutputKeyClass(Text.class);
+        j.setOutputValueClass(StatsWritable.class);
+        j.setOutputFormatClass(SequenceFileOutputFormat.class);  // Lido de volta pelo TradeCube
+
+        FileInputFormat.addInputPath(j, input);
+        FileOutputFormat.setOutputPath(j, output);
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
+    }
+
+    /**
+     * Mapper que acumula, para a célula de cada linha, a contagem de linhas e o valor da transação.
+     * Linhas com menos de 10 colunas entram só na contagem, com as dimensões que faltam vazias.
+     */
+    public static class MapForCube extends StatsMapper<LongWritable, Writable, Text> {
+
+        private final static byte[] rowsPrefix = {ROWS, CsvFieldTokenizer.DELIMITER};
+        private final static byte[] valuesPrefix = {VALUES, CsvFieldTokenizer.DELIMITER};
+        private final static byte[] delimiter = {CsvFieldTokenizer.DELIMITER};
+
+        private Text cell = new Text();  // Chave marcada reutilizada ("<marcação>;<país>;<ano>;<fluxo>;<categoria>")
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+
+        @Override
+        protected Text outputKey(byte[] key, int start, int length) {
+            cell.set(key, start, length);
+            return cell;
+        }
+
+        @Override
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);
+            if (col.fieldCount() < 10) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
+                tagShort();  // As contagens por país e por ano também contam as linhas incompletas
+                aggregator.count(cell.getBytes(), 0, cell.getLength());
+                return;
+            }
+            metrics.parsed();
+            metrics.accepted();
+
+            tag(rowsPrefix);
+            aggregator.count(cell.getBytes(), 0, cell.getLength());
+
+            double price;
+            try {
+                price = col.parseDouble(5);  // Converte o preço (sexta coluna) para double
+            } catch (NumberFormatException e) {
+                metrics.emitted();
+                return;  // A linha conta, mas fica fora dos resumos de valor
+            }
+            tag(valuesPrefix);
+            aggregator.add(cell.getBytes(), 0, cell.getLength(), price);
+            metrics.emitted();
+        }
+
+        private void tag(byte[] prefix) {
+            cell.clear();
+            cell.append(prefix, 0, prefix.length);
+            cell.append(col.getBytes(), col.start(0), col.start(1) + col.length(1) - col.start(0));  // "<país>;<ano>"
+            append(4);
+            append(9);
+        }
+
+        /**
+         * Chave de contagem de uma linha incompleta: "R;<país>;<ano>;<fluxo>;", com as colunas que faltam vazias.
+         */
+        private void tagShort() {
+            cell.clear();
+            cell.append(rowsPrefix, 0, rowsPrefix.length);
+            cell.append(col.getBytes(), col.start(0), col.length(0));
+            cell.append(delimiter, 0, 1);
+            if (col.fieldCount() > 1) {
+                cell.append(col.getBytes(), col.start(1), col.length(1));
+            }
+            cell.append(delimiter, 0, 1);
+            if (col.fieldCount() > 4) {
+                cell.append(col.getBytes(), col.start(4), col.length(4));
+            }
+            cell.append(delimiter, 0, 1);
+        }
+
+        private void append(int field) {
+            cell.append(delimiter, 0, 1);
+            cell.append(col.getBytes(), col.start(field), col.length(field));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package TDE2;
+
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+
+/**
+ * Utilitários comuns aos drivers do TDE2.
+ */
+public final class TradeJobs {
+
+    private static final Logger LOG = Logger.getLogger(TradeJobs.class);
+
+    private TradeJobs() {
+    }
+
+    /**
+     * Submete o job (ou o executa no LocalTradeEngine, com "-D tde2.local.engine=true"), aguarda o término
+     * e registra no log a redução de registros do shuffle obtida pela agregação no Mapper e pelo combiner.
+     * As métricas do job ficam em "<saída>/_metrics.json" (JobMetrics).
+     * A compressão da entrada, do shuffle e da saída segue as opções "tde2.codec.*" do TradeCodecs.
+     * Com "-D tde2.mapped.input=true", o CSV lido pelo TextInputFormat passa a ser lido pelo MappedTradeInputFormat.
+     * Com "-D tde2.reduces.auto=true", o número de Reducers é escolhido pelo ReducerPlanner a partir de uma amostra.
+     * Com "-D tde2.skew.partitioner=true" e mais de um Reducer, o job é executado pelo SaltedJobs
+     * (exceto com comparador de agrupamento, como no TradeTimeSeries).
+     * @param j O job configurado
+     * @return true se o job terminou com sucesso
+     */
+    public static boolean waitForCompletion(Job j) throws IOException, InterruptedException, ClassNotFoundException {
+        TradeCodecs.configure(j);
+        if (MappedTradeInputFormat.isEnabled(j.getConfiguration()) && j.getInputFormatClass() == TextInputFormat.class
+                && TradeCodecs.getInputCodec(j.getConfiguration()) == null) {
+            j.setInputFormatClass(MappedTradeInputFormat.class);  // Só substitui a leitura padrão do CSV, sem compressão
+        }
+        MapOutputSample sample = null;  // Coletada uma vez para o ReducerPlanner e o SkewAwarePartitioner
+        if (ReducerPlanner.isEnabled(j.getConfiguration()) && j.getNumReduceTasks() > 0) {
+            sample = MapOutputSample.collect(j);
+            ReducerPlanner.plan(j, sample);
+        }
+        if (SkewAwarePartitioner.isEnabled(j.getConfiguration()) && j.getNumReduceTasks() > 1
+                && j.getConfiguration().get(MRJobConfig.GROUP_COMPARATOR_CLASS) == null) {  // A ordenação secundária depende do seu Partitioner
+            return SaltedJobs.run(j, sample);
+        }
+        return execute(j);
+    }
+
+    /**
+     * Executa um estágio já configurado, sem as substituições de waitForCompletion().
+     * @param j O job configurado
+     * @return true se o job terminou com sucesso
+     */
+    static boolean execute(Job j) throws IOException, InterruptedException, ClassNotFoundException {
+        long start = System.currentTimeMillis();
+        boolean ok;
+        Counters counters;
+        if (LocalTradeEngine.isEnabled(j.getConfiguration())) {
+            LocalTradeEngine engine = new LocalTradeEngine(j);
+            ok = engine.run();
+            counters = ok ? engine.getCounters() : null;
+        } else {
+            ok = j.waitForCompletion(true);
+            counters = ok ? j.getCounters() : null;
+        }
+        if (ok) {
+            logShuffleReduction(j.getJobName(), counters);
+            JobMetrics.write(j, counters, System.currentTimeMillis() - start);  // <saída>/_metrics.json
+        }
+        return ok;
+    }
+
+    /**
+     * Registra quantas linhas entraram na agregação e quantos registros chegaram aos Reducers.
+     * @param jobName O nome do job concluído
+     * @param counters Os contadores do job
+     */
+    public static void logShuffleReduction(String jobName, Counters counters) {
+        long aggregated = counters.findCounter(InMapperAggregator.Counters.AGGREGATED_RECORDS).getValue();
+        long mapOutput = counters.findCounter(TaskCounter.MAP_OUTPUT_RECORDS).getValue();
+        long shuffled = counters.findCounter(TaskCounter.REDUCE_INPUT_RECORDS).getValue();
+
+        if (aggregated == 0 || shuffled == 0) {
+            return;  // Job sem agregação no Mapper ou sem fase de redução
+        }
+        LOG.info(String.format("%s: %d registros agregados, %d emitidos pelos Mappers, %d recebidos pelos Reducers"
+                        + " (redução de %.1fx no shuffle)",
+                jobName, aggregated, mapOutput, shuffled, (double) aggregated / shuffled));
+    }
+}
@@ -0,0 +1,153 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Filtro declarado pelo driver e aplicado pelo ColumnarTradeInputFormat antes do Mapper: valores aceitos
+ * por coluna de dicionário (comparados sem diferenciar maiúsculas/minúsculas, como nos Mappers) e um
+ * intervalo de anos. Blocos que não podem conter linhas aceitas são pulados sem serem lidos.
+ */
+public class TradePredicate {
+
+    public static final String VALUES_PREFIX = "tde2.columnar.filter.";  // + nome da coluna (ex.: COUNTRY)
+    public static final String MIN_YEAR = "tde2.columnar.filter.year.min";  // Menor ano aceito
+    public static final String MAX_YEAR = "tde2.columnar.filter.year.max";  // Maior ano aceito
+
+    private final byte[][][] accepted = new byte[TradeColumn.values().length][][];  // null: coluna sem filtro
+    private int minYear = Integer.MIN_VALUE;
+    private int maxYear = Integer.MAX_VALUE;
+
+    /**
+     * Aceita apenas as linhas cuja coluna tenha um dos valores informados.
+     * @param conf A configuração do job
+     * @param column Uma coluna de dicionário
+     * @param values Os valores aceitos
+     */
+    public static void setValues(Configuration conf, TradeColumn column, String... values) {
+        if (!column.isDictionary()) {
+            throw new IllegalArgumentException(column + " não é uma coluna de dicionário");
+        }
+        conf.setStrings(VALUES_PREFIX + column.name(), values);
+    }
+
+    /**
+     * Aceita apenas as linhas com ano entre min e max (inclusive).
+     * @param conf A configuração do job
+     * @param min O menor ano aceito
+     * @param max O maior ano aceito
+     */
+    public static void setYearRange(Configuration conf, int min, int max) {
+        conf.setInt(MIN_YEAR, min);
+        conf.setInt(MAX_YEAR, max);
+    }
+
+    /**
+     * @param conf A configuração do job
+     * @return O filtro declarado (vazio se nenhum foi declarado)
+     */
+    public static TradePredicate get(Configuration conf) {
+        TradePredicate predicate = new TradePredicate();
+        for (TradeColumn column : TradeColumn.values()) {
+            if (!column.isDictionary()) {
+                continue;
+            }
+            String[] values = conf.getStrings(VALUES_PREFIX + column.name());
+            if (values != null) {
+                byte[][] bytes = new byte[values.length][];
+                for (int i = 0; i < values.length; i++) {
+                    bytes[i] = CsvFieldTokenizer.ascii(values[i]);
+                }
+                predicate.accepted[column.ordinal()] = bytes;
+            }
+        }
+        predicate.minYear = conf.getInt(MIN_YEAR, Integer.MIN_VALUE);
+        predicate.maxYear = conf.getInt(MAX_YEAR, Integer.MAX_VALUE);
+        return predicate;
+    }
+
+    /**
+     * @return true se nenhuma linha é descartada
+     */
+    public boolean isEmpty() {
+        return getColumns().isEmpty();
+    }
+
+    /**
+     * @return As colunas necessárias para avaliar o filtro
+     */
+    public EnumSet<TradeColumn> getColumns() {
+        EnumSet<TradeColumn> columns = EnumSet.noneOf(TradeColumn.class);
+        for (TradeColumn column : TradeColumn.values()) {
+            if (accepted[column.ordinal()] != null) {
+                columns.add(column);
+            }
+        }
+        if (hasYearFilter()) {
+            columns.add(TradeColumn.YEAR);
+        }
+        return columns;
+    }
+
+    public boolean hasFilter(TradeColumn column) {
+        return column == TradeColumn.YEAR ? hasYearFilter() : accepted[column.ordinal()] != null;
+    }
+
+    private boolean hasYearFilter() {
+        return minYear != Integer.MIN_VALUE || maxYear != Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param column Uma coluna de dicionário
+     * @param value O valor da coluna
+     * @return true se o valor é aceito (ou se a coluna não tem filtro)
+     */
+    public boolean accepts(TradeColumn column, Text value) {
+        byte[][] values = accepted[column.ordinal()];
+        if (values == null) {
+            return true;
+        }
+        for (byte[] expected : values) {
+            if (CsvFieldTokenizer.equalsIgnoreCase(value.getBytes(), 0, value.getLength(), expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean acceptsYear(int year) {
+        return year >= minYear && year <= maxYear;
+    }
+
+    /**
+     * Verifica, só pelas estatísticas do bloco, se ele pode conter alguma linha aceita.
+     * @param entry As estatísticas do bloco (índice ou rodapé)
+     * @return false se o bloco pode ser pulado
+     */
+    public boolean mayMatch(ColumnarTradeIndex.Entry entry) {
+        ColumnarTradeFile.BlockInfo block = entry.getBlock();
+        if (block.getMaxYear() < minYear || block.getMinYear() > maxYear) {
+            return false;
+        }
+        for (TradeColumn column : TradeColumn.values()) {
+            List<Text> distinct = entry.getValues(column);
+            if (accepted[column.ordinal()] == null || distinct == null) {
+                continue;  // Sem filtro ou sem estatística: o bloco precisa ser lido
+            }
+            boolean any = false;
+            for (Text value : distinct) {
+                if (accepts(column, value)) {
+                    any = true;
+                    break;
+                }
+            }
+            if (!any) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
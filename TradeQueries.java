@@ -0,0 +1,270 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.FileAlreadyExistsException;
+import org.apache.hadoop.mapred.InvalidJobConfException;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classe principal que executa consultas declaradas por texto (TradeQuery) em uma única leitura do arquivo CSV.
+ * Cada consulta é passada com -D tde2.query.<nome>="<consulta>" e grava em output/<nome>, por exemplo:
+ *
+ *     -D tde2.query.brazil_export_average="filter country=Brazil, flow=Export; group by year; agg avg(trade_usd)"
+ *
+ * Sem nenhuma consulta, executa as versões declarativas de algumas das análises do TDE2 (DEFAULT_QUERIES).
+ * Como no SingleScanTransactionAnalyses, o Mapper marca a chave com a consulta de destino e o Reducer grava
+ * cada resultado no diretório da sua consulta através do MultipleOutputs.
+ */
+public class TradeQueries {
+
+    /**
+     * Consultas executadas quando nenhuma é informada: nome e texto, em pares.
+     */
+    public final static String[] DEFAULT_QUERIES = {
+            "query_brazil_export_average", "filter country=Brazil, flow=Export; group by year; agg avg(trade_usd)",
+            "query_brazil_min_max", "filter country=Brazil, year=2016; agg stats(trade_usd)",
+            "query_transactions_per_year", "group by year; agg count",
+            "query_transactions_by_flow", "group by flow"
+    };
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();
+
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+
+        if (TradeQuery.getAll(c).isEmpty()) {
+            for (int i = 0; i < DEFAULT_QUERIES.length; i += 2) {
+                TradeQuery.set(c, DEFAULT_QUERIES[i], DEFAULT_QUERIES[i + 1]);
+            }
+        }
+
+        Path input = new Path("in/operacoes_comerciais_inteira.csv");  // Caminho para o arquivo CSV de entrada
+        Path output = new Path("output");  // Diretório raiz; cada consulta grava no seu subdiretório
+
+        Job j = Job.getInstance(c, "trade-queries");
+
+        j.setJarByClass(TradeQueries.class);
+        j.setMapperClass(MapForQueries.class);
+        j.setCombinerClass(StatsReducer.class);  // Os resumos parciais se fundem igualmente em todas as consultas
+        j.setReducerClass(ReduceForQueries.class);
+
+        j.setMapOutputKeyClass(Text.class);
+        j.setMapOutputValueClass(StatsWritable.class);
+
+        j.setOutputKeyClass(Text.class);
+        j.setOutputValueClass(Text.class);
+
+        FileInputFormat.addInputPath(j, input);
+        FileOutputFormat.setOutputPath(j, output);
+
+        // Nenhum registro é gravado pela saída padrão; só cria arquivos quando houver escrita
+        LazyOutputFormat.setOutputFormatClass(j, QueryOutputFormat.class);
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
+    }
+
+    /**
+     * Formato de saída que aceita o diretório output/ já existente, mas recusa sobrescrever
+     * o resultado de alguma das consultas registradas.
+     */
+    public static class QueryOutputFormat<K, V> extends TextOutputFormat<K, V> {
+
+        @Override
+        public void checkOutputSpecs(JobContext job) throws IOException {
+            Path outDir = getOutputPath(job);
+            if (outDir == null) {
+                throw new InvalidJobConfException("Output directory not set.");
+            }
+
+            FileSystem fs = outDir.getFileSystem(job.getConfiguration());
+            for (TradeQuery query : TradeQuery.getAll(job.getConfiguration())) {
+                Path target = new Path(outDir, query.getName());
+                if (fs.exists(target)) {
+                    throw new FileAlreadyExistsException("Output directory " + target + " already exists");
+                }
+            }
+        }
+    }
+
+    /**
+     * Classe Mapper que lê cada linha uma única vez e a avalia em todas as consultas. As colunas numéricas
+     * são convertidas no máximo uma vez por linha, mesmo quando várias consultas as usam.
+     */
+    public static class MapForQueries extends StatsMapper<LongWritable, Writable, Text> {
+
+        private TradeQuery[] queries;
+        private byte[][] prefixes;  // "<marcação>;" de cada consulta
+        private int minFields;      // Menor quantidade de colunas que alguma consulta aceita
+
+        private Text taggedKey = new Text();  // Chave marcada reutilizada ("<marcação>;<chave>")
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+        private double[] numbers = new double[10];   // Valor convertido de cada coluna (NaN: inválido)
+        private long[] convertedAt = new long[10];   // Linha em que cada coluna foi convertida
+        private long row;
+
+        @Override
+        protected void setup(Context context) throws IOException, InterruptedException {
+            super.setup(context);
+            List<TradeQuery> all = TradeQuery.getAll(context.getConfiguration());
+            queries = all.toArray(new TradeQuery[0]);
+            prefixes = new byte[queries.length][];
+            minFields = Integer.MAX_VALUE;
+            for (int i = 0; i < queries.length; i++) {
+                prefixes[i] = new byte[]{(byte) ('A' + i), CsvFieldTokenizer.DELIMITER};
+                minFields = Math.min(minFields, queries[i].getRequiredFields());
+            }
+            Arrays.fill(convertedAt, -1);
+        }
+
+        @Override
+        protected Text outputKey(byte[] key, int start, int length) {
+            taggedKey.set(key, start, length);
+            return taggedKey;  // Emitida com o resumo parcial
+        }
+
+        @Override
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            row++;
+            col.reset(value);  // Localiza as colunas uma única vez para todas as consultas
+            int columns = col.fieldCount();
+            if (columns < minFields) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
+                return;
+            }
+            metrics.parsed();
+
+            boolean any = false;
+            for (int i = 0; i < queries.length; i++) {
+                TradeQuery query = queries[i];
+                if (columns < query.getRequiredFields() || !accepts(query)) {
+                    continue;
+                }
+
+                double price = 0;
+                if (query.hasValue()) {
+                    price = number(query.getValueField());
+                    if (Double.isNaN(price)) {
+                        continue;  // Valor inválido (ex.: o cabeçalho): fica fora da agregação
+                    }
+                }
+
+                if (!any) {
+                    any = true;
+                    metrics.accepted();
+                }
+                taggedKey.clear();
+                taggedKey.append(prefixes[i], 0, 2);
+                query.appendKey(col, taggedKey);
+                if (query.hasValue()) {
+                    aggregator.add(taggedKey.getBytes(), 0, taggedKey.getLength(), price);
+                } else {
+                    aggregator.count(taggedKey.getBytes(), 0, taggedKey.getLength());
+                }
+            }
+
+            if (any) {
+                metrics.emitted();
+            } else {
+                metrics.filtered();
+            }
+        }
+
+        private boolean accepts(TradeQuery query) {
+            for (int condition = 0; condition < query.getConditions(); condition++) {
+                if (query.isNumeric(condition)) {
+                    double number = number(query.getFilterField(condition));
+                    if (Double.isNaN(number) || !query.acceptsNumber(condition, number)) {
+                        return false;
+                    }
+                } else if (!query.acceptsText(condition, col)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return O valor numérico da coluna na linha atual, convertido só na primeira consulta que o pede
+         */
+        private double number(int field) {
+            if (convertedAt[field] != row) {
+                convertedAt[field] = row;
+                try {
+                    numbers[field] = col.parseDouble(field);
+                } catch (NumberFormatException e) {
+                    numbers[field] = Double.NaN;
+                }
+            }
+            return numbers[field];
+        }
+    }
+
+    /**
+     * Classe Reducer que funde os resumos de cada chave, formata as agregações da sua consulta e
+     * grava o resultado no diretório correspondente através do MultipleOutputs.
+     */
+    public static class ReduceForQueries extends Reducer<Text, StatsWritable, Text, Text> {
+
+        private MultipleOutputs<Text, Text> mos;
+        private TradeQuery[] queries;
+        private String[] baseOutputPaths;  // "<nome>/part" de cada consulta
+        private Text resultKey = new Text();  // Chave original, sem a marcação
+        private Text result = new Text();  // Agregações formatadas
+        private StatsWritable total = new StatsWritable();
+        private KeyHistogram histogram;  // Registros recebidos por chave
+
+        @Override
+        protected void setup(Context context) {
+            mos = new MultipleOutputs<>(context);
+            queries = TradeQuery.getAll(context.getConfiguration()).toArray(new TradeQuery[0]);
+            baseOutputPaths = new String[queries.length];
+            for (int i = 0; i < queries.length; i++) {
+                baseOutputPaths[i] = queries[i].getName() + "/part";
+            }
+            histogram = new KeyHistogram(context);
+        }
+
+        @Override
+        public void reduce(Text key, Iterable<StatsWritable> values, Context context) throws IOException, InterruptedException {
+            total.clear();
+            long records = 0;
+            for (StatsWritable value : values) {
+                total.merge(value);
+                records++;
+            }
+            histogram.add(records);
+
+            int query = key.getBytes()[0] - 'A';
+            resultKey.set(key.getBytes(), 2, key.getLength() - 2);  // Remove "<marcação>;"
+            queries[query].format(total, result);
+            mos.write(resultKey, result, baseOutputPaths[query]);
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            mos.close();
+            histogram.close();
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consulta declarada por texto e compilada para o Mapper do TradeQueries, por exemplo:
+ *
+ *     filter country=Brazil, flow=Export; group by year; agg avg(trade_usd)
+ *
+ * As cláusulas são separadas por ";" e todas são opcionais:
+ * - filter: condições separadas por "," (todas precisam valer). Colunas de texto aceitam "=" e "!=", com
+ *   alternativas separadas por "|" (ex.: flow=Export|Re-Export), comparadas sem diferenciar maiúsculas/minúsculas
+ *   como nos Mappers; year e trade_usd aceitam também "<", "<=", ">" e ">=".
+ * - group by: colunas da chave, unidas por ";" na saída. Sem agrupamento, a chave é "all".
+ * - agg: count, sum, avg, min, max, var ou stats (o resumo completo do StatsWritable), sobre uma única coluna
+ *   numérica (ex.: agg count, min(trade_usd), max(trade_usd)). Sem agregação, conta as linhas.
+ *
+ * Os nomes de coluna são os do TradeColumn em minúsculas. Na compilação os valores viram bytes e as colunas viram
+ * posições do CSV, para que a avaliação de cada linha não crie objetos.
+ */
+public class TradeQuery {
+
+    public final static String PREFIX = "tde2.query.";  // + nome da consulta (diretório de saída)
+
+    private final static byte[] ALL = CsvFieldTokenizer.ascii("all");  // Chave das consultas sem agrupamento
+    private final static byte[] SEPARATOR = {CsvFieldTokenizer.DELIMITER};  // Entre as colunas da chave
+
+    /**
+     * Agregações disponíveis, todas extraídas do StatsWritable da chave.
+     */
+    public enum Aggregate {
+        COUNT, SUM, AVG, MIN, MAX, VAR, STATS;
+
+        /**
+         * @return O valor da agregação no resumo, como gravado na saída
+         */
+        String format(StatsWritable stats) {
+            switch (this) {
+                case COUNT:
+                    return Long.toString(stats.getCount());
+                case SUM:
+                    return Double.toString(stats.getSum());
+                case AVG:
+                    return Double.toString(stats.getMean());
+                case MIN:
+                    return Double.toString(stats.getMin());
+                case MAX:
+                    return Double.toString(stats.getMax());
+                case VAR:
+                    return Double.toString(stats.getVariance());
+                default:
+                    return stats.toString();
+            }
+        }
+    }
+
+    /**
+     * Operadores das condições do filtro.
+     */
+    enum Operator {
+        EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean test(double value, double bound) {
+            switch (this) {
+                case EQ:
+                    return value == bound;
+                case NE:
+                    return value != bound;
+                case LT:
+                    return value < bound;
+                case LE:
+                    return value <= bound;
+                case GT:
+                    return value > bound;
+                default:
+                    return value >= bound;
+            }
+        }
+    }
+
+    private final String name;
+    private final String spec;
+
+    // Filtro compilado: uma posição por condição
+    private int[] filterFields = new int[0];       // Coluna do CSV de cada condição
+    private Operator[] operators = new Operator[0];
+    private byte[][][] filterValues = new byte[0][][];  // Alternativas de texto (null em condições numéricas)
+    private double[] bounds = new double[0];       // Limite das condições numéricas
+
+    private int[] groupFields = new int[0];        // Colunas do CSV que formam a chave
+    private List<Aggregate> aggregates = new ArrayList<>();
+    private int valueField = -1;                   // Coluna agregada (-1: apenas contagem)
+    private int requiredFields;                    // Colunas que a linha precisa ter
+
+    private TradeQuery(String name, String spec) {
+        this.name = name;
+        this.spec = spec;
+    }
+
+    /**
+     * Registra uma consulta no job.
+     * @param conf A configuração do job
+     * @param name O nome da consulta, usado como diretório de saída (letras minúsculas, dígitos e "_")
+     * @param spec O texto da consulta
+     */
+    public static void set(Configuration conf, String name, String spec) {
+        parse(name, spec);  // Falha já no driver se o texto for inválido
+        conf.set(PREFIX + name, spec);
+    }
+
+    /**
+     * @param conf A configuração do job
+     * @return As consultas registradas, em ordem de nome (a posição de cada uma é a sua marcação no shuffle)
+     */
+    public static List<TradeQuery> getAll(Configuration conf) {
+        Map<String, String> specs = new TreeMap<>(conf.getValByRegex("^" + PREFIX.replace(".", "\\.") + "[a-z0-9_]+$"));
+        List<TradeQuery> queries = new ArrayList<>();
+        for (Map.Entry<String, String> entry : specs.entrySet()) {
+            queries.add(parse(entry.getKey().substring(PREFIX.length()), entry.getValue()));
+        }
+        if (queries.size() > 26) {
+            throw new IllegalArgumentException("No máximo 26 consultas por leitura, recebidas " + queries.size());
+        }
+        return queries;
+    }
+
+    /**
+     * Compila o texto de uma consulta.
+     * @param name O nome da consulta
+     * @param spec O texto da consulta
+     * @return A consulta compilada
+     * @throws IllegalArgumentException Se o nome ou o texto forem inválidos
+     */
+    public static TradeQuery parse(String name, String spec) {
+        if (!name.matches("[a-z0-9_]+")) {
+            throw new IllegalArgumentException("Nome de consulta inválido: " + name);
+        }
+        TradeQuery query = new TradeQuery(name, spec);
+        List<Integer> fields = new ArrayList<>();
+        List<Operator> operators = new ArrayList<>();
+        List<byte[][]> values = new ArrayList<>();
+        List<Double> bounds = new ArrayList<>();
+        EnumSet<TradeColumn> valueColumns = EnumSet.noneOf(TradeColumn.class);
+
+        for (String clause : spec.split(";")) {
+            clause = clause.trim();
+            String lower = clause.toLowerCase(Locale.ROOT);
+            if (clause.isEmpty()) {
+                continue;
+            } else if (lower.startsWith("filter ")) {
+                for (String condition : clause.substring(7).split(",")) {
+                    parseCondition(condition.trim(), fields, operators, values, bounds);
+                }
+            } else if (lower.startsWith("group by ")) {
+                String[] columns = clause.substring(9).split(",");
+                query.groupFields = new int[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    query.groupFields[i] = column(columns[i]).getCsvIndex();
+                }
+            } else if (lower.startsWith("agg ")) {
+                for (String aggregate : clause.substring(4).split(",")) {
+                    query.aggregates.add(parseAggregate(aggregate.trim(), valueColumns));
+                }
+            } else {
+                throw new IllegalArgumentException("Cláusula desconhecida em " + name + ": " + clause);
+            }
+        }
+
+        if (valueColumns.size() > 1) {
+            throw new IllegalArgumentException("As agregações de " + name + " usam colunas diferentes: " + valueColumns);
+        }
+        if (query.aggregates.isEmpty()) {
+            query.aggregates.add(Aggregate.COUNT);
+        }
+        if (!valueColumns.isEmpty()) {
+            query.valueField = valueColumns.iterator().next().getCsvIndex();
+        }
+
+        int n = fields.size();
+        query.filterFields = new int[n];
+        query.operators = operators.toArray(new Operator[n]);
+        query.filterValues = values.toArray(new byte[n][][]);
+        query.bounds = new double[n];
+        for (int i = 0; i < n; i++) {
+            query.filterFields[i] = fields.get(i);
+            query.bounds[i] = bounds.get(i);
+        }
+
+        int required = query.valueField + 1;
+        for (int field : query.filterFields) {
+            required = Math.max(required, field + 1);
+        }
+        for (int field : query.groupFields) {
+            required = Math.max(required, field + 1);
+        }
+        query.requiredFields = required;
+        return query;
+    }
+
+    private static void parseCondition(String condition, List<Integer> fields, List<Operator> operators,
+                                       List<byte[][]> values, List<Double> bounds) {
+        Operator operator = null;
+        int at = -1;
+        for (int i = 0; i < condition.length() && operator == null; i++) {
+            for (Operator candidate : new Operator[]{Operator.NE, Operator.LE, Operator.GE, Operator.EQ, Operator.LT, Operator.GT}) {
+                if (condition.startsWith(candidate.symbol, i)) {
+                    operator = candidate;
+                    at = i;
+                    break;
+                }
+            }
+        }
+        if (operator == null) {
+            throw new IllegalArgumentException("Condição sem operador: " + condition);
+        }
+
+        TradeColumn column = column(condition.substring(0, at));
+        String value = condition.substring(at + operator.symbol.length()).trim();
+        fields.add(column.getCsvIndex());
+        operators.add(operator);
+        if (column.isDictionary()) {
+            if (operator != Operator.EQ && operator != Operator.NE) {
+                throw new IllegalArgumentException(column + " é uma coluna de texto e só aceita = e !=: " + condition);
+            }
+            String[] alternatives = value.split("\\|");
+            byte[][] bytes = new byte[alternatives.length][];
+            for (int i = 0; i < alternatives.length; i++) {
+                bytes[i] = CsvFieldTokenizer.ascii(alternatives[i].trim());
+            }
+            values.add(bytes);
+            bounds.add(0.0);
+        } else {
+            values.add(null);
+            bounds.add(Double.parseDouble(value));
+        }
+    }
+
+    private static Aggregate parseAggregate(String aggregate, EnumSet<TradeColumn> valueColumns) {
+        int open = aggregate.indexOf('(');
+        if (open < 0) {
+            Aggregate function = Aggregate.valueOf(aggregate.toUpperCase(Locale.ROOT));
+            if (function != Aggregate.COUNT) {
+                throw new IllegalArgumentException("A agregação " + aggregate + " precisa de uma coluna");
+            }
+            return function;
+        }
+        if (!aggregate.endsWith(")")) {
+            throw new IllegalArgumentException("Agregação inválida: " + aggregate);
+        }
+        Aggregate function = Aggregate.valueOf(aggregate.substring(0, open).trim().toUpperCase(Locale.ROOT));
+        TradeColumn column = column(aggregate.substring(open + 1, aggregate.length() - 1));
+        if (column.isDictionary()) {
+            throw new IllegalArgumentException(column + " não é uma coluna numérica: " + aggregate);
+        }
+        valueColumns.add(column);
+        return function;
+    }
+
+    private static TradeColumn column(String name) {
+        return TradeColumn.valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSpec() {
+        return spec;
+    }
+
+    /**
+     * @return true se a consulta agrega uma coluna numérica (e não apenas conta as linhas)
+     */
+    public boolean hasValue() {
+        return valueField >= 0;
+    }
+
+    /**
+     * @return A coluna do CSV agregada (-1 se a consulta apenas conta)
+     */
+    public int getValueField() {
+        return valueField;
+    }
+
+    /**
+     * @return Quantas condições o filtro tem
+     */
+    int getConditions() {
+        return filterFields.length;
+    }
+
+    /**
+     * @return A coluna do CSV da condição
+     */
+    int getFilterField(int condition) {
+        return filterFields[condition];
+    }
+
+    /**
+     * @return Quantas colunas a linha precisa ter para ser avaliada
+     */
+    public int getRequiredFields() {
+        return requiredFields;
+    }
+
+    /**
+     * Avalia uma condição de texto do filtro sobre a linha atual.
+     * @param condition A posição da condição
+     * @param col As colunas da linha
+     * @return true se a linha satisfaz a condição
+     */
+    boolean acceptsText(int condition, CsvFieldTokenizer col) {
+        boolean any = false;
+        for (byte[] expected : filterValues[condition]) {
+            if (col.equalsIgnoreCase(filterFields[condition], expected)) {
+                any = true;
+                break;
+            }
+        }
+        return any == (operators[condition] == Operator.EQ);
+    }
+
+    /**
+     * @return true se a condição é numérica (year ou trade_usd)
+     */
+    boolean isNumeric(int condition) {
+        return filterValues[condition] == null;
+    }
+
+    /**
+     * Avalia uma condição numérica do filtro com o valor já convertido.
+     */
+    boolean acceptsNumber(int condition, double value) {
+        return operators[condition].test(value, bounds[condition]);
+    }
+
+    /**
+     * Monta a chave de agrupamento da linha atual no Text informado, depois do que ele já contém.
+     * @param col As colunas da linha
+     * @param key O Text de destino (reutilizado)
+     */
+    void appendKey(CsvFieldTokenizer col, Text key) {
+        if (groupFields.length == 0) {
+            key.append(ALL, 0, ALL.length);
+            return;
+        }
+        for (int i = 0; i < groupFields.length; i++) {
+            if (i > 0) {
+                key.append(SEPARATOR, 0, 1);
+            }
+            key.append(col.getBytes(), col.start(groupFields[i]), col.length(groupFields[i]));
+        }
+    }
+
+    /**
+     * Formata o resultado de uma chave: as agregações na ordem declarada, separadas por ", ".
+     * @param stats O resumo da chave
+     * @param result O Text de destino (reutilizado)
+     */
+    public void format(StatsWritable stats, Text result) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < aggregates.size(); i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(aggregates.get(i).format(stats));
+        }
+        result.set(text.toString());
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + spec;
+    }
+}
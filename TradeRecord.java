@@ -0,0 +1,188 @@
+package TDE2;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Classe personalizada TradeRecord com as colunas de uma transação usadas pelas análises.
+ * Ao ler o formato colunar, as colunas de texto apontam diretamente para as entradas do dicionário
+ * do bloco (sem cópia) e apenas as colunas pedidas pelo Mapper são preenchidas.
+ */
+public class TradeRecord implements Writable {
+
+    private final Text ownCountry = new Text();    // Áreas próprias, usadas quando o registro
+    private final Text ownCommodity = new Text();  // é preenchido a partir do CSV ou desserializado
+    private final Text ownFlow = new Text();
+    private final Text ownCategory = new Text();
+
+    private Text country = ownCountry;      // País
+    private int year;                       // Ano
+    private Text commodity = ownCommodity;  // Código da mercadoria
+    private Text flow = ownFlow;            // Tipo de fluxo
+    private double tradeUsd;                // Valor da transação (NaN se inválido no CSV)
+    private Text category = ownCategory;    // Categoria
+
+    private final byte[] yearDigits = new byte[11];  // Área para escrever o ano em decimal
+
+    /**
+     * Construtor vazio padrão (necessário para serialização)
+     */
+    public TradeRecord() {
+    }
+
+    /**
+     * Preenche o registro a partir de uma linha do CSV já tokenizada.
+     * @param col As colunas da linha (pelo menos 10)
+     * @throws NumberFormatException se o ano não for um inteiro
+     */
+    public void set(CsvFieldTokenizer col) {
+        year = col.parseInt(TradeColumn.YEAR.getCsvIndex());
+        try {
+            tradeUsd = col.parseDouble(TradeColumn.TRADE_USD.getCsvIndex());
+        } catch (NumberFormatException e) {
+            tradeUsd = Double.NaN;  // Mantém a linha para as análises de contagem
+        }
+        useOwnTexts();
+        col.copyField(TradeColumn.COUNTRY.getCsvIndex(), country);
+        col.copyField(TradeColumn.COMMODITY.getCsvIndex(), commodity);
+        col.copyField(TradeColumn.FLOW.getCsvIndex(), flow);
+        col.copyField(TradeColumn.CATEGORY.getCsvIndex(), category);
+    }
+
+    private void useOwnTexts() {
+        country = ownCountry;
+        commodity = ownCommodity;
+        flow = ownFlow;
+        category = ownCategory;
+    }
+
+    public Text getCountry() {
+        return country;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * Copia o ano, em decimal, para um Text reutilizado (sem criar uma String por linha).
+     * @param target O Text de destino
+     */
+    public void copyYear(Text target) {
+        long remaining = Math.abs((long) year);
+        int pos = yearDigits.length;
+        do {
+            yearDigits[--pos] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        if (year < 0) {
+            yearDigits[--pos] = '-';
+        }
+        target.set(yearDigits, pos, yearDigits.length - pos);
+    }
+
+    public Text getCommodity() {
+        return commodity;
+    }
+
+    public Text getFlow() {
+        return flow;
+    }
+
+    public double getTradeUsd() {
+        return tradeUsd;
+    }
+
+    public Text getCategory() {
+        return category;
+    }
+
+    /**
+     * Aponta a coluna de texto para um valor externo (ex.: entrada de dicionário), sem copiar.
+     * @param column A coluna de dicionário
+     * @param value O valor
+     */
+    public void setReference(TradeColumn column, Text value) {
+        switch (column) {
+            case COUNTRY:
+                country = value;
+                break;
+            case COMMODITY:
+                commodity = value;
+                break;
+            case FLOW:
+                flow = value;
+                break;
+            case CATEGORY:
+                category = value;
+                break;
+            default:
+                throw new IllegalArgumentException(column + " não é uma coluna de dicionário");
+        }
+    }
+
+    public void setYear(int year) {
+        this.year = year;
+    }
+
+    public void setTradeUsd(double tradeUsd) {
+        this.tradeUsd = tradeUsd;
+    }
+
+    /**
+     * @param column A coluna de dicionário
+     * @return O valor atual da coluna
+     */
+    public Text get(TradeColumn column) {
+        switch (column) {
+            case COUNTRY:
+                return country;
+            case COMMODITY:
+                return commodity;
+            case FLOW:
+                return flow;
+            case CATEGORY:
+                return category;
+            default:
+                throw new IllegalArgumentException(column + " não é uma coluna de dicionário");
+        }
+    }
+
+    /**
+     * Método de serialização: escreve os dados do objeto para saída.
+     * @param dataOutput O fluxo de saída
+     */
+    @Override
+    public void write(DataOutput dataOutput) throws IOException {
+        country.write(dataOutput);
+        dataOutput.writeInt(year);
+        commodity.write(dataOutput);
+        flow.write(dataOutput);
+        dataOutput.writeDouble(tradeUsd);
+        category.write(dataOutput);
+    }
+
+    /**
+     * Método de desserialização: lê os dados do objeto a partir da entrada.
+     * @param dataInput O fluxo de entrada
+     */
+    @Override
+    public void readFields(DataInput dataInput) throws IOException {
+        useOwnTexts();
+        country.readFields(dataInput);
+        year = dataInput.readInt();
+        commodity.readFields(dataInput);
+        flow.readFields(dataInput);
+        tradeUsd = dataInput.readDouble();
+        category.readFields(dataInput);
+    }
+
+    @Override
+    public String toString() {
+        return country + ";" + year + ";" + commodity + ";" + flow + ";" + tradeUsd + ";" + category;
+    }
+}
@@ -0,0 +1,211 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Job que reorganiza o CSV de transações em diretórios por país e ano
+ * (in/operacoes_comerciais_particionada/country=Brazil/year=2016/part-r-00000). As linhas são gravadas
+ * sem alteração, então os Mappers de CSV funcionam sobre as partições; o PartitionedTradeInputFormat
+ * adiciona à entrada apenas as partições que satisfazem o filtro do driver.
+ */
+public class TradeRepartitioner {
+
+    public static final String COUNTRY_PREFIX = "country=";  // Prefixo dos diretórios de país
+    public static final String YEAR_PREFIX = "year=";        // Prefixo dos diretórios de ano
+    public static final String DEFAULT_PARTITION = "__HIVE_DEFAULT_PARTITION__";  // Valor vazio ou ausente
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();  // Cria a configuração do Hadoop
+
+        // Analisa os argumentos de entrada
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+        Path input = new Path("in/operacoes_comerciais_inteira.csv");  // Caminho do arquivo de entrada
+        Path output = new Path("in/operacoes_comerciais_particionada");  // Raiz das partições
+
+        Job j = Job.getInstance(c, "trade-repartitioner");
+        j.setJarByClass(TradeRepartitioner.class);
+        j.setMapperClass(MapForRepartition.class);
+        j.setReducerClass(ReduceForRepartition.class);  // Cada partição é gravada por um único Reducer
+
+        j.setMapOutputKeyClass(Text.class);
+        j.setMapOutputValueClass(Text.class);
+
+        j.setOutputKeyClass(NullWritable.class);
+        j.setOutputValueClass(Text.class);
+
+        FileInputFormat.addInputPath(j, input);
+        FileOutputFormat.setOutputPath(j, output);
+
+        // Os arquivos são criados pelo Reducer dentro dos diretórios de partição; a saída padrão fica vazia
+        LazyOutputFormat.setOutputFormatClass(j, TextOutputFormat.class);
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
+    }
+
+    /**
+     * @param country O país, como aparece no CSV
+     * @param year O ano, como aparece no CSV
+     * @return O diretório relativo da partição ("country=<país>/year=<ano>")
+     */
+    public static String partitionDirectory(String country, String year) {
+        return COUNTRY_PREFIX + escape(country) + Path.SEPARATOR + YEAR_PREFIX + escape(year);
+    }
+
+    /**
+     * Codifica um valor para uso em nome de diretório: letras, dígitos, espaço e "-" são mantidos;
+     * os demais bytes (e "." ou "_" no início, que ocultariam o diretório) viram %XX.
+     * @param value O valor da coluna
+     * @return O nome codificado
+     */
+    public static String escape(String value) {
+        if (value.isEmpty()) {
+            return DEFAULT_PARTITION;
+        }
+        StringBuilder escaped = new StringBuilder();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xff;
+            boolean plain = (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                    || b == ' ' || b == '-' || (i > 0 && (b == '.' || b == '_'));
+            if (plain) {
+                escaped.append((char) b);
+            } else {
+                escaped.append('%').append(Character.toUpperCase(Character.forDigit(b >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(b & 0xf, 16)));
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Inverso de escape().
+     * @param name O nome codificado
+     * @return O valor original da coluna
+     */
+    public static String unescape(String name) {
+        if (name.equals(DEFAULT_PARTITION)) {
+            return "";
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = 0; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            if (ch == '%' && i + 2 < name.length()) {
+                bytes.write(Integer.parseInt(name.substring(i + 1, i + 3), 16));
+                i += 2;
+            } else {
+                bytes.write(ch);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Mapper que usa o país e o ano ("<país>;<ano>", com o ano vazio se a linha não o tiver) como chave da
+     * partição. Linhas malformadas que caem no mesmo diretório recebem a mesma chave.
+     */
+    public static class MapForRepartition extends Mapper<LongWritable, Writable, Text, Text> {
+
+        private final static byte[] delimiter = {CsvFieldTokenizer.DELIMITER};
+
+        private Text partition = new Text();  // "<país>;<ano>", reutilizado
+        private Text line = new Text();       // Linha emitida, reutilizada
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+        private RowMetrics metrics;  // Destino de cada linha e tempo das fases
+
+        @Override
+        protected void setup(Context context) {
+            metrics = new RowMetrics(context);
+        }
+
+        @Override
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);
+            metrics.parsed();
+            metrics.accepted();  // Toda linha vai para alguma partição
+            int start = col.start(0);
+            if (col.fieldCount() > 1) {
+                partition.set(col.getBytes(), start, col.start(1) + col.length(1) - start);  // Prefixo da linha, sem cópia extra
+            } else {
+                partition.set(col.getBytes(), start, col.length(0));  // Linha sem ano: mesma chave de "<país>;"
+                partition.append(delimiter, 0, 1);
+            }
+            line.set(col.getBytes(), start, col.end() - start);
+            context.write(partition, line);
+            metrics.emitted();
+        }
+
+        @Override
+        protected void cleanup(Context context) {
+            metrics.close();
+        }
+    }
+
+    /**
+     * Reducer que grava as linhas de cada partição em um arquivo dentro do diretório da partição.
+     * As chaves chegam ordenadas, então apenas um arquivo fica aberto por vez.
+     */
+    public static class ReduceForRepartition extends Reducer<Text, Text, NullWritable, Text> {
+
+        private final static byte[] newline = {'\n'};
+
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();
+        private Path workPath;  // Diretório temporário da tarefa, promovido pelo committer
+        private String fileName;  // Nome do arquivo da tarefa em cada partição (ex.: part-r-00000)
+        private FileSystem fs;
+        private KeyHistogram histogram;  // Linhas recebidas por partição
+
+        @Override
+        protected void setup(Context context) throws IOException, InterruptedException {
+            workPath = FileOutputFormat.getWorkOutputPath(context);
+            fileName = FileOutputFormat.getUniqueFile(context, "part", "");
+            fs = workPath.getFileSystem(context.getConfiguration());
+            histogram = new KeyHistogram(context);
+        }
+
+        @Override
+        public void reduce(Text key, Iterable<Text> values, Context context) throws IOException, InterruptedException {
+            col.reset(key);
+            String country = col.getString(0);
+            String year = col.fieldCount() > 1 ? col.getString(1) : "";
+
+            Path file = new Path(new Path(workPath, partitionDirectory(country, year)), fileName);
+            long records = 0;
+            try (FSDataOutputStream out = fs.create(file, false)) {
+                for (Text value : values) {
+                    out.write(value.getBytes(), 0, value.getLength());  // Linha original, sem alteração
+                    out.write(newline);
+                    records++;
+                }
+            }
+            histogram.add(records);
+        }
+
+        @Override
+        protected void cleanup(Context context) {
+            histogram.close();
+        }
+    }
+}
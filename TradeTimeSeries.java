@@ -0,0 +1,168 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+
+import java.io.IOException;
+
+/**
+ * Classe principal que grava em output/trade_time_series a série anual de cada país: o total em dólares do ano,
+ * o crescimento em relação ao ano anterior e o total acumulado, como "<país>;<ano>	Total: ..., Growth: ..., Running total: ...".
+ *
+ * Usa ordenação secundária com a chave (país, ano): o CountryPartitioner e o CountryComparator agrupam pelo país e
+ * a ordenação do shuffle entrega os anos já em ordem, então o Reducer percorre a série uma única vez guardando
+ * apenas o ano anterior, sem acumular os anos em memória.
+ */
+public class TradeTimeSeries {
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();
+
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+
+        Path input = new Path("in/operacoes_comerciais_inteira.csv");  // Caminho para o arquivo CSV de entrada
+        Path output = new Path("output/trade_time_series");  // Caminho para o diretório de saída
+
+        Job j = Job.getInstance(c, "trade-time-series");
+
+        j.setJarByClass(TradeTimeSeries.class);
+        j.setMapperClass(MapForTimeSeries.class);
+        j.setCombinerClass(StatsReducer.class);  // Agrupa pela chave completa (país, ano), não pelo país
+        j.setReducerClass(ReduceForTimeSeries.class);
+
+        j.setPartitionerClass(CountryYearKey.CountryPartitioner.class);  // Todos os anos de um país no mesmo Reducer
+        j.setGroupingComparatorClass(CountryYearKey.CountryComparator.class);  // Uma chamada a reduce() por país
+
+        j.setMapOutputKeyClass(CountryYearKey.class);  // Ordenada por país e depois por ano
+        j.setMapOutputValueClass(StatsWritable.class);
+
+        j.setOutputKeyClass(CountryYearKey.class);
+        j.setOutputValueClass(Text.class);
+
+        FileInputFormat.addInputPath(j, input);
+        FileOutputFormat.setOutputPath(j, output);
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
+    }
+
+    /**
+     * Classe Mapper que acumula o valor das transações por país e ano.
+     */
+    public static class MapForTimeSeries extends StatsMapper<LongWritable, Writable, CountryYearKey> {
+
+        private CountryYearKey countryYear = new CountryYearKey();  // Chave de saída reutilizada
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+        private byte[] key = new byte[64];  // Chave agregada: bytes do país seguidos do ano em 4 bytes
+
+        @Override
+        protected CountryYearKey outputKey(byte[] key, int start, int length) {
+            int end = start + length - 4;
+            int year = (key[end] & 0xff) << 24 | (key[end + 1] & 0xff) << 16 | (key[end + 2] & 0xff) << 8 | (key[end + 3] & 0xff);
+            countryYear.set(key, start, length - 4, year);
+            return countryYear;
+        }
+
+        @Override
+        public void map(LongWritable offset, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);
+            if (col.fieldCount() < 10) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
+                return;
+            }
+
+            int year;
+            double price;
+            try {
+                year = col.parseInt(1);
+                price = col.parseDouble(5);  // Converte o preço (sexta coluna) para double
+            } catch (NumberFormatException e) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
+                return;  // Ignora o cabeçalho e linhas com ano ou preço inválidos
+            }
+            metrics.parsed();
+            metrics.accepted();
+
+            int length = col.length(0);
+            if (key.length < length + 4) {
+                key = new byte[(length + 4) * 2];
+            }
+            System.arraycopy(col.getBytes(), col.start(0), key, 0, length);
+            key[length] = (byte) (year >>> 24);
+            key[length + 1] = (byte) (year >>> 16);
+            key[length + 2] = (byte) (year >>> 8);
+            key[length + 3] = (byte) year;
+            aggregator.add(key, 0, length + 4, price);
+            metrics.emitted();
+        }
+    }
+
+    /**
+     * Classe Reducer que recebe os anos de um país em ordem e emite, para cada ano, o total, o crescimento
+     * sobre o ano anterior e o total acumulado. A chave passada a reduce() muda de ano a cada valor lido.
+     */
+    public static class ReduceForTimeSeries extends Reducer<CountryYearKey, StatsWritable, CountryYearKey, Text> {
+
+        private CountryYearKey countryYear = new CountryYearKey();  // Chave do ano emitido
+        private StatsWritable current = new StatsWritable();  // Resumo do ano atual (vários parciais por ano)
+        private Text result = new Text();
+        private KeyHistogram histogram;  // Registros recebidos por país
+
+        @Override
+        protected void setup(Context context) {
+            histogram = new KeyHistogram(context);
+        }
+
+        @Override
+        public void reduce(CountryYearKey key, Iterable<StatsWritable> values, Context context) throws IOException, InterruptedException {
+            Text country = key.getCountry();
+            countryYear.set(country.getBytes(), 0, country.getLength(), key.getYear());
+            current.clear();
+            double previous = Double.NaN;  // Total do ano anterior (NaN no primeiro ano)
+            double running = 0;
+            long records = 0;
+
+            for (StatsWritable value : values) {  // A cada valor, key passa a ter o ano desse valor
+                records++;
+                if (key.getYear() != countryYear.getYear()) {
+                    running += current.getSum();
+                    previous = write(context, previous, running);
+                    countryYear.set(country.getBytes(), 0, country.getLength(), key.getYear());
+                    current.clear();
+                }
+                current.merge(value);
+            }
+            running += current.getSum();
+            write(context, previous, running);
+            histogram.add(records);
+        }
+
+        /**
+         * Emite o ano em countryYear com o resumo em current.
+         * @return O total do ano emitido, o "anterior" do próximo ano
+         */
+        private double write(Context context, double previous, double running) throws IOException, InterruptedException {
+            double total = current.getSum();
+            String growth = Double.isNaN(previous) || previous == 0 ? "-" : Double.toString((total - previous) / previous);
+            result.set("Total: " + total + ", Growth: " + growth + ", Running total: " + running);
+            context.write(countryYear, result);
+            return total;
+        }
+
+        @Override
+        protected void cleanup(Context context) {
+            histogram.close();
+        }
+    }
+}
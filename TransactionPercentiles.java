@@ -0,0 +1,124 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.log4j.BasicConfigurator;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classe principal que calcula a mediana e os percentis 90 e 99 do valor das transações por país e ano.
+ * Cada Mapper mantém um KllSketchWritable por (país, ano); o combiner e o Reducer apenas fundem os
+ * sketches, então a memória por chave é limitada independentemente da quantidade de transações.
+ */
+public class TransactionPercentiles {
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        BasicConfigurator.configure();  // Configura o logger do log4j
+
+        Configuration c = new Configuration();
+
+        String[] files = new GenericOptionsParser(c, args).getRemainingArgs();
+
+        Path input = new Path("in/operacoes_comerciais_inteira.csv");  // Caminho para o arquivo CSV de entrada
+        Path output = new Path("output/transaction_percentiles");  // Caminho para o diretório de saída
+
+        Job j = Job.getInstance(c, "transaction-percentiles");
+
+        j.setJarByClass(TransactionPercentiles.class);
+        j.setMapperClass(MapForPercentiles.class);
+        j.setCombinerClass(KllSketchReducer.class);  // Funde os sketches parciais antes do shuffle
+        j.setReducerClass(KllSketchReducer.class);
+
+        j.setMapOutputKeyClass(CountryYearKey.class);
+        j.setMapOutputValueClass(KllSketchWritable.class);
+
+        j.setOutputKeyClass(CountryYearKey.class);
+        j.setOutputValueClass(KllSketchWritable.class);
+
+        FileInputFormat.addInputPath(j, input);
+        FileOutputFormat.setOutputPath(j, output);
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);
+    }
+
+    /**
+     * Mapper que acumula os valores de cada (país, ano) em um sketch e emite os sketches no cleanup()
+     * (ou antes, quando há chaves demais em memória).
+     */
+    public static class MapForPercentiles extends Mapper<LongWritable, Writable, CountryYearKey, KllSketchWritable> {
+
+        public final static String MAX_KEYS = "tde2.percentiles.max.keys";  // Sketches em memória antes de esvaziar
+
+        private Map<CountryYearKey, KllSketchWritable> sketches = new HashMap<>();
+        private CountryYearKey probe = new CountryYearKey();  // Chave de busca reutilizada
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+        private int maxKeys;
+        private RowMetrics metrics;  // Destino de cada linha e tempo das fases
+
+        @Override
+        protected void setup(Context context) {
+            maxKeys = context.getConfiguration().getInt(MAX_KEYS, 4096);
+            metrics = new RowMetrics(context);
+        }
+
+        @Override
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);
+            if (col.fieldCount() < 10) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
+                return;
+            }
+
+            int year;
+            double price;
+            try {
+                year = col.parseInt(1);
+                price = col.parseDouble(5);  // Converte o preço (sexta coluna) para double
+            } catch (NumberFormatException e) {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_NUMBER);
+                return;  // Ignora o cabeçalho e linhas com ano ou preço inválidos
+            }
+            metrics.parsed();
+            metrics.accepted();
+
+            probe.set(col.getBytes(), col.start(0), col.length(0), year);
+            KllSketchWritable sketch = sketches.get(probe);
+            if (sketch == null) {
+                if (sketches.size() >= maxKeys) {
+                    flush(context);
+                }
+                sketch = new KllSketchWritable();
+                CountryYearKey owned = new CountryYearKey();
+                owned.set(col.getBytes(), col.start(0), col.length(0), year);
+                sketches.put(owned, sketch);
+            }
+            sketch.add(price);
+            context.getCounter(InMapperAggregator.Counters.AGGREGATED_RECORDS).increment(1);
+            metrics.emitted();
+        }
+
+        private void flush(Context context) throws IOException, InterruptedException {
+            for (Map.Entry<CountryYearKey, KllSketchWritable> entry : sketches.entrySet()) {
+                context.write(entry.getKey(), entry.getValue());
+            }
+            sketches.clear();
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            flush(context);  // Emite os sketches que ainda estão em memória
+            metrics.close();
+        }
+    }
+}
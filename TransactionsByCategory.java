@@ -5,9 +5,8 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
@@ -29,29 +28,42 @@ public class TransactionsByCategory {
         Job j = Job.getInstance(c, "transactions-by-category");  // Cria o job com nome "transactions-by-category"
         j.setJarByClass(TransactionsByCategory.class);           // Define a classe principal
         j.setMapperClass(MapForTransactionsByCategory.class);    // Define a classe Mapper
+        j.setCombinerClass(ReduceForTransactionsByCategory.class); // A soma das contagens também serve como combiner
         j.setReducerClass(ReduceForTransactionsByCategory.class); // Define a classe Reducer
 
         // Define os tipos de saída do Mapper (chave: categoria, valor: 1)
-        j.setMapOutputKeyClass(Text.class);
+        j.setMapOutputKeyClass(CategoryKey.class);  // Categoria codificada por dicionário, comparada sem desserializar
         j.setMapOutputValueClass(IntWritable.class);
 
         // Define os tipos de saída do Reducer (chave: categoria, valor: total de transações)
-        j.setOutputKeyClass(Text.class);
+        j.setOutputKeyClass(CategoryKey.class);
         j.setOutputValueClass(IntWritable.class);
 
         FileInputFormat.addInputPath(j, input);  // Define o caminho do arquivo de entrada
         FileOutputFormat.setOutputPath(j, output);  // Define o diretório de saída
 
-        System.exit(j.waitForCompletion(true) ? 0 : 1);  // Submete o job e encerra o programa com status
+        // Com -D tde2.sample.splits=... ou -D tde2.sample.rows=..., lê uma amostra do CSV e grava as estimativas
+        if (SampledTradeInputFormat.configure(j)) {
+            j.setReducerClass(ApproximateCountReducer.class);  // Contagem estimada com margem de erro
+            j.setOutputValueClass(Text.class);
+        }
+
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);  // Submete o job e encerra o programa com status
     }
 
     /**
      * Mapper que processa as transações e emite a categoria da transação como chave.
      */
-    public static class MapForTransactionsByCategory extends Mapper<LongWritable, Text, Text, IntWritable> {
+    public static class MapForTransactionsByCategory extends CountingMapper<LongWritable, Writable, CategoryKey> {
 
-        private final static IntWritable one = new IntWritable(1);  // Valor constante 1 para contar transações
-        private Text category = new Text();  // Objeto Text que armazenará a categoria
+        private CategoryKey category = new CategoryKey();  // Chave que armazenará a categoria
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+
+        @Override
+        protected CategoryKey outputKey(byte[] key, int start, int length) {
+            category.set(key, start, length);
+            return category;  // Emite a categoria e a contagem parcial
+        }
 
         /**
          * Método map que processa cada linha do arquivo de entrada.
@@ -62,17 +74,19 @@ public class TransactionsByCategory {
          * @throws InterruptedException
          */
         @Override
-        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
-            String linha = value.toString();  // Converte a linha de entrada para string
-            String[] col = linha.split(";");  // Divide a linha em colunas, usando ";" como delimitador
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);  // Localiza as colunas da linha, usando ";" como delimitador
 
             // Verifica se há uma coluna suficiente para a categoria (supondo que a categoria esteja na última coluna)
-            if (col.length > 8) {
-                String categoria = col[9];  // A última coluna contém a categoria
-
-                // Define a categoria como chave
-                category.set(categoria);
-                context.write(category, one);  // Emite a categoria e o valor 1
+            if (col.fieldCount() > 8) {
+                metrics.parsed();
+                metrics.accepted();  // Sem filtro: toda linha com a coluna é contada
+                // Acumula a categoria localmente; a emissão acontece no cleanup()
+                aggregator.count(col.getBytes(), col.start(9), col.length(9));  // A última coluna contém a categoria
+                metrics.emitted();
+            } else {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
             }
         }
     }
@@ -80,27 +94,6 @@ public class TransactionsByCategory {
     /**
      * Reducer que soma o número de transações por categoria.
      */
-    public static class ReduceForTransactionsByCategory extends Reducer<Text, IntWritable, Text, IntWritable> {
-
-        /**
-         * Método reduce que processa todas as ocorrências de transações por categoria e calcula o total.
-         * @param key A categoria emitida pelo Mapper
-         * @param values Uma lista de valores (sempre 1) emitidos pelo Mapper
-         * @param context O objeto que permite emitir a chave-valor final
-         * @throws IOException
-         * @throws InterruptedException
-         */
-        @Override
-        public void reduce(Text key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
-            int soma = 0;  // Inicializa a soma das transações
-
-            // Itera sobre todos os valores (sempre 1) e acumula a soma
-            for (IntWritable val : values) {
-                soma += val.get();  // Adiciona o valor à soma
-            }
-
-            // Emite a categoria e o total de transações
-            context.write(key, new IntWritable(soma));
-        }
+    public static class ReduceForTransactionsByCategory extends CountingReducer<CategoryKey> {
     }
 }
@@ -5,9 +5,8 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
@@ -29,29 +28,36 @@ public class TransactionsByFlow {
         Job j = Job.getInstance(c, "transactions-by-flow");  // Cria o job com nome "transactions-by-flow"
         j.setJarByClass(TransactionsByFlow.class);           // Define a classe principal
         j.setMapperClass(MapForTransactionsByFlow.class);    // Define a classe Mapper
+        j.setCombinerClass(ReduceForTransactionsByFlow.class); // A soma das contagens também serve como combiner
         j.setReducerClass(ReduceForTransactionsByFlow.class); // Define a classe Reducer
 
         // Define os tipos de saída do Mapper (chave: fluxo, valor: 1)
-        j.setMapOutputKeyClass(Text.class);
+        j.setMapOutputKeyClass(FlowKey.class);  // Fluxo codificado em um byte, comparado sem desserializar
         j.setMapOutputValueClass(IntWritable.class);
 
         // Define os tipos de saída do Reducer (chave: fluxo, valor: total de transações)
-        j.setOutputKeyClass(Text.class);
+        j.setOutputKeyClass(FlowKey.class);
         j.setOutputValueClass(IntWritable.class);
 
         FileInputFormat.addInputPath(j, input);  // Define o caminho do arquivo de entrada
         FileOutputFormat.setOutputPath(j, output);  // Define o diretório de saída
 
-        System.exit(j.waitForCompletion(true) ? 0 : 1);  // Submete o job e encerra o programa com status
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);  // Submete o job e encerra o programa com status
     }
 
     /**
      * Mapper que processa as transações e emite o tipo de fluxo (Flow) como chave.
      */
-    public static class MapForTransactionsByFlow extends Mapper<LongWritable, Text, Text, IntWritable> {
+    public static class MapForTransactionsByFlow extends CountingMapper<LongWritable, Writable, FlowKey> {
 
-        private final static IntWritable one = new IntWritable(1);  // Valor constante 1 para contar transações
-        private Text flowType = new Text();  // Objeto Text que armazenará o tipo de fluxo
+        private FlowKey flowType = new FlowKey();  // Chave que armazenará o tipo de fluxo
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+
+        @Override
+        protected FlowKey outputKey(byte[] key, int start, int length) {
+            flowType.set(key, start, length);
+            return flowType;  // Emite o tipo de fluxo e a contagem parcial
+        }
 
         /**
          * Método map que processa cada linha do arquivo de entrada.
@@ -62,17 +68,19 @@ public class TransactionsByFlow {
          * @throws InterruptedException
          */
         @Override
-        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
-            String linha = value.toString();  // Converte a linha de entrada para string
-            String[] col = linha.split(";");  // Divide a linha em colunas, usando ";" como delimitador
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);  // Localiza as colunas da linha, usando ";" como delimitador
 
             // Verifica se há uma coluna suficiente para o tipo de fluxo (supondo que o fluxo esteja na coluna 4)
-            if (col.length > 4) {
-                String flow = col[4];  // A quinta coluna contém o tipo de fluxo (Export ou Import)
-
-                // Define o tipo de fluxo como chave
-                flowType.set(flow);
-                context.write(flowType, one);  // Emite o tipo de fluxo e o valor 1
+            if (col.fieldCount() > 4) {
+                metrics.parsed();
+                metrics.accepted();  // Sem filtro: toda linha com a coluna é contada
+                // Acumula o tipo de fluxo localmente; a emissão acontece no cleanup()
+                aggregator.count(col.getBytes(), col.start(4), col.length(4));  // A quinta coluna contém o tipo de fluxo (Export ou Import)
+                metrics.emitted();
+            } else {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
             }
         }
     }
@@ -80,27 +88,6 @@ public class TransactionsByFlow {
     /**
      * Reducer que soma o número de transações por tipo de fluxo.
      */
-    public static class ReduceForTransactionsByFlow extends Reducer<Text, IntWritable, Text, IntWritable> {
-
-        /**
-         * Método reduce que processa todas as ocorrências de transações por tipo de fluxo e calcula o total.
-         * @param key O tipo de fluxo emitido pelo Mapper
-         * @param values Uma lista de valores (sempre 1) emitidos pelo Mapper
-         * @param context O objeto que permite emitir a chave-valor final
-         * @throws IOException
-         * @throws InterruptedException
-         */
-        @Override
-        public void reduce(Text key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
-            int soma = 0;  // Inicializa a soma das transações
-
-            // Itera sobre todos os valores (sempre 1) e acumula a soma
-            for (IntWritable val : values) {
-                soma += val.get();  // Adiciona o valor à soma
-            }
-
-            // Emite o tipo de fluxo e o total de transações
-            context.write(key, new IntWritable(soma));
-        }
+    public static class ReduceForTransactionsByFlow extends CountingReducer<FlowKey> {
     }
 }
@@ -5,9 +5,8 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
@@ -29,6 +28,7 @@ public class TransactionsPerYear {
         Job j = Job.getInstance(c, "transactions-per-year");  // Cria o job com nome "transactions-per-year"
         j.setJarByClass(TransactionsPerYear.class);           // Define a classe principal
         j.setMapperClass(MapForTransactionsPerYear.class);    // Define a classe Mapper
+        j.setCombinerClass(ReduceForTransactionsPerYear.class); // A soma das contagens também serve como combiner
         j.setReducerClass(ReduceForTransactionsPerYear.class); // Define a classe Reducer
 
         // Define os tipos de saída do Mapper (chave: ano, valor: 1)
@@ -39,19 +39,27 @@ public class TransactionsPerYear {
         j.setOutputKeyClass(Text.class);
         j.setOutputValueClass(IntWritable.class);
 
+        j.getConfiguration().setBoolean(ReducerPlanner.TOTAL_ORDER, true);  // Anos em ordem entre os arquivos de saída
+
         FileInputFormat.addInputPath(j, input);  // Define o caminho do arquivo de entrada
         FileOutputFormat.setOutputPath(j, output);  // Define o diretório de saída
 
-        System.exit(j.waitForCompletion(true) ? 0 : 1);  // Submete o job e encerra o programa com status
+        System.exit(TradeJobs.waitForCompletion(j) ? 0 : 1);  // Submete o job e encerra o programa com status
     }
 
     /**
      * Mapper que processa as transações e emite o ano da transação como chave.
      */
-    public static class MapForTransactionsPerYear extends Mapper<LongWritable, Text, Text, IntWritable> {
+    public static class MapForTransactionsPerYear extends CountingMapper<LongWritable, Writable, Text> {
 
-        private final static IntWritable one = new IntWritable(1);  // Valor constante 1 para contar transações
         private Text year = new Text();  // Objeto Text que armazenará o ano
+        private CsvFieldTokenizer col = new CsvFieldTokenizer();  // Colunas da linha atual, sem cópia
+
+        @Override
+        protected Text outputKey(byte[] key, int start, int length) {
+            year.set(key, start, length);
+            return year;  // Emite o ano e a contagem parcial
+        }
 
         /**
          * Método map que processa cada linha do arquivo de entrada.
@@ -62,17 +70,19 @@ public class TransactionsPerYear {
          * @throws InterruptedException
          */
         @Override
-        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
-            String linha = value.toString();  // Converte a linha de entrada para string
-            String[] col = linha.split(";");  // Divide a linha em colunas, usando ";" como delimitador
+        public void map(LongWritable key, Writable value, Context context) throws IOException, InterruptedException {
+            metrics.begin();
+            col.reset(value);  // Localiza as colunas da linha, usando ";" como delimitador
 
             // Verifica se há um ano na segunda coluna (supondo que o ano esteja na segunda coluna)
-            if (col.length > 1) {
-                String ano = col[1];  // A segunda coluna contém o ano
-
-                // Define o ano como chave
-                year.set(ano);
-                context.write(year, one);  // Emite o ano e o valor 1
+            if (col.fieldCount() > 1) {
+                metrics.parsed();
+                metrics.accepted();  // Sem filtro: toda linha com a coluna é contada
+                // Acumula o ano localmente; a emissão acontece no cleanup()
+                aggregator.count(col.getBytes(), col.start(1), col.length(1));  // A segunda coluna contém o ano
+                metrics.emitted();
+            } else {
+                metrics.malformed(RowMetrics.Rows.MALFORMED_COLUMNS);
             }
         }
     }
@@ -80,27 +90,6 @@ public class TransactionsPerYear {
     /**
      * Reducer que soma o número de transações por ano.
      */
-    public static class ReduceForTransactionsPerYear extends Reducer<Text, IntWritable, Text, IntWritable> {
-
-        /**
-         * Método reduce que processa todas as ocorrências de transações por ano e calcula o total.
-         * @param key O ano emitido pelo Mapper
-         * @param values Uma lista de valores (sempre 1) emitidos pelo Mapper
-         * @param context O objeto que permite emitir a chave-valor final
-         * @throws IOException
-         * @throws InterruptedException
-         */
-        @Override
-        public void reduce(Text key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
-            int soma = 0;  // Inicializa a soma das transações
-
-            // Itera sobre todos os valores (sempre 1) e acumula a soma
-            for (IntWritable val : values) {
-                soma += val.get();  // Adiciona o valor à soma
-            }
-
-            // Emite o ano e o total de transações
-            context.write(key, new IntWritable(soma));
-        }
+    public static class ReduceForTransactionsPerYear extends CountingReducer<Text> {
     }
 }
@@ -0,0 +1,109 @@
+package TDE2;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Chave com o ano da transação serializado como um int de 4 bytes, no lugar do Text com os dígitos.
+ * A ordenação numérica coincide com a ordem textual para anos de quatro dígitos, e a saída (toString)
+ * é a mesma do Text, então os arquivos gerados não mudam.
+ */
+public class YearKey implements WritableComparable<YearKey> {
+
+    public static final int SERIALIZED_SIZE = 4;
+
+    private int year;  // Ano da transação
+
+    /**
+     * Construtor vazio padrão (necessário para serialização)
+     */
+    public YearKey() {
+    }
+
+    public YearKey(int year) {
+        this.year = year;
+    }
+
+    public int get() {
+        return year;
+    }
+
+    public void set(int year) {
+        this.year = year;
+    }
+
+    /**
+     * Grava o ano no formato serializado, para uso como chave do InMapperAggregator.
+     * @param year O ano
+     * @param target O array de destino (ao menos SERIALIZED_SIZE bytes)
+     */
+    public static void pack(int year, byte[] target) {
+        target[0] = (byte) (year >>> 24);
+        target[1] = (byte) (year >>> 16);
+        target[2] = (byte) (year >>> 8);
+        target[3] = (byte) year;
+    }
+
+    /**
+     * Lê o ano diretamente dos bytes serializados.
+     * @param bytes Os bytes serializados
+     * @param start O início do registro
+     * @return O ano
+     */
+    public static int unpack(byte[] bytes, int start) {
+        return WritableComparator.readInt(bytes, start);
+    }
+
+    @Override
+    public void write(DataOutput dataOutput) throws IOException {
+        dataOutput.writeInt(year);
+    }
+
+    @Override
+    public void readFields(DataInput dataInput) throws IOException {
+        year = dataInput.readInt();
+    }
+
+    @Override
+    public int compareTo(YearKey other) {
+        return Integer.compare(year, other.year);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof YearKey && ((YearKey) o).year == year;
+    }
+
+    @Override
+    public int hashCode() {
+        return year;
+    }
+
+    @Override
+    public String toString() {
+        return Integer.toString(year);
+    }
+
+    /**
+     * Comparador que ordena anos serializados sem desserializá-los.
+     */
+    public static class Comparator extends WritableComparator {
+
+        public Comparator() {
+            super(YearKey.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            return Integer.compare(unpack(b1, s1), unpack(b2, s2));
+        }
+    }
+
+    static {
+        WritableComparator.define(YearKey.class, new Comparator());  // Registra o comparador binário
+    }
+}
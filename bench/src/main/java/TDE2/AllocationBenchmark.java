@@ -0,0 +1,247 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.hadoop.util.Progress;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+
+/**
+ * Mede a alocação por registro dos Mappers e Reducers do pacote, fora de um cluster: cada classe roda
+ * dentro de um contexto real do Hadoop (MapContextImpl/ReduceContextImpl) sobre linhas sintéticas em
+ * memória, e a diferença de bytes alocados pela thread entre execuções com N e 2N registros dá a
+ * alocação em regime, sem o custo fixo do setup. Termina com status 1 se alguma classe alocar por registro.
+ */
+public class AllocationBenchmark {
+
+    private final static int RECORDS = 200000;       // Registros da execução curta (a longa usa o dobro)
+    private final static double TOLERANCE = 1.0;     // Bytes por registro aceitos como ruído de medição
+
+    private final static com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        Configuration c = new Configuration();
+        Text[] lines = new TradeLineGenerator(42).lines(1000);
+        boolean allocationFree = true;
+
+        Class<?>[] mappers = {
+                BrazilTransactionCount.MapForBrazilTransactions.class,
+                BrazilTransactionAverage.MapForBrazilAverage.class,
+                BrazilExportTransactionAverage.MapForBrazilExportAverage.class,
+                BrazilTransactionMinMax.MapForBrazilMinMax.class,
+                TransactionsPerYear.MapForTransactionsPerYear.class,
+                TransactionsByFlow.MapForTransactionsByFlow.class,
+                TransactionsByCategory.MapForTransactionsByCategory.class,
+                SingleScanTransactionAnalyses.MapForAllAnalyses.class
+        };
+        for (Class<?> mapper : mappers) {
+            runMapper(mapper, c, lines, RECORDS);  // Aquecimento (JIT)
+            double perRecord = (runMapper(mapper, c, lines, 2 * RECORDS) - runMapper(mapper, c, lines, RECORDS)) / (double) RECORDS;
+            allocationFree &= report(mapper, perRecord);
+        }
+
+        Text textKey = new Text("2016");
+        IntWritable count = new IntWritable(1);
+        StatsWritable stats = new StatsWritable(10.0);
+        Object[][] reducers = {
+                {TransactionsPerYear.ReduceForTransactionsPerYear.class, textKey, count},
+                {TransactionsByFlow.ReduceForTransactionsByFlow.class, flowKey("Export"), count},
+                {StatsReducer.class, new YearKey(2016), stats}
+        };
+        for (Object[] reducer : reducers) {
+            Class<?> cls = (Class<?>) reducer[0];
+            runReducer(cls, c, reducer[1], reducer[2], RECORDS);
+            double perRecord = (runReducer(cls, c, reducer[1], reducer[2], 2 * RECORDS)
+                    - runReducer(cls, c, reducer[1], reducer[2], RECORDS)) / (double) RECORDS;
+            allocationFree &= report(cls, perRecord);
+        }
+
+        System.exit(allocationFree ? 0 : 1);
+    }
+
+    private static boolean report(Class<?> cls, double perRecord) {
+        boolean ok = perRecord < TOLERANCE;
+        System.out.println(String.format("%-70s %8.2f bytes/registro %s", cls.getName(), perRecord, ok ? "" : "  <-- ALOCA"));
+        return ok;
+    }
+
+    private static FlowKey flowKey(String flow) {
+        FlowKey key = new FlowKey();
+        key.set(flow);
+        return key;
+    }
+
+    /**
+     * Executa o Mapper completo (setup, map de cada linha e cleanup) e devolve os bytes alocados pela thread.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static long runMapper(Class<?> cls, Configuration conf, Text[] lines, int records) throws Exception {
+        Mapper mapper = (Mapper) ReflectionUtils.newInstance(cls, conf);
+        Mapper.Context context = TaskContexts.mapContext(conf, new TaskAttemptID("benchmark", 1, TaskType.MAP, 0, 0),
+                new LineReader(lines, records), new TaskContexts.DiscardingWriter(), new TaskContexts.CounterReporter());
+
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        mapper.run(context);
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+    }
+
+    /**
+     * Chama reduce() uma vez por registro (cada chamada com 8 valores), entre o setup() e o cleanup() como no
+     * run(), e devolve os bytes alocados pela thread nas chamadas a reduce().
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static long runReducer(Class<?> cls, Configuration conf, Object key, Object value, int records) throws Exception {
+        Reducer reducer = (Reducer) ReflectionUtils.newInstance(cls, conf);
+        Reducer.Context context = TaskContexts.reduceContext(conf, new TaskAttemptID("benchmark", 1, TaskType.REDUCE, 0, 0),
+                new EmptyIterator(), new TaskContexts.DiscardingWriter(), new TaskContexts.CounterReporter(), null,
+                key.getClass(), value.getClass());
+        RepeatingValues values = new RepeatingValues(value, 8);
+        boolean counting = reducer instanceof CountingReducer;
+        if (counting) {
+            ((CountingReducer) reducer).setup(context);  // Cria o histograma de registros por chave
+        } else {
+            ((StatsReducer) reducer).setup(context);
+        }
+
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < records; i++) {
+            if (counting) {
+                ((CountingReducer) reducer).reduce(key, values, context);  // reduce() é público nas bases do pacote
+            } else {
+                ((StatsReducer) reducer).reduce(key, values, context);
+            }
+        }
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        if (counting) {
+            ((CountingReducer) reducer).cleanup(context);
+        } else {
+            ((StatsReducer) reducer).cleanup(context);
+        }
+        return allocated;
+    }
+
+    /**
+     * Entrega as linhas em ciclo, reutilizando os mesmos objetos de chave, como o LineRecordReader.
+     */
+    private static class LineReader extends RecordReader<LongWritable, Text> {
+
+        private final Text[] lines;
+        private final int records;
+        private final LongWritable offset = new LongWritable();
+        private final Text value = new Text();
+        private int read;
+
+        LineReader(Text[] lines, int records) {
+            this.lines = lines;
+            this.records = records;
+        }
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) {
+        }
+
+        @Override
+        public boolean nextKeyValue() {
+            if (read == records) {
+                return false;
+            }
+            Text line = lines[read % lines.length];
+            value.set(line.getBytes(), 0, line.getLength());
+            offset.set(read++);
+            return true;
+        }
+
+        @Override
+        public LongWritable getCurrentKey() {
+            return offset;
+        }
+
+        @Override
+        public Text getCurrentValue() {
+            return value;
+        }
+
+        @Override
+        public float getProgress() {
+            return read / (float) records;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Mesmo valor repetido, com o próprio objeto como iterador (sem alocar a cada reduce()).
+     */
+    private static class RepeatingValues implements Iterable<Object>, Iterator<Object> {
+
+        private final Object value;
+        private final int count;
+        private int returned;
+
+        RepeatingValues(Object value, int count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            returned = 0;
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return returned < count;
+        }
+
+        @Override
+        public Object next() {
+            returned++;
+            return value;
+        }
+    }
+
+    private static class EmptyIterator implements RawKeyValueIterator {
+
+        @Override
+        public DataInputBuffer getKey() {
+            return null;
+        }
+
+        @Override
+        public DataInputBuffer getValue() {
+            return null;
+        }
+
+        @Override
+        public boolean next() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Progress getProgress() {
+            return new Progress();
+        }
+    }
+}
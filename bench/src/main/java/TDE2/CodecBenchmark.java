@@ -0,0 +1,152 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormatCounter;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo de um job completo no LocalJobRunner e bytes no shuffle e na saída para cada codec do TradeCodecs.
+ * Uma operação é o TradeCubeBuilder sobre o CSV (in/operacoes_comerciais_inteira.csv, ou -Dtde2.bench.input,
+ * ou LINES linhas sintéticas se o arquivo não existir), com a agregação no Mapper desligada para que o
+ * shuffle leve os registros de cada linha (a contagem e o valor da sua célula) sem fusão. O codec vale para a saída dos Mappers e para o SequenceFile de saída;
+ * com input=bzip2 o CSV é lido comprimido. Os bytes aparecem como os contadores shuffleBytes e outputBytes.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+
+    private final static int LINES = 200000;
+
+    @Param({"none", "deflate", "gzip", "bzip2", "snappy"})
+    public String codec;
+
+    @Param({"csv", "bzip2"})
+    public String input;
+
+    private File directory;
+    private Path csv;
+    private int run;
+
+    /**
+     * Bytes do último job, somados por iteração (uma operação por iteração no SingleShotTime).
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Bytes {
+        public long shuffleBytes;  // Saída dos Mappers como gravada em disco (após a compressão)
+        public long outputBytes;   // Arquivos part-r-*
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            shuffleBytes = 0;
+            outputBytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("tde2-codec").toFile();
+        File source = new File(System.getProperty("tde2.bench.input", "in/operacoes_comerciais_inteira.csv"));
+        File copy = new File(directory, "operacoes_comerciais_inteira.csv");
+        if (source.isFile()) {
+            Files.copy(source.toPath(), copy.toPath());
+        } else {
+            TradeLineGenerator generator = new TradeLineGenerator(42);
+            try (PrintWriter out = new PrintWriter(copy, StandardCharsets.UTF_8.name())) {
+                out.println(TradeLineGenerator.HEADER);
+                for (int i = 0; i < LINES; i++) {
+                    out.println(generator.next());
+                }
+            }
+        }
+        csv = new Path(copy.getAbsolutePath());
+
+        if (!input.equals("csv")) {  // Cópia comprimida ao lado do CSV, como a do TradeCodecs.main()
+            Configuration conf = new Configuration();
+            conf.set(TradeCodecs.INPUT, input);
+            CompressionCodec compression = TradeCodecs.getInputCodec(conf);
+            FileSystem fs = csv.getFileSystem(conf);
+            try (InputStream in = fs.open(csv);
+                 OutputStream out = compression.createOutputStream(fs.create(csv.suffix(compression.getDefaultExtension()), true))) {
+                IOUtils.copyBytes(in, out, 1 << 16);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() {
+        FileUtil.fullyDelete(directory);
+    }
+
+    @Benchmark
+    public boolean job(Bytes bytes) throws Exception {
+        Configuration conf = new Configuration();
+        conf.setInt(InMapperAggregator.MAX_ENTRIES, 0);  // Sem agregação: cada célula de cada linha vai ao shuffle
+        if (!codec.equals("none")) {
+            conf.set(TradeCodecs.MAP_OUTPUT, codec);
+            conf.set(TradeCodecs.OUTPUT, codec);
+        }
+        if (!input.equals("csv")) {
+            conf.set(TradeCodecs.INPUT, input);
+        }
+
+        Job j = Job.getInstance(conf, "codec-benchmark");
+        j.setMapperClass(TradeCubeBuilder.MapForCube.class);
+        j.setReducerClass(StatsReducer.class);
+        j.setMapOutputKeyClass(Text.class);
+        j.setMapOutputValueClass(StatsWritable.class);
+        j.setOutputKeyClass(Text.class);
+        j.setOutputValueClass(StatsWritable.class);
+        j.setOutputFormatClass(SequenceFileOutputFormat.class);
+        FileInputFormat.addInputPath(j, csv);
+        File output = new File(directory, "output-" + run++);
+        FileOutputFormat.setOutputPath(j, new Path(output.getAbsolutePath()));
+
+        if (!TradeJobs.waitForCompletion(j)) {
+            throw new IllegalStateException("Job falhou com codec=" + codec + ", input=" + input);
+        }
+        Counters counters = j.getCounters();
+        bytes.shuffleBytes += counters.findCounter(TaskCounter.MAP_OUTPUT_MATERIALIZED_BYTES).getValue();
+        bytes.outputBytes += counters.findCounter(FileOutputFormatCounter.BYTES_WRITTEN).getValue();
+        FileUtil.fullyDelete(output);
+        return true;
+    }
+}
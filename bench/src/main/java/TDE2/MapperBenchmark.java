@@ -0,0 +1,126 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por linha de cada Mapper: uma operação é uma chamada a map() sobre a próxima linha sintética,
+ * com a agregação em memória ativa como no job real (a emissão vai para um RecordWriter que descarta).
+ * Os Mappers colunares recebem as mesmas linhas já convertidas em TradeRecord.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperBenchmark {
+
+    private final static int LINES = 4096;  // Potência de 2, percorrida em ciclo
+
+    private final static Map<String, Class<?>> MAPPERS = new HashMap<>();
+
+    static {
+        MAPPERS.put("BrazilTransactionCount", BrazilTransactionCount.MapForBrazilTransactions.class);
+        MAPPERS.put("BrazilTransactionCountColumnar", BrazilTransactionCount.MapForBrazilTransactionsColumnar.class);
+        MAPPERS.put("BrazilTransactionAverage", BrazilTransactionAverage.MapForBrazilAverage.class);
+        MAPPERS.put("BrazilTransactionAverageColumnar", BrazilTransactionAverage.MapForBrazilAverageColumnar.class);
+        MAPPERS.put("BrazilExportTransactionAverage", BrazilExportTransactionAverage.MapForBrazilExportAverage.class);
+        MAPPERS.put("BrazilTransactionMinMax", BrazilTransactionMinMax.MapForBrazilMinMax.class);
+        MAPPERS.put("BrazilTransactionMinMaxColumnar", BrazilTransactionMinMax.MapForBrazilMinMaxColumnar.class);
+        MAPPERS.put("TransactionsPerYear", TransactionsPerYear.MapForTransactionsPerYear.class);
+        MAPPERS.put("TransactionsByFlow", TransactionsByFlow.MapForTransactionsByFlow.class);
+        MAPPERS.put("TransactionsByCategory", TransactionsByCategory.MapForTransactionsByCategory.class);
+        MAPPERS.put("SingleScanTransactionAnalyses", SingleScanTransactionAnalyses.MapForAllAnalyses.class);
+        MAPPERS.put("SingleScanTransactionAnalysesColumnar", SingleScanTransactionAnalyses.MapForAllAnalysesColumnar.class);
+    }
+
+    @Param({"BrazilTransactionCount", "BrazilTransactionCountColumnar", "BrazilTransactionAverage",
+            "BrazilTransactionAverageColumnar", "BrazilExportTransactionAverage", "BrazilTransactionMinMax",
+            "BrazilTransactionMinMaxColumnar", "TransactionsPerYear", "TransactionsByFlow", "TransactionsByCategory",
+            "SingleScanTransactionAnalyses", "SingleScanTransactionAnalysesColumnar"})
+    public String job;
+
+    private Object[] keys;     // LongWritable (CSV) ou NullWritable (colunar)
+    private Object[] values;   // Text (CSV) ou TradeRecord (colunar)
+    private int next;
+
+    private Object mapper;
+    private Object context;
+    private MethodHandle map;
+
+    @Setup
+    public void setup() throws Throwable {
+        Text[] lines = new TradeLineGenerator(42).lines(LINES);
+        keys = new Object[LINES];
+        values = new Object[LINES];
+        boolean columnar = job.endsWith("Columnar");
+        CsvFieldTokenizer tokenizer = new CsvFieldTokenizer();
+        for (int i = 0; i < LINES; i++) {
+            if (columnar) {
+                TradeRecord record = new TradeRecord();
+                tokenizer.reset(lines[i]);
+                record.set(tokenizer);
+                keys[i] = NullWritable.get();
+                values[i] = record;
+            } else {
+                keys[i] = new LongWritable(i);
+                values[i] = lines[i];
+            }
+        }
+
+        Configuration conf = new Configuration();
+        mapper = ReflectionUtils.newInstance(MAPPERS.get(job), conf);
+        context = TaskContexts.mapContext(conf, new TaskAttemptID("benchmark", 1, TaskType.MAP, 0, 0), null,
+                new TaskContexts.DiscardingWriter<>(), new TaskContexts.CounterReporter());
+        map = handle("map", Object.class, Object.class, Mapper.Context.class)
+                .asType(MethodType.methodType(void.class, Object.class, Object.class, Object.class, Object.class));
+        handle("setup", Mapper.Context.class).invoke((Mapper<?, ?, ?, ?>) mapper, (Mapper.Context) context);
+    }
+
+    @TearDown
+    public void cleanup() throws Throwable {
+        handle("cleanup", Mapper.Context.class).invoke((Mapper<?, ?, ?, ?>) mapper, (Mapper.Context) context);
+    }
+
+    @Benchmark
+    public void map() throws Throwable {
+        int line = next++ & (LINES - 1);
+        map.invokeExact(mapper, keys[line], values[line], context);
+    }
+
+    /**
+     * map/setup/cleanup são protegidos em Mapper; o handle despacha para a implementação da subclasse.
+     */
+    private static MethodHandle handle(String name, Class<?>... parameters) throws ReflectiveOperationException {
+        Method method = Mapper.class.getDeclaredMethod(name, parameters);
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method);
+    }
+}
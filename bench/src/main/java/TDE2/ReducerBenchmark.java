@@ -0,0 +1,200 @@
+package TDE2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.util.Progress;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iteração do Reducer sobre a entrada do shuffle: os pares chegam serializados e ordenados, e o
+ * ReduceContextImpl agrupa as chaves pelo comparator do job e desserializa cada valor, como na tarefa real.
+ * Uma operação é um valor consumido; cada invocação percorre RECORDS valores com Reducer.run().
+ * O contexto é recriado a cada invocação, e essa alocação fixa aparece diluída no gc.alloc.rate.norm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ReducerBenchmark {
+
+    private final static int RECORDS = 16384;  // Valores por invocação
+
+    @Param({"TransactionsPerYear", "TransactionsByFlow", "BrazilTransactionAverage", "BrazilTransactionMinMax"})
+    public String job;
+
+    private Configuration conf;
+    private Reducer<Object, Object, Object, Object> reducer;
+    private Class<Object> keyClass;
+    private Class<Object> valueClass;
+    private WritableComparator comparator;
+    private SerializedRecords input;
+    private Reducer<Object, Object, Object, Object>.Context context;
+
+    @Setup
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setup() throws IOException {
+        conf = new Configuration();
+        WritableComparable<?>[] keys;
+        Writable value;
+        Class<?> reducerClass;
+        switch (job) {
+            case "TransactionsPerYear":
+                keys = new WritableComparable<?>[29];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = new Text(String.valueOf(1988 + i));
+                }
+                value = new IntWritable(17);
+                reducerClass = TransactionsPerYear.ReduceForTransactionsPerYear.class;
+                break;
+            case "TransactionsByFlow":
+                String[] flows = {"Export", "Import", "Re-Export", "Re-Import"};
+                keys = new WritableComparable<?>[flows.length];
+                for (int i = 0; i < keys.length; i++) {
+                    FlowKey flow = new FlowKey();
+                    flow.set(flows[i]);
+                    keys[i] = flow;
+                }
+                value = new IntWritable(17);
+                reducerClass = TransactionsByFlow.ReduceForTransactionsByFlow.class;
+                break;
+            case "BrazilTransactionAverage":
+                keys = new WritableComparable<?>[29];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = new YearKey(1988 + i);
+                }
+                value = partialStats();
+                reducerClass = StatsReducer.class;
+                break;
+            case "BrazilTransactionMinMax":
+                keys = new WritableComparable<?>[]{new Text("Brazil")};
+                value = partialStats();
+                reducerClass = StatsReducer.class;
+                break;
+            default:
+                throw new IllegalArgumentException("Job desconhecido: " + job);
+        }
+        keyClass = (Class) keys[0].getClass();
+        valueClass = (Class) value.getClass();
+        comparator = WritableComparator.get(keys[0].getClass().asSubclass(WritableComparable.class), conf);
+        reducer = (Reducer<Object, Object, Object, Object>) ReflectionUtils.newInstance(reducerClass, conf);
+        input = new SerializedRecords(keys, value, RECORDS);
+    }
+
+    private static StatsWritable partialStats() {
+        StatsWritable stats = new StatsWritable();
+        for (int i = 1; i <= 10; i++) {
+            stats.add(i * 1000.5);
+        }
+        return stats;
+    }
+
+    @Setup(Level.Invocation)
+    @SuppressWarnings("unchecked")
+    public void newContext() throws IOException, InterruptedException {
+        input.rewind();  // O ReduceContextImpl já lê o primeiro par no construtor
+        context = TaskContexts.reduceContext(conf, new TaskAttemptID("benchmark", 1, TaskType.REDUCE, 0, 0), input,
+                new TaskContexts.DiscardingWriter<>(), new TaskContexts.CounterReporter(), comparator, keyClass, valueClass);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void reduce() throws IOException, InterruptedException {
+        reducer.run(context);
+    }
+
+    /**
+     * Entrada do shuffle em memória: RECORDS pares já serializados, com os valores de cada chave contíguos.
+     */
+    private static class SerializedRecords implements RawKeyValueIterator {
+
+        private final byte[][] keys;
+        private final byte[] value;
+        private final int perKey;
+        private final int records;
+        private final DataInputBuffer keyBuffer = new DataInputBuffer();
+        private final DataInputBuffer valueBuffer = new DataInputBuffer();
+        private final Progress progress = new Progress();
+        private int index;
+
+        SerializedRecords(WritableComparable<?>[] sortedKeys, Writable value, int records) throws IOException {
+            DataOutputBuffer out = new DataOutputBuffer();
+            keys = new byte[sortedKeys.length][];
+            for (int i = 0; i < sortedKeys.length; i++) {
+                keys[i] = serialize(sortedKeys[i], out);
+            }
+            this.value = serialize(value, out);
+            this.perKey = (records + sortedKeys.length - 1) / sortedKeys.length;
+            this.records = records;
+        }
+
+        private static byte[] serialize(Writable writable, DataOutputBuffer out) throws IOException {
+            out.reset();
+            writable.write(out);
+            byte[] bytes = new byte[out.getLength()];
+            System.arraycopy(out.getData(), 0, bytes, 0, bytes.length);
+            return bytes;
+        }
+
+        void rewind() {
+            index = -1;
+        }
+
+        @Override
+        public DataInputBuffer getKey() {
+            return keyBuffer;
+        }
+
+        @Override
+        public DataInputBuffer getValue() {
+            return valueBuffer;
+        }
+
+        @Override
+        public boolean next() {
+            if (++index >= records) {
+                return false;
+            }
+            byte[] key = keys[index / perKey];
+            keyBuffer.reset(key, key.length);
+            valueBuffer.reset(value, value.length);
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Progress getProgress() {
+            return progress;
+        }
+    }
+}
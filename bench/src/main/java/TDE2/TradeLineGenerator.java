@@ -0,0 +1,56 @@
+package TDE2;
+
+import org.apache.hadoop.io.Text;
+
+import java.util.Random;
+
+/**
+ * Gera linhas sintéticas no formato do CSV de transações (10 colunas separadas por ';'), com países,
+ * anos, fluxos e categorias nos mesmos domínios do arquivo real. Usado pelos benchmarks.
+ */
+public class TradeLineGenerator {
+
+    public final static String HEADER = "country_or_area;year;comm_code;commodity;flow;trade_usd;weight_kg;quantity_name;quantity;category";
+
+    private final static String[] COUNTRIES = {"Brazil", "Argentina", "China", "Germany", "France", "Japan", "United States of America"};
+    private final static String[] FLOWS = {"Export", "Import", "Re-Export", "Re-Import"};
+    private final static String[] CATEGORIES = {"01_live_animals", "02_meat", "27_mineral_fuels_oils_distillation_products_etc", "all_commodities"};
+    private final static String[] QUANTITY_NAMES = {"Weight in kilograms", "Number of items", "No Quantity"};
+    private final static double BRAZIL_SHARE = 0.25;  // Fração de linhas do Brasil, para os Mappers filtrados terem trabalho
+
+    private final Random random;
+
+    public TradeLineGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @return Uma nova linha, sem o terminador
+     */
+    public String next() {
+        String country = random.nextDouble() < BRAZIL_SHARE ? "Brazil" : COUNTRIES[1 + random.nextInt(COUNTRIES.length - 1)];
+        String code = String.format("%06d", 10000 + random.nextInt(990000));
+        return country + ";"
+                + (1988 + random.nextInt(29)) + ";"
+                + code + ";"
+                + "Commodity " + code + ", other than specified;"
+                + FLOWS[random.nextInt(FLOWS.length)] + ";"
+                + random.nextInt(100000000) + ";"
+                + random.nextInt(1000000) + ";"
+                + QUANTITY_NAMES[random.nextInt(QUANTITY_NAMES.length)] + ";"
+                + random.nextInt(1000000) + ";"
+                + CATEGORIES[random.nextInt(CATEGORIES.length)];
+    }
+
+    /**
+     * @param count O número de linhas
+     * @return As linhas, cada uma em seu próprio Text
+     */
+    public Text[] lines(int count) {
+        Text[] lines = new Text[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = new Text(next());
+        }
+        return lines;
+    }
+}
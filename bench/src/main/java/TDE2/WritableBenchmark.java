@@ -0,0 +1,115 @@
+package TDE2;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ida e volta de serialização dos Writables do pacote: uma operação é write() em um buffer reutilizado
+ * seguida de readFields() em uma segunda instância, como acontece entre o Mapper e o Reducer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WritableBenchmark {
+
+    @Param({"StatsWritable", "TradeRecord", "YearKey", "FlowKey", "CategoryKey", "CountryYearKey", "KllSketchWritable", "HyperLogLogWritable", "Text"})
+    public String type;
+
+    private Writable source;
+    private Writable target;
+    private final DataOutputBuffer out = new DataOutputBuffer();
+    private final DataInputBuffer in = new DataInputBuffer();
+
+    @Setup
+    public void setup() {
+        switch (type) {
+            case "StatsWritable":
+                StatsWritable stats = new StatsWritable();
+                for (int i = 1; i <= 100; i++) {
+                    stats.add(i * 1000.5);
+                }
+                source = stats;
+                target = new StatsWritable();
+                break;
+            case "TradeRecord":
+                CsvFieldTokenizer tokenizer = new CsvFieldTokenizer();
+                tokenizer.reset(new TradeLineGenerator(42).lines(1)[0]);
+                TradeRecord record = new TradeRecord();
+                record.set(tokenizer);
+                source = record;
+                target = new TradeRecord();
+                break;
+            case "YearKey":
+                source = new YearKey(2016);
+                target = new YearKey();
+                break;
+            case "FlowKey":
+                FlowKey flow = new FlowKey();
+                flow.set("Export");
+                source = flow;
+                target = new FlowKey();
+                break;
+            case "CategoryKey":
+                CategoryKey category = new CategoryKey();
+                category.set("all_commodities");
+                source = category;
+                target = new CategoryKey();
+                break;
+            case "CountryYearKey":
+                source = new CountryYearKey("Brazil", 2016);
+                target = new CountryYearKey();
+                break;
+            case "KllSketchWritable":
+                KllSketchWritable sketch = new KllSketchWritable();
+                for (int i = 1; i <= 100000; i++) {
+                    sketch.add(i * 1000.5);
+                }
+                source = sketch;
+                target = new KllSketchWritable();
+                break;
+            case "HyperLogLogWritable":
+                HyperLogLogWritable distinct = new HyperLogLogWritable();
+                for (int i = 0; i < 100000; i++) {
+                    byte[] code = CsvFieldTokenizer.ascii(Integer.toString(i));
+                    distinct.add(code, 0, code.length);
+                }
+                source = distinct;
+                target = new HyperLogLogWritable();
+                break;
+            case "Text":
+                source = new Text("Brazil");
+                target = new Text();
+                break;
+            default:
+                throw new IllegalArgumentException("Writable desconhecido: " + type);
+        }
+    }
+
+    @Benchmark
+    public Writable roundTrip() throws IOException {
+        out.reset();
+        source.write(out);
+        in.reset(out.getData(), out.getLength());
+        target.readFields(in);
+        return target;
+    }
+}